@@ -1,9 +1,6 @@
 package com.homeclimatecontrol.xbee;
 
 import com.rapplogic.xbee.api.XBeeAddress64;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-import org.apache.logging.log4j.ThreadContext;
 
 import java.util.StringTokenizer;
 
@@ -14,58 +11,61 @@ import java.util.StringTokenizer;
  */
 public class AddressParser {
 
-    private static final Logger logger = LogManager.getLogger(AddressParser.class);
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
 
     private AddressParser() {
 
     }
 
     /**
-     * Parse a loosely formatted 64 bit address into a form that is understood by AR's constructor.
+     * Parse a loosely formatted 64 bit address.
      *
      * @param rawAddress Raw address to parse. You may write it any way you want (feel free to insert
      * spaces and dots), just make sure you specify all bytes, even leading zeros.
      *
-     * @return Well formed 64 bit XBee address.
+     * @return Well formed 64 bit XBee address, possibly a cached instance.
      */
     public static XBeeAddress64 parse(String rawAddress) {
+        return XBeeAddress64.valueOf(parseLong(rawAddress));
+    }
 
-        ThreadContext.push("parse");
-
-        try {
+    /**
+     * Parse a loosely formatted 64 bit address into a number, without creating any intermediate objects.
+     *
+     * @param rawAddress Raw address to parse, see {@link #parse(String)}.
+     *
+     * @return The address as a 64 bit number, MSB first.
+     *
+     * @exception IllegalArgumentException if there aren't exactly 16 hex digits, or there's something else
+     * besides them, spaces and dots.
+     */
+    public static long parseLong(String rawAddress) {
 
-            logger.debug("raw address: '{}'", rawAddress);
+        long result = 0;
+        var digits = 0;
 
-            String denseAddress = compress(rawAddress);
+        for (var offset = 0; offset < rawAddress.length(); offset++) {
 
-            logger.debug("dense address: {}", denseAddress);
+            var c = rawAddress.charAt(offset);
 
-            if (denseAddress.length() != 16) {
-                throw new IllegalArgumentException("Bad address, dense form: '" + denseAddress + "'");
+            if (c == ' ' || c == '.') {
+                continue;
             }
 
-            // Now let's fill it with spaces
-            StringBuilder sb = new StringBuilder();
-
-            for (int offset = 0; offset < denseAddress.length(); offset += 2) {
-
-                if (offset != 0) {
-                    sb.append(' ');
-                }
+            var digit = Character.digit(c, 16);
 
-                sb.append(denseAddress.charAt(offset));
-                sb.append(denseAddress.charAt(offset + 1));
+            if (digit < 0 || ++digits > 16) {
+                throw new IllegalArgumentException("Bad address: '" + rawAddress + "'");
             }
 
-            String result = sb.toString();
-
-            logger.debug("Rapp address: {}", result);
-
-            return new XBeeAddress64(result);
+            result = (result << 4) | digit;
+        }
 
-        } finally {
-            ThreadContext.pop();
+        if (digits != 16) {
+            throw new IllegalArgumentException("Bad address, " + digits + " hex digits instead of 16: '" + rawAddress + "'");
         }
+
+        return result;
     }
 
     /**
@@ -96,23 +96,20 @@ public class AddressParser {
      */
     public static String render4x4(XBeeAddress64 xbeeAddress) {
 
-        StringBuilder sb = new StringBuilder();
-        int[] address = xbeeAddress.getAddress();
-
-        for (int offset = 0; offset < address.length; offset++) {
+        var address = xbeeAddress.toLong();
+        var result = new char[17];
+        var position = 0;
 
-            if (offset == 4) {
-                sb.append('.');
-            }
+        for (var shift = 60; shift >= 0; shift -= 4) {
 
-            if ((address[offset] & 0xF0) == 0) {
-                sb.append('0');
+            if (shift == 28) {
+                result[position++] = '.';
             }
 
-            sb.append(Integer.toHexString(address[offset]).toUpperCase());
+            result[position++] = HEX[(int) (address >>> shift) & 0x0F];
         }
 
-        return sb.toString();
+        return new String(result);
     }
 
     /**
@@ -0,0 +1,147 @@
+package com.homeclimatecontrol.xbee;
+
+import com.homeclimatecontrol.xbee.response.frame.ATCommandResponse;
+import com.rapplogic.xbee.api.AtCommand;
+import com.rapplogic.xbee.api.RemoteAtRequest;
+import com.rapplogic.xbee.api.XBeeAddress64;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a batch of AT commands with several of them in flight at once.
+ *
+ * Instead of waiting for a response before sending the next command, the session keeps up to {@link #window}
+ * commands in flight, and hands out the results as the responses come in. Responses are matched to the commands
+ * by their frame ID (see {@link PendingRequests}), so a 20 command readout takes about as long as the slowest
+ * round trip, not the sum of them.
+ *
+ * The window also replaces the {@link XBeeReactive#getDestinationLimiter() per-destination limit} for the session's
+ * own commands, so a single remote XBee gets up to {@link #window} of them in flight, not
+ * {@link DestinationLimiter#DEFAULT_MAX_IN_FLIGHT}. Requests to it from elsewhere still count against the window.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public class AtSession {
+
+    /**
+     * Default number of commands in flight.
+     */
+    public static final int DEFAULT_WINDOW = 8;
+
+    /**
+     * Default time to wait for every response.
+     */
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(5);
+
+    /**
+     * Maximum number of commands in flight.
+     */
+    public final int window;
+
+    /**
+     * Time to wait for every response.
+     */
+    public final Duration timeout;
+
+    private final XBeeReactive xbee;
+
+    /**
+     * A command and its response.
+     */
+    public static class Result {
+
+        public final AtCommand request;
+
+        /**
+         * The response, {@code null} if it didn't come within the timeout.
+         */
+        public final ATCommandResponse<?> response;
+
+        public Result(AtCommand request, ATCommandResponse<?> response) {
+            this.request = request;
+            this.response = response;
+        }
+
+        public boolean isTimedOut() {
+            return response == null;
+        }
+
+        @Override
+        public String toString() {
+            return "{" + request + " => " + (response == null ? "timed out" : response) + "}";
+        }
+    }
+
+    /**
+     * Create an instance with {@link #DEFAULT_WINDOW} and {@link #DEFAULT_TIMEOUT}.
+     *
+     * @param xbee Adapter to send the commands through.
+     */
+    public AtSession(XBeeReactive xbee) {
+        this(xbee, DEFAULT_WINDOW, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param xbee Adapter to send the commands through.
+     * @param window Maximum number of commands in flight.
+     * @param timeout Time to wait for every response.
+     */
+    public AtSession(XBeeReactive xbee, int window, Duration timeout) {
+
+        if (window < 1) {
+            throw new IllegalArgumentException("window must be positive, got " + window);
+        }
+
+        this.xbee = xbee;
+        this.window = window;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Run the commands.
+     *
+     * @param commands Local {@link AtCommand}s and {@link RemoteAtRequest}s, for any number of XBees, in the order
+     * they should be sent.
+     *
+     * @return Flux of results in the order the responses arrived, one per command. Nothing is sent until it is
+     * subscribed to. It will error out if there was a hardware problem.
+     */
+    public Flux<Result> execute(List<? extends AtCommand> commands) {
+        return Flux
+                .fromIterable(commands)
+                .flatMap(this::execute, window);
+    }
+
+    private Flux<Result> execute(AtCommand command) {
+        return xbee
+                .send(command, timeout, Priority.NORMAL, window)
+                .map(ATCommandResponse.class::cast)
+                .map(response -> new Result(command, response))
+                .defaultIfEmpty(new Result(command, null))
+                .flux();
+    }
+
+    /**
+     * Run the commands against one XBee.
+     *
+     * @param node Remote XBee address, {@code null} for the local XBee.
+     * @param commands Commands to run, without parameters.
+     *
+     * @return See {@link #execute(List)}.
+     */
+    public Flux<Result> read(XBeeAddress64 node, AtCommand.Command... commands) {
+
+        var requests = new ArrayList<AtCommand>(commands.length);
+
+        for (var command : commands) {
+            requests.add(node == null ? new AtCommand(command) : new RemoteAtRequest(node, command));
+        }
+
+        return execute(requests);
+    }
+}
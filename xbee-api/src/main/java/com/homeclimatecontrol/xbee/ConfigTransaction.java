@@ -0,0 +1,221 @@
+package com.homeclimatecontrol.xbee;
+
+import com.homeclimatecontrol.xbee.response.frame.ATCommandResponse;
+import com.homeclimatecontrol.xbee.response.frame.LocalATCommandResponse;
+import com.homeclimatecontrol.xbee.response.frame.RemoteATCommandResponse;
+import com.rapplogic.xbee.api.AtCommand;
+import com.rapplogic.xbee.api.AtCommandQueue;
+import com.rapplogic.xbee.api.RemoteAtRequest;
+import com.rapplogic.xbee.api.XBeeAddress64;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.rapplogic.xbee.api.AtCommand.Command.AC;
+
+/**
+ * A set of configuration changes for one XBee, applied all at once.
+ *
+ * Changes to the local XBee are sent as {@link AtCommandQueue} frames, which the XBee only stores, and then applied
+ * with a single {@link AtCommand.Command#AC} command. Changes to a remote XBee are sent with "apply changes" off,
+ * except for the last one, which applies them all. Either way, the XBee doesn't go through a network or
+ * serial reconfiguration for every parameter, and never runs with half of the new configuration applied.
+ *
+ * The changes are sent with several of them in flight at once (see {@link AtSession}), but the apply command
+ * is only sent when every one of them was confirmed. If any change fails or times out, the apply command
+ * is not sent, but <strong>the transaction is not rolled back</strong>: the changes that made it are still
+ * stored in the XBee (see {@link AbortedException#stored}), and will be applied by whatever applies changes next,
+ * be it a local {@link AtCommand} (they are applied by any 0x08 frame), an {@code AC} command, or somebody else's
+ * transaction. It is up to the caller to clean up, before anything else is sent to that XBee:
+ *
+ * <ul>
+ *     <li>send {@link AtCommand.Command#FR} to reset the XBee, this discards every change that wasn't
+ *     {@link AtCommand.Command#WR written}, including the ones applied earlier, or</li>
+ *     <li>read the values of the parameters before applying the transaction, and store them back with another
+ *     transaction.</li>
+ * </ul>
+ *
+ * If it is the apply command itself that fails or times out, the changes may or may not have been applied.
+ *
+ * Changes are not {@link AtCommand.Command#WR written} to the non-volatile memory, add {@code WR} to
+ * the transaction if they need to survive a power cycle.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public class ConfigTransaction {
+
+    private final Logger logger = LogManager.getLogger();
+
+    /**
+     * XBee to configure, {@code null} for the local XBee.
+     */
+    public final XBeeAddress64 node;
+
+    private final List<AtCommand> changes = new ArrayList<>();
+
+    /**
+     * The transaction was not applied, and was not rolled back either, see the class documentation.
+     */
+    public static class AbortedException extends IOException {
+
+        private static final long serialVersionUID = -440039900077887205L;
+
+        /**
+         * Change that failed.
+         */
+        public final AtCommand request;
+
+        /**
+         * Response to the change, {@code null} if it didn't come within the timeout.
+         */
+        public final ATCommandResponse<?> response;
+
+        /**
+         * Changes that were confirmed before the failure, and are now stored in the XBee waiting to be applied.
+         * Changes still in flight when the transaction failed may have been stored as well.
+         */
+        public final List<AtCommand> stored;
+
+        public AbortedException(AtCommand request, ATCommandResponse<?> response) {
+            this(request, response, List.of());
+        }
+
+        public AbortedException(AtCommand request, ATCommandResponse<?> response, List<AtCommand> stored) {
+            super(request.getCommand() + ": " + (response == null ? "timed out" : response.status.toString())
+                    + ", changes not applied, " + stored.size() + " stored and not rolled back");
+            this.request = request;
+            this.response = response;
+            this.stored = List.copyOf(stored);
+        }
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param node XBee to configure, {@code null} for the local XBee.
+     */
+    public ConfigTransaction(XBeeAddress64 node) {
+        this.node = node;
+    }
+
+    /**
+     * Add a change.
+     *
+     * @param command Parameter to change.
+     * @param value Parameter value.
+     *
+     * @return This transaction.
+     */
+    public ConfigTransaction set(AtCommand.Command command, int... value) {
+
+        if (command == AC) {
+            throw new IllegalArgumentException("AC is sent by apply(), don't add it");
+        }
+
+        if (node == null) {
+            changes.add(new AtCommandQueue(command, value, FrameIdGenerator.getInstance().getNext()));
+        } else {
+            var change = new RemoteAtRequest(node, command, value);
+            change.setApplyChanges(false);
+            changes.add(change);
+        }
+
+        return this;
+    }
+
+    /**
+     * @return Number of changes in this transaction.
+     */
+    public int size() {
+        return changes.size();
+    }
+
+    /**
+     * Send the changes and apply them.
+     *
+     * @param xbee Adapter to send the changes through.
+     * @param timeout Time to wait for every response.
+     *
+     * @return Mono with responses to every frame sent, in the order they were added, followed by the response
+     * to {@code AC} for the local XBee. It will error out with {@link AbortedException} if any of the changes failed,
+     * or if there was a hardware problem. Nothing is sent until it is subscribed to. Changes stored before
+     * the failure are not rolled back, see the class documentation for how to clean up.
+     */
+    public Mono<List<ATCommandResponse<?>>> apply(XBeeReactive xbee, Duration timeout) {
+
+        if (changes.isEmpty()) {
+            return Mono.just(List.of());
+        }
+
+        // Remote: the last change applies them all, it goes after the rest are confirmed
+        var stored = node == null ? List.copyOf(changes) : List.copyOf(changes.subList(0, changes.size() - 1));
+        var commit = node == null ? new AtCommand(AC) : commit(changes.get(changes.size() - 1));
+
+        return Mono.defer(() -> {
+
+            // Changes confirmed so far, to tell the caller what needs to be cleaned up if it fails
+            var confirmed = Collections.synchronizedList(new ArrayList<AtCommand>());
+
+            return Flux
+                    .fromIterable(stored)
+                    .flatMapSequential(change -> confirm(xbee, change, timeout).doOnNext(ignored -> confirmed.add(change)), AtSession.DEFAULT_WINDOW)
+                    .concatWith(Mono.defer(() -> {
+                        logger.debug("{}: {} changes stored, applying", this::getTarget, stored::size);
+                        return confirm(xbee, commit, timeout);
+                    }))
+                    .collectList()
+                    .onErrorMap(AbortedException.class, ex -> abort(ex, confirmed));
+        });
+    }
+
+    private AbortedException abort(AbortedException ex, List<AtCommand> confirmed) {
+
+        List<AtCommand> result;
+
+        synchronized (confirmed) {
+            result = List.copyOf(confirmed);
+        }
+
+        logger.warn("{}: {} failed, {} changes stored and not rolled back", this::getTarget, ex.request::getCommand, result::size);
+
+        return new AbortedException(ex.request, ex.response, result);
+    }
+
+    private RemoteAtRequest commit(AtCommand last) {
+
+        var result = new RemoteAtRequest(node, last.getCommand(), last.getValue());
+
+        result.setApplyChanges(true);
+
+        return result;
+    }
+
+    private Mono<ATCommandResponse<?>> confirm(XBeeReactive xbee, AtCommand request, Duration timeout) {
+        return xbee
+                .sendAT(request, timeout)
+                .switchIfEmpty(Mono.error(() -> new AbortedException(request, null)))
+                .flatMap(response -> isOk(response)
+                        ? Mono.just(response)
+                        : Mono.error(new AbortedException(request, response)));
+    }
+
+    private static boolean isOk(ATCommandResponse<?> response) {
+        return response.status == LocalATCommandResponse.Status.OK || response.status == RemoteATCommandResponse.Status.OK;
+    }
+
+    private String getTarget() {
+        return node == null ? "local" : node.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "{" + getTarget() + ": " + changes + "}";
+    }
+}
@@ -0,0 +1,20 @@
+package com.homeclimatecontrol.xbee;
+
+import java.io.IOException;
+
+/**
+ * The connection to the XBee was lost.
+ *
+ * Requests in flight when it happens fail with this exception right away, instead of timing out.
+ * Whether the connection will be restored depends on the {@link ReconnectPolicy}.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public class ConnectionLostException extends IOException {
+
+    private static final long serialVersionUID = 6576170533366559486L;
+
+    public ConnectionLostException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
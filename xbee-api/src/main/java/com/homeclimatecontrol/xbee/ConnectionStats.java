@@ -0,0 +1,94 @@
+package com.homeclimatecontrol.xbee;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Connection loss and recovery counters of a single {@link XBeeReactive}.
+ *
+ * This object is thread safe.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public class ConnectionStats {
+
+    private final AtomicLong disconnects = new AtomicLong();
+    private final AtomicLong reconnects = new AtomicLong();
+    private final AtomicLong attempts = new AtomicLong();
+    private final AtomicLong downtimeNanos = new AtomicLong();
+
+    /**
+     * When the current outage started, as returned by {@link System#nanoTime()}, 0 if connected.
+     */
+    private volatile long downSince = 0;
+
+    void disconnected() {
+        disconnects.incrementAndGet();
+        downSince = Math.max(System.nanoTime(), 1);
+    }
+
+    void attempted() {
+        attempts.incrementAndGet();
+    }
+
+    void reconnected() {
+
+        var since = downSince;
+
+        if (since != 0) {
+            downtimeNanos.addAndGet(System.nanoTime() - since);
+        }
+
+        downSince = 0;
+        reconnects.incrementAndGet();
+    }
+
+    /**
+     * @return {@code true} unless the connection is lost and not restored yet.
+     */
+    public boolean isConnected() {
+        return downSince == 0;
+    }
+
+    /**
+     * @return Number of times the connection was lost.
+     */
+    public long getDisconnects() {
+        return disconnects.get();
+    }
+
+    /**
+     * @return Number of times the connection was restored.
+     */
+    public long getReconnects() {
+        return reconnects.get();
+    }
+
+    /**
+     * @return Number of attempts to reopen the transport, successful or not.
+     */
+    public long getAttempts() {
+        return attempts.get();
+    }
+
+    /**
+     * @return Total time spent disconnected, the current outage included.
+     */
+    public Duration getDowntime() {
+
+        var since = downSince;
+        var current = since == 0 ? 0 : System.nanoTime() - since;
+
+        return Duration.ofNanos(downtimeNanos.get() + current);
+    }
+
+    @Override
+    public String toString() {
+        return "{connected=" + isConnected()
+                + ", disconnects=" + getDisconnects()
+                + ", reconnects=" + getReconnects()
+                + ", attempts=" + getAttempts()
+                + ", downtime=" + getDowntime()
+                + "}";
+    }
+}
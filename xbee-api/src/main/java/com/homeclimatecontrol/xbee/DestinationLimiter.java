@@ -0,0 +1,352 @@
+package com.homeclimatecontrol.xbee;
+
+import com.rapplogic.xbee.api.XBeeAddress64;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limits the number of requests in flight to every remote XBee.
+ *
+ * Requests over the limit wait in the queue of their destination, in order, without taking a frame ID or a place
+ * in the writer queue. This way, a node that is slow or gone can't tie up all the frame IDs and the coordinator's
+ * transmit buffers while it is being retried, and requests to the other nodes keep flowing. Since every destination
+ * has no more than the limit of requests competing for the frame IDs and the link, they are served
+ * in turns.
+ *
+ * Requests for the local XBee, and broadcasts, are not limited.
+ *
+ * A destination is only tracked while it has requests in flight or waiting, so nodes coming and going
+ * don't accumulate.
+ *
+ * This object is thread safe.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public class DestinationLimiter {
+
+    /**
+     * Limit meaning "no limit".
+     */
+    public static final int UNLIMITED = 0;
+
+    /**
+     * Default limit. Enough to keep a healthy node busy, small enough to not let a dead one hog anything.
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 4;
+
+    private static final Permit NONE = new Permit(null);
+
+    /**
+     * Request limit meaning "whatever {@link #getMaxInFlight()} is at the time".
+     */
+    private static final int CURRENT_LIMIT = -1;
+
+    private final Logger logger = LogManager.getLogger();
+
+    private final Map<XBeeAddress64, Destination> destinations = new ConcurrentHashMap<>();
+
+    private volatile int maxInFlight;
+
+    /**
+     * Right to have one request in flight to a destination. Must be released exactly once, extra releases are ignored.
+     */
+    public static class Permit {
+
+        private final Destination destination;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(Destination destination) {
+            this.destination = destination;
+        }
+
+        public void release() {
+            if (destination != null && released.compareAndSet(false, true)) {
+                destination.release();
+            }
+        }
+    }
+
+    /**
+     * A request waiting for a permit. The future is only ever completed with a permit, never cancelled,
+     * so an abandoned waiter doesn't produce a dropped error.
+     */
+    private static class Waiter extends CompletableFuture<Permit> {
+
+        final int limit;
+
+        /**
+         * Permit handed over to this waiter, guarded by the {@link Destination} lock.
+         */
+        Permit permit;
+
+        Waiter(int limit) {
+            this.limit = limit;
+        }
+    }
+
+    private class Destination {
+
+        final XBeeAddress64 address;
+
+        /**
+         * Guarded by {@code this}.
+         */
+        int inFlight;
+
+        /**
+         * Guarded by {@code this}.
+         */
+        final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+
+        /**
+         * Set when this instance is removed from {@link #destinations}, it must not be used after that.
+         * Guarded by {@code this}.
+         */
+        boolean retired;
+
+        Destination(XBeeAddress64 address) {
+            this.address = address;
+        }
+
+        /**
+         * @return Mono with a permit, or {@code null} if this instance has been retired and a new one must be used.
+         */
+        Mono<Permit> acquire(int limit) {
+
+            Waiter waiter;
+            int current;
+
+            synchronized (this) {
+
+                if (retired) {
+                    return null;
+                }
+
+                // Don't barge in front of those already waiting
+                if (waiters.isEmpty() && hasRoom(limit)) {
+                    inFlight++;
+                    return Mono.just(new Permit(this));
+                }
+
+                waiter = new Waiter(limit);
+                waiters.add(waiter);
+                current = inFlight;
+            }
+
+            logger.debug("{}: {} in flight, waiting", address, current);
+
+            return Mono
+                    .fromFuture(waiter)
+                    // Waiters are released on whatever thread completed the previous request
+                    .publishOn(Schedulers.boundedElastic())
+                    .doOnCancel(() -> cancel(waiter));
+        }
+
+        private boolean hasRoom(int limit) {
+            var max = limit == CURRENT_LIMIT ? maxInFlight : limit;
+            return max == UNLIMITED || inFlight < max;
+        }
+
+        private void cancel(Waiter waiter) {
+
+            Permit granted;
+
+            synchronized (this) {
+                // If it's not in the queue anymore, it's been given a permit already
+                granted = waiters.remove(waiter) ? null : waiter.permit;
+            }
+
+            if (granted != null) {
+                granted.release();
+            }
+
+            retireIfIdle();
+        }
+
+        void release() {
+
+            synchronized (this) {
+                inFlight--;
+            }
+
+            pump();
+            retireIfIdle();
+        }
+
+        /**
+         * Stop tracking this destination if nothing is in flight or waiting.
+         */
+        private void retireIfIdle() {
+
+            synchronized (this) {
+
+                if (retired || inFlight > 0 || !waiters.isEmpty()) {
+                    return;
+                }
+
+                retired = true;
+            }
+
+            destinations.remove(address, this);
+        }
+
+        /**
+         * Hand over the free places to the waiters, in order. Waiters are completed outside of the lock.
+         */
+        void pump() {
+
+            while (true) {
+
+                Waiter waiter;
+                var permit = new Permit(this);
+
+                synchronized (this) {
+
+                    // Waiters are served in order, even if the one behind the head has a higher limit
+                    if (waiters.isEmpty() || !hasRoom(waiters.peek().limit)) {
+                        return;
+                    }
+
+                    waiter = waiters.poll();
+                    waiter.permit = permit;
+                    inFlight++;
+                }
+
+                // If the waiter is cancelled from now on, cancel() releases the permit
+                waiter.complete(permit);
+            }
+        }
+
+        synchronized int getInFlight() {
+            return inFlight;
+        }
+
+        synchronized int getQueued() {
+            return waiters.size();
+        }
+    }
+
+    /**
+     * Create an instance with {@link #DEFAULT_MAX_IN_FLIGHT}.
+     */
+    public DestinationLimiter() {
+        this(DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param maxInFlight How many requests may be in flight to a single destination, {@link #UNLIMITED} for no limit.
+     */
+    public DestinationLimiter(int maxInFlight) {
+        checkLimit(maxInFlight);
+        this.maxInFlight = maxInFlight;
+    }
+
+    private static void checkLimit(int maxInFlight) {
+        if (maxInFlight < 0) {
+            throw new IllegalArgumentException("maxInFlight can't be negative, got " + maxInFlight);
+        }
+    }
+
+    /**
+     * Get a permit to send a request to the destination.
+     *
+     * @param destination Remote XBee address, {@code null} for the local XBee.
+     *
+     * @return Mono with a permit, immediately if the destination is under the limit. If this Mono is cancelled,
+     * the place in the queue is given up.
+     */
+    public Mono<Permit> acquire(XBeeAddress64 destination) {
+        return acquireLimited(destination, CURRENT_LIMIT);
+    }
+
+    /**
+     * Get a permit to send a request to the destination, with a limit of its own.
+     *
+     * The requests already in flight count against this limit no matter what limit they were let in with.
+     *
+     * @param destination Remote XBee address, {@code null} for the local XBee.
+     * @param maxInFlight Limit to apply to this request instead of {@link #getMaxInFlight()},
+     * {@link #UNLIMITED} for no limit.
+     *
+     * @return See {@link #acquire(XBeeAddress64)}.
+     */
+    public Mono<Permit> acquire(XBeeAddress64 destination, int maxInFlight) {
+        checkLimit(maxInFlight);
+        return acquireLimited(destination, maxInFlight);
+    }
+
+    private Mono<Permit> acquireLimited(XBeeAddress64 destination, int limit) {
+
+        if (destination == null || XBeeAddress64.BROADCAST.equals(destination)) {
+            return Mono.just(NONE);
+        }
+
+        return Mono.defer(() -> {
+
+            while (true) {
+
+                var result = destinations.computeIfAbsent(destination, Destination::new).acquire(limit);
+
+                if (result != null) {
+                    return result;
+                }
+
+                // Retired just now, the next lookup will create a fresh one
+            }
+        });
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Change the limit. Raising it lets the waiting requests through right away.
+     *
+     * @param maxInFlight How many requests may be in flight to a single destination, {@link #UNLIMITED} for no limit.
+     */
+    public void setMaxInFlight(int maxInFlight) {
+
+        checkLimit(maxInFlight);
+
+        this.maxInFlight = maxInFlight;
+
+        for (var destination : destinations.values()) {
+            destination.pump();
+        }
+    }
+
+    /**
+     * @return Destinations with requests in flight, or waiting.
+     */
+    public Set<XBeeAddress64> getDestinations() {
+        return Set.copyOf(destinations.keySet());
+    }
+
+    /**
+     * @return Number of requests in flight to the destination.
+     */
+    public int getInFlight(XBeeAddress64 destination) {
+        var d = destinations.get(destination);
+        return d == null ? 0 : d.getInFlight();
+    }
+
+    /**
+     * @return Number of requests waiting for the requests in flight to the destination to complete.
+     */
+    public int getQueued(XBeeAddress64 destination) {
+        var d = destinations.get(destination);
+        return d == null ? 0 : d.getQueued();
+    }
+}
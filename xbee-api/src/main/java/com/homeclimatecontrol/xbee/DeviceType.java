@@ -13,8 +13,10 @@ public enum DeviceType {
         this.type = type;
     }
 
+    private static final DeviceType[] VALUES = values();
+
     public static DeviceType valueOf(byte type) {
-        for (var t : values()) {
+        for (var t : VALUES) {
             if (t.type == type) {
                 return t;
             }
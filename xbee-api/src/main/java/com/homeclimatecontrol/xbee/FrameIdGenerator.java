@@ -4,6 +4,11 @@ import com.rapplogic.xbee.api.XBeeRequest;
 
 /**
  * A singleton to generate a packet frame ID.
+ *
+ * {@link XBeeReactive} doesn't send the IDs generated here, both {@link XBeeReactive#send(XBeeRequest, java.time.Duration)}
+ * and {@link XBeeReactive#sendAsync(XBeeRequest)} allocate their own, per device, see {@link PendingRequests}.
+ * The only thing that matters to them is whether the request's frame ID is
+ * {@link XBeeRequest#NO_RESPONSE_FRAME_ID} or not.
  */
 public class FrameIdGenerator {
 
@@ -18,6 +18,7 @@ public enum FrameType {
     REMOTE_AT_COMMAND_REQUEST((byte) 0x17, "Local AT Command Request"),
     CREATE_SOURCE_ROUTE((byte) 0x21, "Create Source Route"),
     LOCAL_AT_COMMAND_RESPONSE((byte) 0x88, "Local AT Command Response"),
+    TX_STATUS((byte) 0x89, "Transmit Status"),
     MODEM_STATUS((byte) 0x8A, "Modem Status"),
     EXTENDED_TRANSMIT_STATUS((byte) 0x8B, "Extended Transmit Status"),
     RECEIVE_PACKET((byte) 0x90, "Receive Packet"),
@@ -31,6 +32,19 @@ public enum FrameType {
     ROUTE_RECORD_INDICATOR((byte) 0xA1, "Route Record Indicator"),
     MANY_TO_ONE_ROUTE_REQUEST_INDICATOR((byte) 0xA3, "Many-to-One Route Request Indicator");
 
+    /**
+     * Frame type by its type byte. The first one listed wins if there are duplicates.
+     */
+    private static final FrameType[] byType = new FrameType[256];
+
+    static {
+        for (var frameType : values()) {
+            if (byType[frameType.type & 0xFF] == null) {
+                byType[frameType.type & 0xFF] = frameType;
+            }
+        }
+    }
+
     public final byte type;
     public final String description;
 
@@ -39,14 +53,24 @@ public enum FrameType {
         this.description = description;
     }
 
+    /**
+     * Get the frame type by its type byte. Takes constant time, and allocates nothing.
+     *
+     * @param type Frame type byte.
+     *
+     * @return Frame type.
+     *
+     * @exception IllegalArgumentException if the frame type is unknown.
+     */
     public static FrameType getByType(byte type) {
-        for (var frameType : values()) {
-            if (frameType.type == type) {
-                return frameType;
-            }
+
+        var result = byType[type & 0xFF];
+
+        if (result == null) {
+            throw new IllegalArgumentException("Unknown frame type " + HexFormat.format(type));
         }
 
-        throw new IllegalArgumentException("Unknown frame type " + HexFormat.format(type));
+        return result;
     }
 
     @Override
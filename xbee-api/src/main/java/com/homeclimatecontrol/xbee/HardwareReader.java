@@ -1,45 +1,152 @@
 package com.homeclimatecontrol.xbee;
 
+import com.homeclimatecontrol.xbee.response.DecoderStats;
+import com.homeclimatecontrol.xbee.response.FrameDecoder;
 import com.homeclimatecontrol.xbee.response.ResponseReader;
+import com.homeclimatecontrol.xbee.response.frame.FrameIdAwareResponse;
 import com.homeclimatecontrol.xbee.response.frame.XBeeResponseFrame;
-import com.rapplogic.xbee.util.ByteUtils;
+import com.homeclimatecontrol.xbee.trace.FrameTracer;
+import com.homeclimatecontrol.xbee.trace.TraceEvent;
+import com.homeclimatecontrol.xbee.util.LatencyHistogram;
+import com.rapplogic.xbee.api.XBeeAddress64;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.ThreadContext;
-import org.reactivestreams.Subscription;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.FluxSink;
 import reactor.core.scheduler.Schedulers;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 
-import static com.homeclimatecontrol.xbee.response.ResponseReader.FRAME_DELIMITER;
-
+/**
+ * Reads the frames off the input stream and emits them into the receive flux.
+ *
+ * Every receive() subscriber gets its own bounded buffer and worker (see {@link ReceiveOptions}), so a slow
+ * subscriber can't stall the reader or the other subscribers. Subscribers interested only in some frame types
+ * or source addresses are routed just those frames (see {@link ReceiveRouter}), there's no filtering downstream.
+ *
+ * The reader thread blocks in {@link InputStream#read(byte[], int, int)}, there is no polling. The stream is expected
+ * to return 0 periodically if there's no data (see {@link com.homeclimatecontrol.xbee.transport.XBeeTransport}),
+ * that's when the reader checks whether it's time to stop.
+ *
+ * If the stream fails, the reader asks its {@link Recovery} for a new one, and carries on reading from it.
+ * Subscribers only see an error if there's no recovery, or it gives up.
+ */
 public class HardwareReader implements AutoCloseable {
 
+    /**
+     * Source of a replacement stream.
+     */
+    @FunctionalInterface
+    public interface Recovery {
+
+        /**
+         * Get a working stream to replace the failed one. Called on the reader thread, may block as long as it takes.
+         *
+         * @param cause What went wrong with the current stream.
+         *
+         * @return Stream to read from from now on.
+         *
+         * @exception IOException if the stream can't be replaced. The reader will terminate with it.
+         */
+        InputStream recover(IOException cause) throws IOException;
+    }
+
+    /**
+     * Read buffer size. Bigger than most frames, but it doesn't matter, frames may span chunks.
+     */
+    private static final int READ_BUFFER_SIZE = 1024;
+
     private final Logger logger = LogManager.getLogger();
-    private final ResponseReader responseReader = new ResponseReader();
+    private final FrameDecoder decoder;
+    private final FrameTracer tracer;
+
+    /**
+     * Raw data buffer, reused for every read.
+     */
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
 
-    private final InputStream in;
-    private final Flux<XBeeResponseFrame> inFlux;
-    private FluxSink<XBeeResponseFrame> receiveSink;
+    /**
+     * Time between the chunk arrival and the frames decoded from it being delivered to the pending requests.
+     */
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private final PendingRequests pending;
+    private final Recovery recovery;
+
+    /**
+     * Accessed by the reader thread only, once started.
+     */
+    private InputStream in;
+    private final ReceiveRouter router = new ReceiveRouter();
     private Thread reader;
+    private volatile boolean stopping = false;
+
+    /**
+     * Set when the reader is done - {@link #CLOSED} if closed, the I/O exception otherwise.
+     */
+    private volatile Throwable terminated;
+
+    private static final Throwable CLOSED = new IOException("closed");
+
+    /**
+     * When the current chunk arrived, as returned by {@link System#nanoTime()}.
+     */
+    private long arrivalNanos;
 
     public HardwareReader(InputStream in) {
+        this(in, new PendingRequests());
+    }
+
+    /**
+     * Create an instance and start reading.
+     *
+     * @param in Stream to read from.
+     * @param pending Requests to complete with the responses, on the reader thread, before the responses are
+     * emitted into {@link #receive()}.
+     */
+    public HardwareReader(InputStream in, PendingRequests pending) {
+        this(in, pending, FrameTracer.NONE);
+    }
+
+    /**
+     * Create an instance and start reading.
+     *
+     * @param in Stream to read from.
+     * @param pending Requests to complete with the responses, on the reader thread, before the responses are
+     * emitted into {@link #receive()}.
+     * @param tracer Tracer to record the frame events into.
+     */
+    public HardwareReader(InputStream in, PendingRequests pending, FrameTracer tracer) {
+        this(in, pending, tracer, null);
+    }
+
+    /**
+     * Create an instance and start reading.
+     *
+     * @param in Stream to read from.
+     * @param pending Requests to complete with the responses, on the reader thread, before the responses are
+     * emitted into {@link #receive()}.
+     * @param tracer Tracer to record the frame events into.
+     * @param recovery Source of a replacement stream if this one fails, {@code null} to terminate on the first failure.
+     */
+    public HardwareReader(InputStream in, PendingRequests pending, FrameTracer tracer, Recovery recovery) {
         this.in = in;
+        this.pending = pending;
+        this.recovery = recovery;
+        this.tracer = tracer;
+        this.decoder = new FrameDecoder(new ResponseReader(), false, FrameDecoder.DEFAULT_MAX_FRAME_LENGTH, tracer);
 
-        inFlux = Flux
-                .create(this::connect)
-                .doOnSubscribe(this::onSubscribe)
-                .doOnComplete(this::onComplete)
-                .publishOn(Schedulers.boundedElastic())
-                .publish()
-                .autoConnect();
+        // Responses to pending requests must be delivered whether anyone is subscribed to receive() or not
+        startReader();
     }
 
-    private void onSubscribe(Subscription subscription) {
-        logger.debug("subscribed");
+    private void startReader() {
         reader = new Thread(this::read);
         reader.setName("XBeeReader");
         reader.start();
@@ -50,110 +157,232 @@ public class HardwareReader implements AutoCloseable {
         try {
             logger.info("started");
 
-            while (!Thread.currentThread().isInterrupted()) {
-                processFrame();
+            while (!stopping && !Thread.currentThread().isInterrupted()) {
+                try {
+                    processChunk();
+                } catch (InterruptedIOException ex) {
+                    throw ex;
+                } catch (IOException ex) {
+                    recover(ex);
+                }
             }
 
-        } catch (IOException ex) {
-            logger.error("Unexpected I/O problem, stopping the reader", ex);
-            receiveSink.error(ex);
-        } catch (InterruptedException e) {
+        } catch (InterruptedIOException ex) {
             Thread.currentThread().interrupt();
             logger.info("Interrupted, stopping the reader");
+        } catch (IOException ex) {
+
+            if (stopping) {
+                // Closing the stream is a legitimate way to unblock the read
+                logger.debug("Stream closed, stopping the reader: {}", ex.getMessage());
+                return;
+            }
+
+            logger.error("Unrecoverable I/O problem, stopping the reader", ex);
+            pending.failAll(ex);
+            terminate(ex);
         } finally {
             logger.debug("completed");
             ThreadContext.pop();
         }
     }
 
-    private void processFrame() throws IOException, InterruptedException {
-        try {
+    private void recover(IOException cause) throws IOException {
 
-            var packet = readFrame(in);
+        if (stopping || recovery == null) {
+            throw cause;
+        }
 
-            if (receiveSink == null) {
-                logger.debug("No subscriptions yet, packet dropped: {}", packet);
-                return;
-            }
+        logger.warn("I/O problem, recovering: {}", cause.getMessage());
 
-            receiveSink.next(packet);
+        // Whatever was half decoded is gone
+        decoder.reset();
+        in = recovery.recover(cause);
 
-        } catch (IllegalArgumentException ex) {
-            logger.error("Checksum error, dropped", ex);
-        } catch (UnsupportedOperationException ex) {
-            // Most likely, the frame data was read in its entirety and we're going to land at the sync byte
-            logger.error("Unsupported frame, dropped", ex);
+        logger.info("recovered");
+    }
+
+    private void processChunk() throws IOException {
+
+        var count = readChunk(in);
+
+        if (count == 0) {
+            // Read timed out, nothing to do
+            return;
         }
+
+        arrivalNanos = System.nanoTime();
+        readBuffer.clear().limit(count);
+
+        // Damaged frames are dropped and counted by the decoder, see getDecoderStats()
+        decoder.decode(readBuffer, this::emit);
     }
 
-    private XBeeResponseFrame readFrame(InputStream in) throws IOException, InterruptedException {
-        ThreadContext.push("readPacket");
-        try {
-            syncOnStartByte(in);
-            return responseReader.read(in);
-        } finally {
-            ThreadContext.pop();
+    private void emit(XBeeResponseFrame packet) {
+
+        pending.complete(packet);
+
+        if (tracer.isEnabled()) {
+            tracer.record(TraceEvent.EMIT, 0, packet instanceof FrameIdAwareResponse ? ((FrameIdAwareResponse) packet).frameId : 0, 0);
+        }
+
+        if (!router.route(packet)) {
+            logger.debug("No subscriptions for this packet, dropped: {}", packet);
         }
+
+        // The frame has been emitted into receive() by now, the routing is included
+        latency.recordSince(arrivalNanos);
     }
 
-    private void syncOnStartByte(InputStream in) throws IOException, InterruptedException {
-        ThreadContext.push("syncOnStartByte");
-        try {
-            while (true) {
-                while (in.available() == 0) {
-                    logger.debug("Awaiting start byte...");
-                    synchronized (this) {
-
-                        // VT: NOTE: SerialEventPortNotification doesn't work reliably with RxTx.
-                        // This is a half assed measure that will waste a O(1 second) on application exit,
-                        // considering it good enough until https://github.com/home-climate-control/xbee-api/issues/15
-                        // is closed.
-
-                        wait(1000);
-                    }
-                }
-                var read = in.read();
+    /**
+     * Block until something arrives, or the read times out, and read no more than the read buffer can hold.
+     *
+     * @return Number of bytes read into {@link #readBuffer}, 0 if the read timed out.
+     */
+    private int readChunk(InputStream in) throws IOException {
 
-                if (read == -1) {
-                    throw new IOException("Unexpected end of stream while synchronizing on start byte");
-                }
+        var count = in.read(readBuffer.array(), 0, readBuffer.capacity());
 
-                if (read == FRAME_DELIMITER) {
-                    // We are at the start of the packet
-                    logger.debug("Got the start byte");
-                    return;
-                }
+        if (count == -1) {
+            throw new IOException("Unexpected end of stream");
+        }
 
-                logger.debug("Not on the start byte, skipping 0x{}", () -> ByteUtils.toBase16(read));
-            }
+        return count;
+    }
 
-        } finally {
-            ThreadContext.pop();
+    public Flux<XBeeResponseFrame> receive() {
+        return receive(ReceiveOptions.DEFAULT);
+    }
+
+    /**
+     * Get the flux of incoming frames.
+     *
+     * The flux is hot, subscribers only get the frames that arrived after they subscribed.
+     *
+     * @param options This subscriber's buffer size and overflow policy.
+     *
+     * @return Flux of incoming frames, delivered on a worker of its own.
+     */
+    public Flux<XBeeResponseFrame> receive(ReceiveOptions options) {
+        return Flux.create(sink -> connect(sink, options, null, null), FluxSink.OverflowStrategy.IGNORE);
+    }
+
+    /**
+     * Get the flux of incoming frames of the given type.
+     *
+     * @param type Frame type, subtypes included.
+     * @param options This subscriber's buffer size and overflow policy.
+     *
+     * @return Flux of incoming frames of this type, delivered on a worker of its own.
+     */
+    public <T extends XBeeResponseFrame> Flux<T> receive(Class<T> type, ReceiveOptions options) {
+        return Flux.create(sink -> connect(asFrameSink(sink), options, type, null), FluxSink.OverflowStrategy.IGNORE);
+    }
+
+    /**
+     * Get the flux of incoming frames from the given remote XBee.
+     *
+     * @param source 64 bit address of the sender.
+     * @param options This subscriber's buffer size and overflow policy.
+     *
+     * @return Flux of incoming frames sent by this XBee, delivered on a worker of its own.
+     */
+    public Flux<XBeeResponseFrame> receiveFrom(XBeeAddress64 source, ReceiveOptions options) {
+
+        if (source == null) {
+            throw new IllegalArgumentException("source can't be null");
+        }
+
+        return Flux.create(sink -> connect(sink, options, null, source), FluxSink.OverflowStrategy.IGNORE);
+    }
+
+    /**
+     * The router only hands this sink the frames of its type.
+     */
+    @SuppressWarnings("unchecked")
+    private static FluxSink<XBeeResponseFrame> asFrameSink(FluxSink<? extends XBeeResponseFrame> sink) {
+        return (FluxSink<XBeeResponseFrame>) sink;
+    }
+
+    private void connect(FluxSink<XBeeResponseFrame> sink, ReceiveOptions options, Class<? extends XBeeResponseFrame> type, XBeeAddress64 source) {
+
+        var lane = new ReceiveLane(options, sink, Schedulers.boundedElastic().createWorker());
+
+        sink.onRequest(ignored -> lane.schedule());
+        sink.onDispose(() -> {
+            router.remove(lane);
+            lane.dispose();
+            logger.debug("{}: unsubscribed, {}", options.name, lane.stats);
+        });
+
+        router.add(lane, type, source);
+        logger.debug("{}: subscribed, type={}, source={}", options, type, source);
+
+        // Could have missed the termination while subscribing
+        var terminatedWith = terminated;
+
+        if (terminatedWith != null) {
+            lane.terminate(terminatedWith == CLOSED ? null : terminatedWith);
         }
     }
 
-    private void onComplete() {
-        logger.debug("completed");
-        reader.interrupt();
+    /**
+     * Get the subscriber statistics.
+     *
+     * @return Counters of all the currently active subscribers.
+     */
+    public List<ReceiveStats> getReceiveStats() {
+
+        var lanes = router.getLanes();
+        var result = new ArrayList<ReceiveStats>(lanes.length);
+
+        for (var lane : lanes) {
+            result.add(lane.stats);
+        }
+
+        return result;
     }
 
-    private void connect(FluxSink<XBeeResponseFrame> sink) {
-        receiveSink = sink;
+    private void terminate(Throwable cause) {
+
+        terminated = cause;
+
+        for (var lane : router.getLanes()) {
+            lane.terminate(cause == CLOSED ? null : cause);
+        }
     }
 
-    public Flux<XBeeResponseFrame> receive() {
-        return inFlux;
+    /**
+     * Get the receive latency.
+     *
+     * @return Histogram of the time between the chunk arrival and the frames decoded from it being emitted.
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Get the decoder statistics.
+     *
+     * @return Counters of frames decoded and frames lost to the link noise.
+     */
+    public DecoderStats getDecoderStats() {
+        return decoder.getStats();
     }
 
     @Override
     public void close() throws Exception {
         ThreadContext.push("close");
         try {
-            if (receiveSink == null) {
-                logger.debug("null sink, no readers yet?");
-                return;
+
+            stopping = true;
+
+            if (router.getLanes().length == 0) {
+                logger.debug("no subscribers");
             }
-            receiveSink.complete();
+
+            terminate(CLOSED);
+
         } finally {
             ThreadContext.pop();
         }
@@ -1,62 +1,394 @@
 package com.homeclimatecontrol.xbee;
 
-import com.rapplogic.xbee.api.XBeeRequest;
+import com.homeclimatecontrol.xbee.request.FrameEncoder;
+import com.homeclimatecontrol.xbee.trace.FrameTracer;
+import com.homeclimatecontrol.xbee.trace.TraceEvent;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.apache.logging.log4j.ThreadContext;
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.Map;
-import java.util.concurrent.CompletableFuture;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Writes the requests to the output stream.
+ *
+ * Requests are queued, and the writer thread drains everything that is queued at the moment into one buffer,
+ * writes it with a single call and flushes once per batch. Every request's {@link WriteTicket#written} is still
+ * completed individually.
+ *
+ * Any number of threads can {@link #submit(WriteTicket)} at once, the queues are lock free (see {@link WriteQueue}).
+ * Every {@link Priority} has a queue of its own, and the batches are filled from them according to
+ * the {@link WriteScheduling}, so a backlog of bulk requests doesn't hold up the control ones.
+ */
 public class HardwareWriter implements AutoCloseable {
 
+    /**
+     * Initial batch buffer size. The buffer will grow if necessary.
+     */
+    private static final int BATCH_BUFFER_SIZE = 1024;
+
+    /**
+     * Flush when the batch grows beyond this size, even if there's more in the queue.
+     */
+    private static final int MAX_BATCH_SIZE = 4096;
+
     private final Logger logger = LogManager.getLogger();
-    private final OutputStream out;
+
+    /**
+     * Stream to write to, {@code null} while the connection is being restored.
+     */
+    private volatile OutputStream out;
+    private final FrameTracer tracer;
     private final Disposable sourceSubscription;
+    private final Scheduler scheduler = Schedulers.newSingle("XbeeWriter", true);
+
+    private final WriteScheduling scheduling;
+
+    /**
+     * Queues indexed by {@link Priority#ordinal()}.
+     */
+    private final WriteQueue[] lanes = new WriteQueue[Priority.values().length];
+    private final WriteLaneStats[] laneStats = new WriteLaneStats[lanes.length];
+
+    /**
+     * Requests each lane may still have written in this round of {@link WriteScheduling#weighted(int, int, int)}
+     * scheduling. Accessed by the writer thread only.
+     */
+    private final int[] credits = new int[lanes.length];
+    private final AtomicInteger wip = new AtomicInteger();
+
+    /**
+     * Accessed by the writer thread only.
+     */
+    private final List<WriteTicket> batch = new ArrayList<>();
+
+    /**
+     * Accessed by the writer thread only.
+     */
+    private final FrameEncoder encoder = new FrameEncoder();
 
-    public HardwareWriter(OutputStream out, Flux<Map.Entry<XBeeRequest, CompletableFuture<Void>>> packetSource) {
+    /**
+     * Accessed by the writer thread only.
+     */
+    private ByteBuffer buffer = ByteBuffer.allocate(BATCH_BUFFER_SIZE);
+
+    private volatile boolean closed = false;
+
+    public HardwareWriter(OutputStream out, Flux<WriteTicket> packetSource) {
+        this(out, packetSource, FrameTracer.NONE);
+    }
+
+    /**
+     * Create an instance accepting the requests via {@link #submit(WriteTicket)} only.
+     *
+     * @param out Stream to write to.
+     * @param tracer Tracer to record the writes into.
+     */
+    public HardwareWriter(OutputStream out, FrameTracer tracer) {
+        this(out, tracer, WriteScheduling.STRICT);
+    }
+
+    /**
+     * Create an instance accepting the requests via {@link #submit(WriteTicket)} only.
+     *
+     * @param out Stream to write to.
+     * @param tracer Tracer to record the writes into.
+     * @param scheduling How to pick the requests from the priority lanes.
+     */
+    public HardwareWriter(OutputStream out, FrameTracer tracer, WriteScheduling scheduling) {
         this.out = out;
+        this.tracer = tracer;
+        this.scheduling = scheduling;
+        this.sourceSubscription = null;
+
+        initLanes();
+    }
+
+    private void initLanes() {
+        for (var priority : Priority.values()) {
+            lanes[priority.ordinal()] = new WriteQueue();
+            laneStats[priority.ordinal()] = new WriteLaneStats(priority, lanes[priority.ordinal()]);
+        }
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param out Stream to write to.
+     * @param packetSource Requests to write.
+     * @param tracer Tracer to record the writes into.
+     */
+    public HardwareWriter(OutputStream out, Flux<WriteTicket> packetSource, FrameTracer tracer) {
+        this.out = out;
+        this.tracer = tracer;
+        this.scheduling = WriteScheduling.STRICT;
+
+        initLanes();
 
         sourceSubscription = packetSource
                 .doOnSubscribe(ignored -> logger.debug("Subscribed:writer"))
                 .doOnComplete(() -> logger.debug("completed"))
-                .subscribe(this::write);
+                .subscribe(this::submit);
     }
 
-    private void write(Map.Entry<XBeeRequest, CompletableFuture<Void>> pair) {
-        ThreadContext.push("write");
+    /**
+     * Queue the request for writing. Never blocks, safe to call from any thread.
+     *
+     * @param ticket Request to write, its {@link WriteTicket#written} will be completed when it's done.
+     * A ticket can't be submitted more than once.
+     */
+    public void submit(WriteTicket ticket) {
+
+        if (closed) {
+            ticket.written.completeExceptionally(new IOException("Writer closed"));
+            return;
+        }
+
+        ticket.submittedNanos = System.nanoTime();
+        lanes[ticket.priority.ordinal()].offer(ticket);
+
+        if (wip.getAndIncrement() == 0) {
+            if (closed) {
+                // Too late for the writer thread, fail them here
+                drain();
+            } else {
+                scheduler.schedule(this::drain);
+            }
+        }
+    }
 
-        var rq = pair.getKey();
-        var packet = rq.getXBeePacket().getByteArray();
-        var future = pair.getValue();
+    /**
+     * @return Number of requests queued in all the lanes, but not yet written.
+     */
+    public int getQueueDepth() {
+
+        var result = 0;
+
+        for (var lane : lanes) {
+            result += lane.size();
+        }
+
+        return result;
+    }
+
+    /**
+     * @return Lane statistics, in {@link Priority} order.
+     */
+    public List<WriteLaneStats> getLaneStats() {
+        return List.of(laneStats);
+    }
+
+    /**
+     * @return {@code true} if all the lanes are empty. Must only be called by the drain.
+     */
+    private boolean isEmpty() {
+
+        for (var lane : lanes) {
+            if (!lane.isEmpty()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Take the next ticket according to the scheduling. Must only be called by the drain.
+     *
+     * @return Next ticket to write, {@code null} if all the lanes are empty.
+     */
+    private WriteTicket poll() {
+
+        if (scheduling.isStrict()) {
+
+            for (var lane = 0; lane < lanes.length; lane++) {
+
+                var ticket = lanes[lane].poll();
+
+                if (ticket != null) {
+                    return taken(lane, ticket);
+                }
+            }
+
+            return null;
+        }
+
+        // Second pass only happens if every lane with credit left is empty
+        for (var pass = 0; pass < 2; pass++) {
+
+            for (var lane = 0; lane < lanes.length; lane++) {
+
+                if (credits[lane] > 0) {
+
+                    var ticket = lanes[lane].poll();
+
+                    if (ticket != null) {
+                        credits[lane]--;
+                        return taken(lane, ticket);
+                    }
+                }
+            }
+
+            for (var priority : Priority.values()) {
+                credits[priority.ordinal()] = scheduling.getWeight(priority);
+            }
+        }
+
+        return null;
+    }
+
+    private WriteTicket taken(int lane, WriteTicket ticket) {
+        laneStats[lane].wait.recordSince(ticket.submittedNanos);
+        return ticket;
+    }
+
+    private void drain() {
+
+        var missed = 1;
+
+        do {
+
+            while (!isEmpty()) {
+                if (closed) {
+                    failQueued();
+                } else {
+                    writeBatch();
+                }
+            }
+
+            missed = wip.addAndGet(-missed);
+
+        } while (missed != 0);
+
+        if (closed) {
+            // Nobody is going to schedule anything anymore, see submit()
+            scheduler.dispose();
+        }
+    }
+
+    private void writeBatch() {
+
+        buffer.clear();
+        WriteTicket ticket;
+
+        while (buffer.position() < MAX_BATCH_SIZE && (ticket = poll()) != null) {
+
+            try {
+
+                append(ticket);
+                batch.add(ticket);
+
+            } catch (RuntimeException ex) {
+                // Broken request, don't let it take down the rest of the batch
+                logger.error("Can't encode {}", ticket, ex);
+                ticket.written.completeExceptionally(ex);
+            }
+        }
+
+        if (batch.isEmpty()) {
+            return;
+        }
 
         try {
 
-            logger.debug("Writing {}", rq);
+            var out = this.out;
 
-            // VT: FIXME: Replace with array write when getByteArray() is fixed
-            for (var b : packet) {
-                out.write(b);
+            if (out == null) {
+                throw new ConnectionLostException("Not connected, reconnecting", null);
             }
+
+            logger.debug("Writing {} packet[s], {} bytes", batch.size(), buffer.position());
+
+            out.write(buffer.array(), 0, buffer.position());
             out.flush();
 
-            future.complete(null);
+            for (var written : batch) {
+
+                if (tracer.isEnabled()) {
+                    tracer.record(TraceEvent.WRITE, written.request.getApiId().getId(), written.frameId, buffer.position(), written.traceId);
+                }
+
+                laneStats[written.priority.ordinal()].written.incrementAndGet();
+                written.written.complete(null);
+            }
 
         } catch (IOException ex) {
+
             // The result is delivered via a Mono, it may be just discarded, so let's log it here
-            logger.error("Packet write failed for {}", rq, ex);
-            future.completeExceptionally(ex);
+            logger.error("Packet write failed for {}", batch, ex);
+
+            for (var failed : batch) {
+                failed.written.completeExceptionally(ex);
+            }
+
         } finally {
-            ThreadContext.pop();
+            batch.clear();
+        }
+    }
+
+    /**
+     * Switch to another stream.
+     *
+     * @param out Stream to write to from now on, {@code null} to fail the writes until the next call.
+     */
+    void setOutputStream(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Append the packet to the batch buffer.
+     */
+    private void append(WriteTicket ticket) {
+
+        ensureRemaining(FrameEncoder.getMaxEncodedLength(ticket.request.getFrameDataLength()));
+        encoder.encode(ticket.request, ticket.frameId, buffer);
+    }
+
+    private void ensureRemaining(int remaining) {
+
+        if (buffer.remaining() >= remaining) {
+            return;
+        }
+
+        var grown = ByteBuffer.allocate(Math.max(buffer.position() + remaining, buffer.capacity() * 2));
+        buffer.flip();
+        grown.put(buffer);
+        buffer = grown;
+    }
+
+    /**
+     * Whatever didn't make it to the wire, won't. Must only be called by the drain.
+     */
+    private void failQueued() {
+
+        var ex = new IOException("Writer closed");
+        WriteTicket ticket;
+
+        while ((ticket = poll()) != null) {
+            ticket.written.completeExceptionally(ex);
         }
     }
 
     @Override
     public void close() throws Exception {
-        sourceSubscription.dispose();
+
+        closed = true;
+
+        if (sourceSubscription != null) {
+            sourceSubscription.dispose();
+        }
+
+        // If the writer thread is busy, it'll see the flag, fail the rest and shut down, otherwise it's up to this thread
+        if (wip.getAndIncrement() == 0) {
+            drain();
+        }
     }
 }
@@ -0,0 +1,391 @@
+package com.homeclimatecontrol.xbee;
+
+import com.homeclimatecontrol.xbee.response.frame.ExtendedTransmitStatus;
+import com.homeclimatecontrol.xbee.response.frame.FrameIdAwareResponse;
+import com.homeclimatecontrol.xbee.response.frame.LocalATCommandResponse;
+import com.homeclimatecontrol.xbee.response.frame.RemoteATCommandResponse;
+import com.homeclimatecontrol.xbee.response.frame.TransmitStatus;
+import com.homeclimatecontrol.xbee.response.frame.XBeeResponseFrame;
+import com.rapplogic.xbee.api.AtCommand;
+import com.rapplogic.xbee.api.RemoteAtRequest;
+import com.rapplogic.xbee.api.XBeeRequest;
+import com.rapplogic.xbee.api.wpan.TxRequestBase;
+import com.rapplogic.xbee.api.zigbee.ZNetTxRequest;
+import com.rapplogic.xbee.util.ByteUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Requests awaiting a response, indexed by frame ID.
+ *
+ * Frame IDs are allocated here, per device, and only IDs that are not in flight are handed out. Allocation goes
+ * round robin, so that a late response to an evicted request is unlikely to hit a request that reused its ID.
+ * When all the IDs are in use, {@link #acquire(XBeeRequest)} waits until one is released.
+ *
+ * The reader thread looks up the request by the frame ID of the incoming frame and completes it directly,
+ * so the correlation cost doesn't depend on how many requests are in flight.
+ *
+ * This object is thread safe.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public class PendingRequests {
+
+    /**
+     * First frame ID to allocate. Zero means "no response", and {@link XBeeRequest#DEFAULT_FRAME_ID} is tainted.
+     */
+    static final int FIRST_ID = XBeeRequest.DEFAULT_FRAME_ID + 1;
+
+    /**
+     * How many frame IDs can be in flight at the same time.
+     */
+    public static final int CAPACITY = 256 - FIRST_ID;
+
+    private final Logger logger = LogManager.getLogger();
+
+    private final AtomicReferenceArray<Pending> slots = new AtomicReferenceArray<>(256);
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    private final ConcurrentLinkedQueue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger drainWip = new AtomicInteger();
+
+    /**
+     * A request awaiting a response.
+     */
+    public static class Pending {
+
+        public final XBeeRequest request;
+
+        /**
+         * Frame ID allocated for this request. It overrides {@link XBeeRequest#getFrameId()}.
+         */
+        public final byte frameId;
+
+        public final CompletableFuture<XBeeResponseFrame> response = new CompletableFuture<>();
+
+        Pending(XBeeRequest request, byte frameId) {
+            this.request = request;
+            this.frameId = frameId;
+        }
+
+        int getSlot() {
+            return frameId & 0xFF;
+        }
+
+        @Override
+        public String toString() {
+            return "{pending frameId=" + ByteUtils.toBase16(frameId) + ", " + request + "}";
+        }
+    }
+
+    /**
+     * A request waiting for a frame ID.
+     *
+     * Whoever moves the {@link #state} out of {@link #WAITING} first decides the outcome. The future is only ever
+     * completed by the winner, and never cancelled, so an abandoned waiter doesn't produce a dropped error.
+     */
+    private static class Waiter extends CompletableFuture<Pending> {
+
+        static final int WAITING = 0;
+        static final int GRANTED = 1;
+        static final int FAILED = 2;
+        static final int ABANDONED = 3;
+
+        final XBeeRequest request;
+        final AtomicInteger state = new AtomicInteger(WAITING);
+
+        /**
+         * Frame ID handed over to this waiter. Written before {@link #state} becomes {@link #GRANTED}.
+         */
+        Pending granted;
+
+        Waiter(XBeeRequest request) {
+            this.request = request;
+        }
+
+        /**
+         * @return {@code true} if the waiter took the frame ID, {@code false} if it was abandoned or failed.
+         */
+        boolean grant(Pending pending) {
+
+            granted = pending;
+
+            if (!state.compareAndSet(WAITING, GRANTED)) {
+                return false;
+            }
+
+            complete(pending);
+
+            return true;
+        }
+
+        void fail(Throwable cause) {
+            if (state.compareAndSet(WAITING, FAILED)) {
+                completeExceptionally(cause);
+            }
+        }
+
+        /**
+         * @return Frame ID granted before the waiter was abandoned, to release, or {@code null} if there isn't one.
+         */
+        Pending abandon() {
+
+            if (state.compareAndSet(WAITING, ABANDONED)) {
+                return null;
+            }
+
+            return state.get() == GRANTED ? granted : null;
+        }
+    }
+
+    /**
+     * Allocate a frame ID for the request and register it, waiting for a free frame ID if necessary.
+     *
+     * @param rq Request to register. Its own frame ID is ignored.
+     *
+     * @return Mono with a handle to await the response with. It must be passed to {@link #evict(Pending)} if the
+     * response didn't come. If this Mono is cancelled, the frame ID is released.
+     */
+    public Mono<Pending> acquire(XBeeRequest rq) {
+
+        return Mono.defer(() -> {
+
+            // Don't barge in front of those already waiting
+            if (waiters.isEmpty()) {
+
+                var pending = allocate(rq);
+
+                if (pending != null) {
+                    return Mono.just(pending);
+                }
+            }
+
+            var waiter = new Waiter(rq);
+
+            waiters.offer(waiter);
+            logger.debug("All {} frame IDs in flight, waiting: {}", CAPACITY, rq);
+
+            // A frame ID may have been released before we got into the queue
+            drain();
+
+            return Mono
+                    .fromFuture(waiter)
+                    // Waiters are released on the reader thread
+                    .publishOn(Schedulers.boundedElastic())
+                    .doOnCancel(() -> cancel(waiter));
+        });
+    }
+
+    private void cancel(Waiter waiter) {
+
+        waiters.remove(waiter);
+
+        var granted = waiter.abandon();
+
+        if (granted != null) {
+            // Too late, it's been given a frame ID already
+            evict(granted);
+        }
+    }
+
+    /**
+     * Allocate a frame ID for the request and register it, if there's a free frame ID.
+     *
+     * @param rq Request to register. Its own frame ID is ignored.
+     *
+     * @return Handle to await the response with, or {@code null} if all frame IDs are in flight.
+     */
+    public Pending allocate(XBeeRequest rq) {
+
+        for (var attempt = 0; attempt < CAPACITY && size.get() < CAPACITY; attempt++) {
+
+            var slot = FIRST_ID + Math.floorMod(cursor.getAndIncrement(), CAPACITY);
+
+            if (slots.get(slot) != null) {
+                continue;
+            }
+
+            var pending = new Pending(rq, (byte) slot);
+
+            if (slots.compareAndSet(slot, null, pending)) {
+                size.incrementAndGet();
+                return pending;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Hand over released frame IDs to the waiters, in order.
+     */
+    private void drain() {
+
+        if (drainWip.getAndIncrement() != 0) {
+            // Somebody else is draining, they will take another pass
+            return;
+        }
+
+        do {
+
+            Waiter waiter;
+
+            while ((waiter = waiters.peek()) != null) {
+
+                var pending = allocate(waiter.request);
+
+                if (pending == null) {
+                    break;
+                }
+
+                waiters.poll();
+
+                if (!waiter.grant(pending)) {
+                    // Abandoned or failed
+                    evict(pending);
+                }
+            }
+
+        } while (drainWip.decrementAndGet() != 0);
+    }
+
+    /**
+     * Complete the request this frame is a response to, if there is one.
+     *
+     * @param frame Incoming frame.
+     *
+     * @return {@code true} if a pending request was completed.
+     */
+    public boolean complete(XBeeResponseFrame frame) {
+
+        if (!(frame instanceof FrameIdAwareResponse)) {
+            return false;
+        }
+
+        var slot = ((FrameIdAwareResponse) frame).frameId & 0xFF;
+
+        if (slot == 0) {
+            return false;
+        }
+
+        var pending = slots.get(slot);
+
+        if (pending == null) {
+            logger.debug("frameId={}: nobody's waiting (timed out?), ignored: {}", () -> ByteUtils.toBase16(slot), () -> frame);
+            return false;
+        }
+
+        if (!matches(pending.request, frame)) {
+            // Most likely, a late response to an evicted request that happened to have the same frame ID,
+            // the request stays pending until its own response comes or it times out
+            logger.debug("frameId={}: response doesn't match the request, ignored: {} for {}", () -> ByteUtils.toBase16(slot), () -> frame, () -> pending.request);
+            return false;
+        }
+
+        if (!release(pending)) {
+            // Evicted in the meanwhile
+            return false;
+        }
+
+        pending.response.complete(frame);
+
+        return true;
+    }
+
+    /**
+     * Check if the frame is of the type that answers the request.
+     *
+     * Local AT commands (queued included) are answered with {@link LocalATCommandResponse}, remote ones with
+     * {@link RemoteATCommandResponse}, both carrying the same command. ZigBee transmit requests are answered with
+     * {@link ExtendedTransmitStatus}, 802.15.4 ones with {@link TransmitStatus}. Requests of other types are
+     * answered by whatever comes with their frame ID.
+     */
+    private static boolean matches(XBeeRequest rq, XBeeResponseFrame frame) {
+
+        if (rq instanceof RemoteAtRequest) {
+            return frame instanceof RemoteATCommandResponse && ((AtCommand) rq).getCommand() == ((RemoteATCommandResponse) frame).command;
+        }
+
+        if (rq instanceof AtCommand) {
+            return frame instanceof LocalATCommandResponse && ((AtCommand) rq).getCommand() == ((LocalATCommandResponse) frame).command;
+        }
+
+        if (rq instanceof ZNetTxRequest) {
+            return frame instanceof ExtendedTransmitStatus;
+        }
+
+        if (rq instanceof TxRequestBase) {
+            return frame instanceof TransmitStatus;
+        }
+
+        return true;
+    }
+
+    /**
+     * Remove the request from the table and release its frame ID, unless it was already completed.
+     *
+     * @param pending Handle returned by {@link #acquire(XBeeRequest)} or {@link #allocate(XBeeRequest)}.
+     *
+     * @return {@code true} if the request was still pending.
+     */
+    public boolean evict(Pending pending) {
+        return release(pending);
+    }
+
+    private boolean release(Pending pending) {
+
+        if (!slots.compareAndSet(pending.getSlot(), pending, null)) {
+            return false;
+        }
+
+        size.decrementAndGet();
+        drain();
+
+        return true;
+    }
+
+    /**
+     * Fail all the pending requests, and those waiting for a frame ID.
+     *
+     * @param cause What went wrong.
+     */
+    public void failAll(Throwable cause) {
+
+        Waiter waiter;
+
+        while ((waiter = waiters.poll()) != null) {
+            waiter.fail(cause);
+        }
+
+        for (var slot = FIRST_ID; slot < slots.length(); slot++) {
+
+            var pending = slots.get(slot);
+
+            if (pending != null && release(pending)) {
+                pending.response.completeExceptionally(cause);
+            }
+        }
+    }
+
+    /**
+     * @return Number of requests in flight.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * @return Number of requests waiting for a frame ID.
+     */
+    public int getWaiting() {
+        return waiters.size();
+    }
+}
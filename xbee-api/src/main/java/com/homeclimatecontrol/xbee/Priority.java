@@ -0,0 +1,27 @@
+package com.homeclimatecontrol.xbee;
+
+/**
+ * Outbound request priority class.
+ *
+ * Every class gets its own lane in the writer, see {@link WriteScheduling} for how the lanes are served.
+ * Requests within one class are written in the order they were submitted.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public enum Priority {
+
+    /**
+     * Time critical commands, like switching an actuator.
+     */
+    CONTROL,
+
+    /**
+     * Everything else, the default.
+     */
+    NORMAL,
+
+    /**
+     * Background work that can wait, like configuration sweeps or network discovery.
+     */
+    BULK
+}
@@ -0,0 +1,234 @@
+package com.homeclimatecontrol.xbee;
+
+import com.homeclimatecontrol.xbee.response.frame.XBeeResponseFrame;
+import reactor.core.Exceptions;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Buffer between the reader thread and a single receive() subscriber.
+ *
+ * The reader thread only ever appends to the buffer, applying the overflow policy if it is full. Frames are handed
+ * over to the subscriber on its own worker, as fast as it requests them.
+ */
+class ReceiveLane {
+
+    final ReceiveStats stats;
+
+    private final ReceiveOptions options;
+    private final FluxSink<XBeeResponseFrame> sink;
+    private final Scheduler.Worker worker;
+    private final AtomicInteger wip = new AtomicInteger();
+
+    /**
+     * Buffer for all the policies except {@link ReceiveOptions.Overflow#LATEST_PER_SOURCE}. Guarded by {@code this}.
+     */
+    private final ArrayDeque<XBeeResponseFrame> queue = new ArrayDeque<>();
+
+    /**
+     * Buffer for {@link ReceiveOptions.Overflow#LATEST_PER_SOURCE}, keyed by the source address. Guarded by {@code this}.
+     */
+    private final LinkedHashMap<Object, XBeeResponseFrame> latest = new LinkedHashMap<>();
+
+    /**
+     * Set when the {@link ReceiveOptions.Overflow#ERROR} policy kicks in. Guarded by {@code this}.
+     */
+    private boolean overflowed = false;
+
+    /**
+     * Set when the upstream is done. Guarded by {@code this}.
+     */
+    private boolean done = false;
+
+    /**
+     * What the upstream was done with, {@code null} for completion. Guarded by {@code this}.
+     */
+    private Throwable error;
+
+    ReceiveLane(ReceiveOptions options, FluxSink<XBeeResponseFrame> sink, Scheduler.Worker worker) {
+
+        this.stats = new ReceiveStats(options);
+        this.options = options;
+        this.sink = sink;
+        this.worker = worker;
+    }
+
+    /**
+     * Buffer the frame. Called on the reader thread, never blocks.
+     */
+    void offer(XBeeResponseFrame frame) {
+
+        stats.received.incrementAndGet();
+
+        synchronized (this) {
+
+            if (done || overflowed) {
+                stats.dropped.incrementAndGet();
+                return;
+            }
+
+            if (options.overflow == ReceiveOptions.Overflow.LATEST_PER_SOURCE) {
+                offerLatest(frame);
+            } else {
+                offerQueue(frame);
+            }
+        }
+
+        schedule();
+    }
+
+    private void offerQueue(XBeeResponseFrame frame) {
+
+        if (queue.size() < options.bufferSize || options.overflow == ReceiveOptions.Overflow.BUFFER) {
+            queue.add(frame);
+            return;
+        }
+
+        stats.dropped.incrementAndGet();
+
+        switch (options.overflow) {
+
+            case DROP_OLDEST:
+                queue.poll();
+                queue.add(frame);
+                break;
+
+            case DROP_NEWEST:
+                break;
+
+            case ERROR:
+                stats.dropped.addAndGet(queue.size());
+                queue.clear();
+                overflowed = true;
+                break;
+
+            default:
+                throw new IllegalStateException("Unexpected overflow policy " + options.overflow);
+        }
+    }
+
+    private void offerLatest(XBeeResponseFrame frame) {
+
+        var source = frame.getSourceAddress64();
+
+        // Frames from the local XBee are all different
+        Object key = source == null ? new Object() : source;
+
+        if (latest.put(key, frame) != null) {
+            // Same source, the older frame is replaced in place
+            stats.dropped.incrementAndGet();
+            return;
+        }
+
+        if (latest.size() > options.bufferSize) {
+            var eldest = latest.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+            stats.dropped.incrementAndGet();
+        }
+    }
+
+    private synchronized XBeeResponseFrame poll() {
+
+        if (options.overflow != ReceiveOptions.Overflow.LATEST_PER_SOURCE) {
+            return queue.poll();
+        }
+
+        if (latest.isEmpty()) {
+            return null;
+        }
+
+        var first = latest.values().iterator();
+        var result = first.next();
+
+        first.remove();
+
+        return result;
+    }
+
+    /**
+     * Deliver the rest of the buffer, then terminate the subscriber.
+     *
+     * @param error Error to terminate with, {@code null} to complete.
+     */
+    void terminate(Throwable error) {
+
+        synchronized (this) {
+            if (done) {
+                return;
+            }
+            done = true;
+            this.error = error;
+        }
+
+        schedule();
+    }
+
+    void schedule() {
+        if (wip.getAndIncrement() == 0) {
+            worker.schedule(this::drain);
+        }
+    }
+
+    void dispose() {
+        worker.dispose();
+    }
+
+    private void drain() {
+
+        var missed = 1;
+
+        do {
+
+            while (sink.requestedFromDownstream() > 0 && !sink.isCancelled() && !isOverflowed()) {
+
+                var frame = poll();
+
+                if (frame == null) {
+                    break;
+                }
+
+                stats.delivered.incrementAndGet();
+                sink.next(frame);
+            }
+
+            checkTerminated();
+
+            missed = wip.addAndGet(-missed);
+
+        } while (missed != 0);
+    }
+
+    private synchronized boolean isOverflowed() {
+        return overflowed;
+    }
+
+    private void checkTerminated() {
+
+        Throwable terminateWith;
+        boolean complete;
+
+        synchronized (this) {
+
+            if (overflowed) {
+                terminateWith = Exceptions.failWithOverflow(options.name + ": more than " + options.bufferSize + " frames buffered");
+                complete = false;
+            } else if (done && queue.isEmpty() && latest.isEmpty()) {
+                terminateWith = error;
+                complete = error == null;
+            } else {
+                return;
+            }
+        }
+
+        if (complete) {
+            sink.complete();
+        } else {
+            sink.error(terminateWith);
+        }
+    }
+}
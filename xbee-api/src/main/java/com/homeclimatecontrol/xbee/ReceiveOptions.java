@@ -0,0 +1,77 @@
+package com.homeclimatecontrol.xbee;
+
+/**
+ * How a {@link XBeeReactive#receive(ReceiveOptions)} subscriber that can't keep up is treated.
+ *
+ * Every subscriber gets its own buffer, and the overflow policy only affects that subscriber - a slow one buffers,
+ * loses frames or errors out, the rest of them don't notice.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public class ReceiveOptions {
+
+    public enum Overflow {
+
+        /**
+         * Never drop anything, let the buffer grow past its size. A subscriber that never catches up will
+         * eventually run the JVM out of memory, watch its {@link ReceiveStats#getLag() lag}.
+         */
+        BUFFER,
+
+        /**
+         * Make room by dropping the oldest buffered frame.
+         */
+        DROP_OLDEST,
+
+        /**
+         * Drop the frame that doesn't fit.
+         */
+        DROP_NEWEST,
+
+        /**
+         * Keep only the latest frame from every source address, frames from the local XBee are treated as
+         * {@link #DROP_OLDEST}. The buffer size is the number of sources to keep track of. Good for dashboards.
+         */
+        LATEST_PER_SOURCE,
+
+        /**
+         * Terminate the subscription with {@link reactor.core.Exceptions#failWithOverflow()}.
+         */
+        ERROR
+    }
+
+    /**
+     * Default buffer size, a few minutes worth of frames from a busy network.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1024;
+
+    /**
+     * Default options, {@link Overflow#BUFFER} starting with {@link #DEFAULT_BUFFER_SIZE} buffer, so that
+     * the subscriber doesn't lose frames no matter how far it falls behind.
+     */
+    public static final ReceiveOptions DEFAULT = new ReceiveOptions("receive", DEFAULT_BUFFER_SIZE, Overflow.BUFFER);
+
+    /**
+     * Subscriber name, to tell the {@link ReceiveStats} apart.
+     */
+    public final String name;
+
+    public final int bufferSize;
+    public final Overflow overflow;
+
+    public ReceiveOptions(String name, int bufferSize, Overflow overflow) {
+
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize must be positive, got " + bufferSize);
+        }
+
+        this.name = name;
+        this.bufferSize = bufferSize;
+        this.overflow = overflow;
+    }
+
+    @Override
+    public String toString() {
+        return "{" + name + ": " + overflow + ", bufferSize=" + bufferSize + "}";
+    }
+}
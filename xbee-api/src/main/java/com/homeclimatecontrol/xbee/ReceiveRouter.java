@@ -0,0 +1,182 @@
+package com.homeclimatecontrol.xbee;
+
+import com.homeclimatecontrol.xbee.response.frame.XBeeResponseFrame;
+import com.rapplogic.xbee.api.XBeeAddress64;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Routes every incoming frame to the lanes interested in it.
+ *
+ * Lanes subscribe to all frames, to frames of a type (subtypes included), or to frames from a source address.
+ * The routing table is rebuilt on every subscription change and swapped in whole, so routing a frame takes
+ * a couple of hash lookups and no locks, no matter how many lanes there are. Which declared types a concrete
+ * frame class matches is worked out once per class and cached until the next subscription change.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+class ReceiveRouter {
+
+    private static final ReceiveLane[] NONE = new ReceiveLane[0];
+
+    private volatile Routes routes = new Routes(new ArrayList<>());
+
+    /**
+     * Every subscription, in order. Guarded by {@code this}.
+     */
+    private final List<Subscription> subscriptions = new ArrayList<>();
+
+    /**
+     * Route the frame. Called on the reader thread.
+     *
+     * @return {@code false} if nobody was interested in it.
+     */
+    boolean route(XBeeResponseFrame frame) {
+
+        var current = routes;
+        var delivered = offer(current.all, frame);
+
+        if (current.hasTypes) {
+            delivered |= offer(current.resolve(frame.getClass()), frame);
+        }
+
+        if (!current.bySource.isEmpty()) {
+
+            var source = frame.getSourceAddress64();
+
+            if (source != null) {
+                delivered |= offer(current.bySource.getOrDefault(source, NONE), frame);
+            }
+        }
+
+        return delivered;
+    }
+
+    private static boolean offer(ReceiveLane[] lanes, XBeeResponseFrame frame) {
+
+        for (var lane : lanes) {
+            lane.offer(frame);
+        }
+
+        return lanes.length > 0;
+    }
+
+    /**
+     * Add a lane.
+     *
+     * @param lane Lane to add.
+     * @param type Frame type to route to it, {@code null} for all types.
+     * @param source Source address to route to it, {@code null} for all sources.
+     */
+    synchronized void add(ReceiveLane lane, Class<? extends XBeeResponseFrame> type, XBeeAddress64 source) {
+        subscriptions.add(new Subscription(lane, type, source));
+        routes = new Routes(subscriptions);
+    }
+
+    synchronized void remove(ReceiveLane lane) {
+        subscriptions.removeIf(s -> s.lane == lane);
+        routes = new Routes(subscriptions);
+    }
+
+    /**
+     * Get all the lanes.
+     *
+     * @return Every lane currently subscribed, whatever it is subscribed to.
+     */
+    ReceiveLane[] getLanes() {
+        return routes.every;
+    }
+
+    private static class Subscription {
+
+        final ReceiveLane lane;
+        final Class<? extends XBeeResponseFrame> type;
+        final XBeeAddress64 source;
+
+        Subscription(ReceiveLane lane, Class<? extends XBeeResponseFrame> type, XBeeAddress64 source) {
+            this.lane = lane;
+            this.type = type;
+            this.source = source;
+        }
+    }
+
+    /**
+     * Immutable routing table snapshot, except for the type resolution cache.
+     */
+    private static class Routes {
+
+        final ReceiveLane[] every;
+        final ReceiveLane[] all;
+        final Map<Class<?>, ReceiveLane[]> byType;
+        final Map<XBeeAddress64, ReceiveLane[]> bySource;
+        final boolean hasTypes;
+
+        /**
+         * Lanes by concrete frame class, filled on first sight of the class.
+         */
+        private final Map<Class<?>, ReceiveLane[]> resolved = new ConcurrentHashMap<>();
+
+        Routes(List<Subscription> subscriptions) {
+
+            var everyList = new ArrayList<ReceiveLane>(subscriptions.size());
+            var allList = new ArrayList<ReceiveLane>();
+            var typeMap = new HashMap<Class<?>, List<ReceiveLane>>();
+            var sourceMap = new HashMap<XBeeAddress64, List<ReceiveLane>>();
+
+            for (var s : subscriptions) {
+
+                everyList.add(s.lane);
+
+                if (s.type != null) {
+                    typeMap.computeIfAbsent(s.type, k -> new ArrayList<>()).add(s.lane);
+                } else if (s.source != null) {
+                    sourceMap.computeIfAbsent(s.source, k -> new ArrayList<>()).add(s.lane);
+                } else {
+                    allList.add(s.lane);
+                }
+            }
+
+            every = everyList.toArray(NONE);
+            all = allList.toArray(NONE);
+            byType = toArrays(typeMap);
+            bySource = toArrays(sourceMap);
+            hasTypes = !byType.isEmpty();
+        }
+
+        private static <K> Map<K, ReceiveLane[]> toArrays(Map<K, List<ReceiveLane>> source) {
+
+            var result = new HashMap<K, ReceiveLane[]>(source.size() * 2);
+
+            for (var entry : source.entrySet()) {
+                result.put(entry.getKey(), entry.getValue().toArray(NONE));
+            }
+
+            return result;
+        }
+
+        ReceiveLane[] resolve(Class<?> frameClass) {
+
+            var result = resolved.get(frameClass);
+
+            return result != null ? result : resolved.computeIfAbsent(frameClass, this::match);
+        }
+
+        private ReceiveLane[] match(Class<?> frameClass) {
+
+            var result = new ArrayList<ReceiveLane>();
+
+            for (var entry : byType.entrySet()) {
+                if (entry.getKey().isAssignableFrom(frameClass)) {
+                    result.addAll(Arrays.asList(entry.getValue()));
+                }
+            }
+
+            return result.toArray(NONE);
+        }
+    }
+}
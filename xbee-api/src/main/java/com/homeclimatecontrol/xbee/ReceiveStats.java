@@ -0,0 +1,61 @@
+package com.homeclimatecontrol.xbee;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of a single {@link XBeeReactive#receive(ReceiveOptions)} subscriber.
+ *
+ * This object is thread safe.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public class ReceiveStats {
+
+    public final ReceiveOptions options;
+
+    final AtomicLong received = new AtomicLong();
+    final AtomicLong delivered = new AtomicLong();
+    final AtomicLong dropped = new AtomicLong();
+
+    ReceiveStats(ReceiveOptions options) {
+        this.options = options;
+    }
+
+    /**
+     * @return Number of frames that arrived while subscribed.
+     */
+    public long getReceived() {
+        return received.get();
+    }
+
+    /**
+     * @return Number of frames handed over to the subscriber.
+     */
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    /**
+     * @return Number of frames lost to the overflow policy.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * @return Number of frames buffered, waiting for the subscriber to request them.
+     */
+    public long getLag() {
+        return Math.max(0, getReceived() - getDelivered() - getDropped());
+    }
+
+    @Override
+    public String toString() {
+        return "{" + options.name
+                + " received=" + getReceived()
+                + ", delivered=" + getDelivered()
+                + ", dropped=" + getDropped()
+                + ", lag=" + getLag()
+                + "}";
+    }
+}
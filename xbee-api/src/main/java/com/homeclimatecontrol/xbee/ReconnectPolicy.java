@@ -0,0 +1,94 @@
+package com.homeclimatecontrol.xbee;
+
+import java.time.Duration;
+
+/**
+ * How {@link XBeeReactive} deals with losing the connection to the XBee.
+ *
+ * The transport is reopened after {@link #initialDelay}, and if that fails, after twice the previous delay,
+ * up to {@link #maxDelay}, until it succeeds or {@link #maxAttempts} run out. {@code receive()} subscribers
+ * don't notice anything except the gap in the frames.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public class ReconnectPolicy {
+
+    /**
+     * Attempt count meaning "keep trying forever".
+     */
+    public static final int FOREVER = 0;
+
+    /**
+     * Keep trying forever, starting at 100ms and backing off to 30 seconds.
+     */
+    public static final ReconnectPolicy DEFAULT = new ReconnectPolicy(Duration.ofMillis(100), Duration.ofSeconds(30), FOREVER);
+
+    /**
+     * Don't reconnect, terminate {@code receive()} subscribers with the I/O error instead.
+     */
+    public static final ReconnectPolicy NONE = new ReconnectPolicy(Duration.ZERO, Duration.ZERO, -1);
+
+    /**
+     * Delay before the first reopen attempt.
+     */
+    public final Duration initialDelay;
+
+    /**
+     * Upper bound of the delay between attempts.
+     */
+    public final Duration maxDelay;
+
+    /**
+     * How many times to try before giving up, {@link #FOREVER} to never give up, negative to not try at all.
+     */
+    public final int maxAttempts;
+
+    /**
+     * Create an instance.
+     *
+     * @param initialDelay Delay before the first reopen attempt.
+     * @param maxDelay Upper bound of the delay between attempts.
+     * @param maxAttempts How many times to try before giving up, {@link #FOREVER} to never give up,
+     * negative to not try at all.
+     */
+    public ReconnectPolicy(Duration initialDelay, Duration maxDelay, int maxAttempts) {
+
+        if (initialDelay.isNegative() || maxDelay.compareTo(initialDelay) < 0) {
+            throw new IllegalArgumentException("need 0 <= initialDelay <= maxDelay, got " + initialDelay + ", " + maxDelay);
+        }
+
+        this.initialDelay = initialDelay;
+        this.maxDelay = maxDelay;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * @return {@code true} if this policy reconnects at all.
+     */
+    public boolean isEnabled() {
+        return maxAttempts >= 0;
+    }
+
+    /**
+     * Get the delay before the next attempt.
+     *
+     * @param previous Delay before the previous attempt, {@code null} if this is the first one.
+     *
+     * @return Delay before the next attempt.
+     */
+    public Duration nextDelay(Duration previous) {
+
+        if (previous == null) {
+            return initialDelay;
+        }
+
+        var doubled = previous.multipliedBy(2);
+
+        return doubled.compareTo(maxDelay) > 0 ? maxDelay : doubled;
+    }
+
+    @Override
+    public String toString() {
+        return "{initialDelay=" + initialDelay + ", maxDelay=" + maxDelay + ", maxAttempts=" + (maxAttempts == FOREVER ? "forever" : maxAttempts) + "}";
+    }
+}
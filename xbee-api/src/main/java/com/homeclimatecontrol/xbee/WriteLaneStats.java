@@ -0,0 +1,64 @@
+package com.homeclimatecontrol.xbee;
+
+import com.homeclimatecontrol.xbee.util.LatencyHistogram;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of a single {@link Priority} lane of the writer.
+ *
+ * This object is thread safe.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public class WriteLaneStats {
+
+    public final Priority priority;
+
+    private final WriteQueue queue;
+
+    /**
+     * Incremented by the writer thread only.
+     */
+    final AtomicLong written = new AtomicLong();
+
+    /**
+     * Time between the request being submitted and being taken off the queue to be written.
+     */
+    final LatencyHistogram wait = new LatencyHistogram();
+
+    WriteLaneStats(Priority priority, WriteQueue queue) {
+        this.priority = priority;
+        this.queue = queue;
+    }
+
+    /**
+     * @return Number of requests queued, but not yet taken to be written.
+     */
+    public int getDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @return Number of requests successfully written.
+     */
+    public long getWritten() {
+        return written.get();
+    }
+
+    /**
+     * @return Histogram of the time the requests spent in the queue.
+     */
+    public LatencyHistogram getWait() {
+        return wait;
+    }
+
+    @Override
+    public String toString() {
+        return "{" + priority
+                + " depth=" + getDepth()
+                + ", written=" + getWritten()
+                + ", wait=" + getWait()
+                + "}";
+    }
+}
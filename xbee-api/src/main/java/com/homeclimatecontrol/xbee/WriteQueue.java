@@ -0,0 +1,99 @@
+package com.homeclimatecontrol.xbee;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free multiple producer, single consumer queue of {@link WriteTicket}s.
+ *
+ * The tickets are linked through their own {@link WriteTicket#next} field, so offering a ticket allocates nothing.
+ * A producer swaps itself into the tail with one atomic exchange and links the previous tail to itself, producers
+ * never wait for each other or for the consumer. The last ticket polled stays behind as the head sentinel
+ * until the next one is polled.
+ *
+ * A ticket can only ever be offered once.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+class WriteQueue {
+
+    private static final AtomicReferenceFieldUpdater<WriteTicket, WriteTicket> NEXT =
+            AtomicReferenceFieldUpdater.newUpdater(WriteTicket.class, WriteTicket.class, "next");
+
+    private final AtomicReference<WriteTicket> tail;
+
+    /**
+     * Accessed by the consumer only.
+     */
+    private WriteTicket head;
+
+    /**
+     * Incremented by the producers, hence the adder.
+     */
+    private final LongAdder offered = new LongAdder();
+
+    /**
+     * Incremented by the consumer only.
+     */
+    private final AtomicLong polled = new AtomicLong();
+
+    WriteQueue() {
+
+        var sentinel = new WriteTicket(null, (byte) 0);
+
+        head = sentinel;
+        tail = new AtomicReference<>(sentinel);
+    }
+
+    /**
+     * Add the ticket to the queue. Safe to call from any number of threads.
+     */
+    void offer(WriteTicket ticket) {
+
+        offered.increment();
+
+        var previous = tail.getAndSet(ticket);
+
+        // Between the exchange and this, the consumer sees the queue as ending at previous - that's fine,
+        // the producer that did the exchange will schedule the drain after this
+        NEXT.lazySet(previous, ticket);
+    }
+
+    /**
+     * Take the next ticket off the queue. Must only be called by the consumer.
+     *
+     * @return Next ticket, or {@code null} if there's none yet.
+     */
+    WriteTicket poll() {
+
+        var next = head.next;
+
+        if (next == null) {
+            return null;
+        }
+
+        // The ticket becomes the sentinel, don't keep the previous one reachable
+        head.next = null;
+        head = next;
+
+        polled.lazySet(polled.get() + 1);
+
+        return next;
+    }
+
+    /**
+     * @return {@code true} if there is nothing to poll. Must only be called by the consumer.
+     */
+    boolean isEmpty() {
+        return head.next == null;
+    }
+
+    /**
+     * @return Number of tickets offered, but not polled yet. Approximate while the producers are busy.
+     */
+    int size() {
+        return (int) Math.max(0, offered.sum() - polled.get());
+    }
+}
@@ -0,0 +1,70 @@
+package com.homeclimatecontrol.xbee;
+
+import java.util.Arrays;
+
+/**
+ * How the writer picks the next request from the {@link Priority} lanes.
+ *
+ * With {@link #STRICT} scheduling, a lower priority lane is only served when all higher priority lanes are empty.
+ * A steady stream of higher priority requests will starve the lower ones.
+ *
+ * With {@link #weighted(int, int, int) weighted} scheduling, the lanes are served in rounds. Within a round, every
+ * lane may have up to its weight of requests written, higher priority lanes first. Lanes with nothing to send don't
+ * hold up the others, so the weights only matter when several lanes are busy.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public class WriteScheduling {
+
+    /**
+     * Always serve the highest priority lane that is not empty.
+     */
+    public static final WriteScheduling STRICT = new WriteScheduling(null);
+
+    /**
+     * Weights indexed by {@link Priority#ordinal()}, {@code null} for strict scheduling.
+     */
+    private final int[] weights;
+
+    private WriteScheduling(int[] weights) {
+        this.weights = weights;
+    }
+
+    /**
+     * Create a weighted schedule.
+     *
+     * @param control How many {@link Priority#CONTROL} requests to write per round.
+     * @param normal How many {@link Priority#NORMAL} requests to write per round.
+     * @param bulk How many {@link Priority#BULK} requests to write per round.
+     *
+     * @return Weighted schedule.
+     */
+    public static WriteScheduling weighted(int control, int normal, int bulk) {
+
+        if (control < 1 || normal < 1 || bulk < 1) {
+            throw new IllegalArgumentException("weights must be positive, got " + control + ", " + normal + ", " + bulk);
+        }
+
+        return new WriteScheduling(new int[] { control, normal, bulk });
+    }
+
+    public boolean isStrict() {
+        return weights == null;
+    }
+
+    /**
+     * Get the weight of the priority class.
+     *
+     * @param priority Priority class.
+     *
+     * @return Requests per round, {@link Integer#MAX_VALUE} for strict scheduling.
+     */
+    public int getWeight(Priority priority) {
+        return weights == null ? Integer.MAX_VALUE : weights[priority.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        return weights == null ? "{strict}" : "{weighted " + Arrays.toString(weights) + "}";
+    }
+}
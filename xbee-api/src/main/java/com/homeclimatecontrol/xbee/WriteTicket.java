@@ -0,0 +1,94 @@
+package com.homeclimatecontrol.xbee;
+
+import com.rapplogic.xbee.api.XBeeRequest;
+import com.rapplogic.xbee.util.ByteUtils;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A request queued for writing.
+ */
+public class WriteTicket {
+
+    public final XBeeRequest request;
+
+    /**
+     * Frame ID to send the request with.
+     */
+    public final byte frameId;
+
+    /**
+     * Completed when the request is written, or completed exceptionally if the write failed.
+     */
+    public final CompletableFuture<Void> written = new CompletableFuture<>();
+
+    /**
+     * Trace ID of the caller, see {@link com.homeclimatecontrol.xbee.trace.FrameTracer}, 0 if none.
+     */
+    public final long traceId;
+
+    /**
+     * Lane to queue the request in.
+     */
+    public final Priority priority;
+
+    /**
+     * When the ticket was submitted, as returned by {@link System#nanoTime()}. Set by the writer.
+     */
+    long submittedNanos;
+
+    /**
+     * Next ticket in the {@link WriteQueue}.
+     */
+    volatile WriteTicket next;
+
+    /**
+     * Create an instance that will be sent with the request's own frame ID.
+     *
+     * @param request Request to write.
+     */
+    public WriteTicket(XBeeRequest request) {
+        this(request, request.getFrameId());
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param request Request to write.
+     * @param frameId Frame ID to send the request with, instead of {@link XBeeRequest#getFrameId()}.
+     */
+    public WriteTicket(XBeeRequest request, byte frameId) {
+        this(request, frameId, 0);
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param request Request to write.
+     * @param frameId Frame ID to send the request with, instead of {@link XBeeRequest#getFrameId()}.
+     * @param traceId Trace ID of the caller.
+     */
+    public WriteTicket(XBeeRequest request, byte frameId, long traceId) {
+        this(request, frameId, traceId, Priority.NORMAL);
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param request Request to write.
+     * @param frameId Frame ID to send the request with, instead of {@link XBeeRequest#getFrameId()}.
+     * @param traceId Trace ID of the caller.
+     * @param priority Lane to queue the request in.
+     */
+    public WriteTicket(XBeeRequest request, byte frameId, long traceId, Priority priority) {
+        this.request = request;
+        this.frameId = frameId;
+        this.traceId = traceId;
+        this.priority = priority;
+    }
+
+    @Override
+    public String toString() {
+        return request.getFrameId() == frameId ? "{" + request + "}" : "{" + request + " as frameId=" + ByteUtils.toBase16(frameId) + "}";
+    }
+}
@@ -0,0 +1,356 @@
+package com.homeclimatecontrol.xbee;
+
+import com.homeclimatecontrol.xbee.response.command.NDResponse;
+import com.homeclimatecontrol.xbee.response.frame.XBeeResponseFrame;
+import com.homeclimatecontrol.xbee.transport.XBeeTransport;
+import com.homeclimatecontrol.xbee.zigbee.NetworkBrowser;
+import com.rapplogic.xbee.api.XBeeAddress64;
+import com.rapplogic.xbee.api.XBeeRequest;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Several {@link XBeeReactive} adapters, typically coordinators on different PANs or channels, behind one API.
+ *
+ * Every adapter keeps its own reader thread, writer and frame ID space, so they don't get in each other's way.
+ * The manager keeps track of which adapter heard from which remote XBee last, and sends requests for that
+ * XBee through that adapter. Requests for XBees no adapter has heard from yet go to the least busy adapter.
+ * Adapters whose incoming frame stream failed, for example after the {@link ReconnectPolicy} gave up,
+ * are taken out of the routing.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public class XBeeManager implements AutoCloseable {
+
+    /**
+     * How many source addresses the routing subscription of every adapter may fall behind by before it starts
+     * skipping stale frames from the same source.
+     */
+    private static final int ROUTE_BUFFER_SIZE = 256;
+
+    private final Logger logger = LogManager.getLogger();
+
+    private final List<XBeeReactive> adapters;
+
+    /**
+     * Adapter that heard from the remote XBee last.
+     */
+    private final Map<XBeeAddress64, XBeeReactive> lastHeard = new ConcurrentHashMap<>();
+
+    private final List<Disposable> routeSubscriptions = new ArrayList<>();
+
+    /**
+     * Adapters taken out of the routing.
+     */
+    private final Set<XBeeReactive> failed = ConcurrentHashMap.newKeySet();
+
+    /**
+     * A frame, and the adapter it came through.
+     */
+    public static class AdapterFrame {
+
+        public final XBeeReactive adapter;
+        public final XBeeResponseFrame frame;
+
+        public AdapterFrame(XBeeReactive adapter, XBeeResponseFrame frame) {
+            this.adapter = adapter;
+            this.frame = frame;
+        }
+
+        @Override
+        public String toString() {
+            return "{adapter=" + adapter.getName() + ", frame=" + frame + "}";
+        }
+    }
+
+    /**
+     * A node discovered by {@link #browse(Duration)}, and the adapter it was discovered through.
+     */
+    public static class AdapterNode {
+
+        public final XBeeReactive adapter;
+        public final NDResponse node;
+
+        public AdapterNode(XBeeReactive adapter, NDResponse node) {
+            this.adapter = adapter;
+            this.node = node;
+        }
+
+        @Override
+        public String toString() {
+            return "{adapter=" + adapter.getName() + ", node=" + node + "}";
+        }
+    }
+
+    /**
+     * Create an instance managing adapters that are already open.
+     *
+     * @param adapters Adapters to manage. They will be closed by {@link #close()}.
+     */
+    public XBeeManager(Collection<XBeeReactive> adapters) {
+
+        if (adapters.isEmpty()) {
+            throw new IllegalArgumentException("need at least one adapter");
+        }
+
+        this.adapters = List.copyOf(adapters);
+
+        for (var adapter : this.adapters) {
+
+            var options = new ReceiveOptions("route:" + adapter.getName(), ROUTE_BUFFER_SIZE, ReceiveOptions.Overflow.LATEST_PER_SOURCE);
+
+            routeSubscriptions.add(adapter
+                    .receive(options)
+                    .subscribe(
+                            frame -> heard(frame.getSourceAddress64(), adapter),
+                            error -> failed(adapter, error)));
+        }
+    }
+
+    /**
+     * Open adapters over the given transports and manage them.
+     *
+     * @param transports Transports to open adapters over.
+     *
+     * @return The manager.
+     *
+     * @exception IOException if any of the adapters failed to open. The ones that did open are closed.
+     */
+    public static XBeeManager open(Collection<XBeeTransport> transports) throws IOException {
+
+        var adapters = new ArrayList<XBeeReactive>(transports.size());
+
+        try {
+
+            for (var transport : transports) {
+                adapters.add(new XBeeReactive(transport));
+            }
+
+            return new XBeeManager(adapters);
+
+        } catch (IOException | RuntimeException ex) {
+
+            for (var adapter : adapters) {
+                try {
+                    adapter.close();
+                } catch (Exception closeEx) {
+                    ex.addSuppressed(closeEx);
+                }
+            }
+
+            throw ex;
+        }
+    }
+
+    private void heard(XBeeAddress64 source, XBeeReactive adapter) {
+
+        if (source == null || failed.contains(adapter)) {
+            return;
+        }
+
+        var previous = lastHeard.put(source, adapter);
+
+        if (previous != adapter) {
+            logger.debug("{}: now routed through {}", () -> source, adapter::getName);
+        }
+    }
+
+    private void failed(XBeeReactive adapter, Throwable error) {
+
+        logger.error("{}: incoming frames failed, taking the adapter out of the routing", adapter.getName(), error);
+
+        failed.add(adapter);
+        lastHeard.values().removeIf(a -> a == adapter);
+    }
+
+    /**
+     * @return Managed adapters, in the order they were given, including the ones taken out of the routing.
+     */
+    public List<XBeeReactive> getAdapters() {
+        return adapters;
+    }
+
+    /**
+     * Get the adapter to talk to the remote XBee through.
+     *
+     * @param destination Remote XBee address.
+     *
+     * @return The adapter that heard from it last, or the least busy one if none did yet.
+     *
+     * @exception IllegalStateException if every adapter was taken out of the routing.
+     */
+    public XBeeReactive getAdapter(XBeeAddress64 destination) {
+
+        var result = lastHeard.get(destination);
+
+        return result != null && !failed.contains(result) ? result : getLeastBusy();
+    }
+
+    /**
+     * @return Adapter with the fewest requests in flight and waiting for a frame ID, the first one if it's a tie.
+     * Adapters taken out of the routing are skipped.
+     *
+     * @exception IllegalStateException if every adapter was taken out of the routing.
+     */
+    public XBeeReactive getLeastBusy() {
+
+        XBeeReactive result = null;
+        var min = Integer.MAX_VALUE;
+
+        for (var adapter : adapters) {
+
+            if (failed.contains(adapter)) {
+                continue;
+            }
+
+            var pending = adapter.getPendingRequests();
+            var load = pending.size() + pending.getWaiting();
+
+            if (load < min) {
+                min = load;
+                result = adapter;
+            }
+        }
+
+        if (result == null) {
+            throw new IllegalStateException("all adapters failed");
+        }
+
+        return result;
+    }
+
+    /**
+     * Send a request to a remote XBee and expect a response.
+     *
+     * @param destination Remote XBee address, used to pick the adapter. The request must be addressed to it.
+     * @param rq Request to send.
+     * @param timeout Timeout to wait for response, {@code null} to wait indefinitely.
+     *
+     * @return See {@link XBeeReactive#send(XBeeRequest, Duration)}.
+     */
+    public Mono<AdapterFrame> send(XBeeAddress64 destination, XBeeRequest rq, Duration timeout) {
+        return Mono.defer(() -> {
+
+            var adapter = getAdapter(destination);
+
+            return adapter
+                    .send(rq, timeout)
+                    .map(frame -> new AdapterFrame(adapter, frame));
+        });
+    }
+
+    /**
+     * Send a request to a remote XBee, don't wait for a response.
+     *
+     * @param destination Remote XBee address, used to pick the adapter. The request must be addressed to it.
+     * @param rq Request to send.
+     *
+     * @return See {@link XBeeReactive#sendAsync(XBeeRequest)}.
+     */
+    public Mono<Void> sendAsync(XBeeAddress64 destination, XBeeRequest rq) {
+        return getAdapter(destination).sendAsync(rq);
+    }
+
+    /**
+     * Poll several remote XBees at once.
+     *
+     * Every request goes through the adapter that {@link #getAdapter(XBeeAddress64) serves} its destination,
+     * and the adapters work in parallel, so the more adapters, the faster the round completes.
+     *
+     * @param destinations Remote XBees to poll.
+     * @param request Function producing the request addressed to the given XBee.
+     * @param timeout Timeout to wait for every response.
+     *
+     * @return Flux of responses as they arrive. Timed out requests produce nothing.
+     */
+    public Flux<AdapterFrame> poll(Collection<XBeeAddress64> destinations, Function<XBeeAddress64, XBeeRequest> request, Duration timeout) {
+        return Flux
+                .fromIterable(destinations)
+                .flatMap(destination -> send(destination, request.apply(destination), timeout), destinations.size() + 1);
+    }
+
+    /**
+     * Get the flux of all incoming XBee packets from all adapters.
+     *
+     * @return Merged flux of incoming XBee packets, with the adapter they came through. It will error out if
+     * any of the adapters has a hardware problem.
+     */
+    public Flux<AdapterFrame> receive() {
+        return Flux.merge(Flux
+                .fromIterable(adapters)
+                .map(adapter -> adapter.receive().map(frame -> new AdapterFrame(adapter, frame))));
+    }
+
+    /**
+     * Browse all the networks at once.
+     *
+     * Every node discovered becomes routed through the adapter that discovered it.
+     *
+     * @param timeout How long to collect the responses for, {@code null} to use the node discovery timeout
+     * of each adapter.
+     *
+     * @return Merged flux of nodes discovered by all adapters.
+     */
+    public Flux<AdapterNode> browse(Duration timeout) {
+
+        var browser = new NetworkBrowser();
+
+        return Flux
+                .fromIterable(adapters)
+                .flatMap(adapter -> {
+
+                    var discovered = timeout == null
+                            ? browser.browse(adapter).flatMapMany(result -> result.discovered)
+                            : browser.browse(adapter, timeout);
+
+                    return discovered.map(node -> new AdapterNode(adapter, node));
+                })
+                .doOnNext(found -> heard(found.node.address64, found.adapter));
+    }
+
+    /**
+     * Close all the adapters.
+     *
+     * @exception IOException if any of the adapters failed to close. Their failures are attached as suppressed
+     * exceptions. The rest of the adapters are closed regardless.
+     */
+    @Override
+    public void close() throws IOException {
+
+        routeSubscriptions.forEach(Disposable::dispose);
+
+        IOException failure = null;
+
+        for (var adapter : adapters) {
+            try {
+                adapter.close();
+            } catch (Exception ex) {
+
+                logger.error("{}: failed to close", adapter.getName(), ex);
+
+                if (failure == null) {
+                    failure = new IOException("failed to close some adapters, see suppressed exceptions");
+                }
+
+                failure.addSuppressed(ex);
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
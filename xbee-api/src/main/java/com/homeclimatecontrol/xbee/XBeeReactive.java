@@ -1,33 +1,35 @@
 package com.homeclimatecontrol.xbee;
 
+import com.homeclimatecontrol.xbee.response.DecoderStats;
 import com.homeclimatecontrol.xbee.response.frame.ATCommandResponse;
-import com.homeclimatecontrol.xbee.response.frame.FrameIdAwareResponse;
 import com.homeclimatecontrol.xbee.response.frame.XBeeResponseFrame;
+import com.homeclimatecontrol.xbee.trace.FrameTracer;
+import com.homeclimatecontrol.xbee.trace.TraceEvent;
+import com.homeclimatecontrol.xbee.transport.SerialTransport;
+import com.homeclimatecontrol.xbee.transport.XBeeTransport;
+import com.homeclimatecontrol.xbee.util.LatencyHistogram;
 import com.rapplogic.xbee.api.AtCommand;
+import com.rapplogic.xbee.api.XBeeAddress64;
 import com.rapplogic.xbee.api.XBeeRequest;
 import com.rapplogic.xbee.util.ByteUtils;
-import gnu.io.CommPort;
-import gnu.io.CommPortIdentifier;
-import gnu.io.PortInUseException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.apache.logging.log4j.ThreadContext;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.FluxSink;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.time.Duration;
-import java.time.Instant;
-import java.util.AbstractMap;
-import java.util.Enumeration;
-import java.util.Map;
-import java.util.TreeMap;
-import java.util.concurrent.CompletableFuture;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Reactive implementation of XBee serial port driver.
+ * Reactive implementation of XBee driver.
+ *
+ * Talks to the XBee over a {@link XBeeTransport}, a serial port by default. If the connection is lost,
+ * the transport is reopened according to the {@link ReconnectPolicy}, and {@link #receive()} subscribers carry on.
  *
  * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
  *
@@ -35,16 +37,37 @@ import java.util.concurrent.CompletableFuture;
  */
 public class XBeeReactive implements AutoCloseable {
 
+    /**
+     * How many frame events {@link #getTracer()} keeps.
+     */
+    public static final int TRACE_CAPACITY = 4096;
+
+    /**
+     * How long the frame ID of a {@link #sendAsync(XBeeRequest) request sent asynchronously} stays reserved
+     * waiting for the response.
+     */
+    public static final Duration STATUS_TIMEOUT = Duration.ofSeconds(30);
+
     private final Logger logger = LogManager.getLogger();
 
-    private final CommPort serialPort;
+    private final XBeeTransport transport;
     private final HardwareReader reader;
     private final HardwareWriter writer;
+    private final PendingRequests pending = new PendingRequests();
+    private final FrameTracer tracer = new FrameTracer(TRACE_CAPACITY);
+    private final DestinationLimiter destinationLimiter = new DestinationLimiter();
+    private final ReconnectPolicy reconnectPolicy;
+    private final ConnectionStats connectionStats = new ConnectionStats();
 
-    private FluxSink<Map.Entry<XBeeRequest, CompletableFuture<Void>>> sendSink;
+    /**
+     * Guards the transport while it is being reopened, and {@link #closing}.
+     */
+    private final Object reconnectLock = new Object();
+
+    private boolean closing = false;
 
     /**
-     * Create an instance.
+     * Create an instance talking to a serial port.
      *
      * The instance starts in the background and becomes operational immediately.
      *
@@ -53,41 +76,177 @@ public class XBeeReactive implements AutoCloseable {
      * @exception IOException if there was a problem talking to hardware.
      */
     public XBeeReactive(String port) throws IOException {
+        this(new SerialTransport(port));
+    }
+
+    /**
+     * Create an instance talking over an arbitrary transport.
+     *
+     * The instance starts in the background and becomes operational immediately.
+     *
+     * @param transport Transport to use. It will be opened by this constructor and closed by {@link #close()}.
+     *
+     * @exception IOException if there was a problem talking to hardware.
+     */
+    public XBeeReactive(XBeeTransport transport) throws IOException {
+        this(transport, ReconnectPolicy.DEFAULT);
+    }
+
+    /**
+     * Create an instance talking over an arbitrary transport.
+     *
+     * The instance starts in the background and becomes operational immediately.
+     *
+     * @param transport Transport to use. It will be opened by this constructor and closed by {@link #close()}.
+     * @param reconnectPolicy What to do if the connection is lost.
+     *
+     * @exception IOException if there was a problem talking to hardware.
+     */
+    public XBeeReactive(XBeeTransport transport, ReconnectPolicy reconnectPolicy) throws IOException {
+        this(transport, reconnectPolicy, WriteScheduling.STRICT);
+    }
+
+    /**
+     * Create an instance talking over an arbitrary transport.
+     *
+     * The instance starts in the background and becomes operational immediately.
+     *
+     * @param transport Transport to use. It will be opened by this constructor and closed by {@link #close()}.
+     * @param reconnectPolicy What to do if the connection is lost.
+     * @param writeScheduling How requests of different {@link Priority} classes share the link.
+     *
+     * @exception IOException if there was a problem talking to hardware.
+     */
+    public XBeeReactive(XBeeTransport transport, ReconnectPolicy reconnectPolicy, WriteScheduling writeScheduling) throws IOException {
+
+        this.transport = transport;
+        this.reconnectPolicy = reconnectPolicy;
 
         try {
-            serialPort = open(port);
+            transport.open();
 
-            logger.debug("{}: open", port);
+            logger.debug("{}: open", transport.getName());
 
-            reader = new HardwareReader(serialPort.getInputStream());
-            writer = new HardwareWriter(serialPort.getOutputStream(), getSendFlux());
+            reader = new HardwareReader(transport.getInputStream(), pending, tracer, reconnectPolicy.isEnabled() ? this::reconnect : null);
+            writer = new HardwareWriter(transport.getOutputStream(), tracer, writeScheduling);
 
         } catch (IllegalArgumentException ex) {
             // Pass it on
             throw ex;
         } catch (Exception ex) {
-            throw new IOException(port + ": failed to initialize", ex);
+            throw new IOException(transport.getName() + ": failed to initialize", ex);
         }
     }
 
-    private CommPort open(String port) throws PortInUseException {
+    /**
+     * Reopen the transport, with a backoff. Called on the reader thread.
+     *
+     * @return The new input stream.
+     */
+    private InputStream reconnect(IOException cause) throws IOException {
 
-        var portsAvailable = (Enumeration<CommPortIdentifier>) CommPortIdentifier.getPortIdentifiers(); // NOSONAR Unavoidable
-        var portsFound = new TreeMap<String, CommPortIdentifier>();
+        var lost = new ConnectionLostException(transport.getName() + ": connection lost", cause);
 
-        for (var i = portsAvailable.asIterator(); i.hasNext(); ) {
-            var found = i.next();
-            logger.debug("port found: {}", found.getName());
-            portsFound.put(found.getName(), found);
+        connectionStats.disconnected();
+        pending.failAll(lost);
+
+        // Writes fail fast until the connection is back
+        var w = writer;
+
+        if (w != null) {
+            w.setOutputStream(null);
         }
 
-        var ourPort = portsFound.get(port);
+        logger.warn("{}: connection lost, reconnecting with {}", transport.getName(), reconnectPolicy);
+
+        Duration delay = null;
+
+        for (var attempt = 1; reconnectPolicy.maxAttempts == ReconnectPolicy.FOREVER || attempt <= reconnectPolicy.maxAttempts; attempt++) {
+
+            delay = reconnectPolicy.nextDelay(delay);
+
+            synchronized (reconnectLock) {
+
+                awaitClosing(delay);
+
+                if (closing) {
+                    throw lost;
+                }
+
+                connectionStats.attempted();
+
+                try {
+
+                    reopen();
+                    connectionStats.reconnected();
 
-        if (ourPort == null) {
-            throw new IllegalArgumentException(port + ": not found, available ports are: " + portsFound.keySet());
+                    logger.info("{}: reconnected, attempt {}, {}", transport.getName(), attempt, connectionStats);
+
+                    return transport.getInputStream();
+
+                } catch (IOException | RuntimeException ex) {
+                    logger.warn("{}: reconnect attempt {} failed: {}", transport.getName(), attempt, ex.getMessage());
+                }
+            }
+        }
+
+        throw new ConnectionLostException(transport.getName() + ": gave up reconnecting after " + reconnectPolicy.maxAttempts + " attempt[s]", cause);
+    }
+
+    private void reopen() throws IOException {
+
+        try {
+            transport.close();
+        } catch (IOException ex) {
+            logger.debug("{}: close before reopen failed, ignored: {}", transport.getName(), ex.getMessage());
         }
 
-        return ourPort.open("xbee-api", 9600);
+        transport.open();
+
+        var w = writer;
+
+        if (w != null) {
+            w.setOutputStream(transport.getOutputStream());
+        }
+    }
+
+    /**
+     * Wait for the delay to expire, or {@link #close()} to be called, whichever comes first.
+     * Must be called with {@link #reconnectLock} held.
+     */
+    private void awaitClosing(Duration delay) throws InterruptedIOException {
+
+        var deadline = System.nanoTime() + delay.toNanos();
+        long left;
+
+        try {
+            while (!closing && (left = deadline - System.nanoTime()) > 0) {
+                TimeUnit.NANOSECONDS.timedWait(reconnectLock, left);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            var iex = new InterruptedIOException("Interrupted while waiting to reconnect");
+            iex.initCause(ex);
+            throw iex;
+        }
+    }
+
+    /**
+     * Get the connection statistics.
+     *
+     * @return Counters of connection losses, reconnect attempts and downtime.
+     */
+    public ConnectionStats getConnectionStats() {
+        return connectionStats;
+    }
+
+    /**
+     * Get the adapter name.
+     *
+     * @return Name of the transport this instance talks over.
+     */
+    public String getName() {
+        return transport.getName();
     }
 
     /**
@@ -99,11 +258,86 @@ public class XBeeReactive implements AutoCloseable {
      * there was a hardware problem.
      */
     public Mono<Void> sendAsync(XBeeRequest rq) {
+        return sendAsync(rq, Priority.NORMAL);
+    }
+
+    /**
+     * Send a request that requires no response, with the given priority.
+     *
+     * The request is submitted right away, whether the returned Mono is subscribed to or not. Unless its frame ID
+     * is {@link XBeeRequest#NO_RESPONSE_FRAME_ID}, it is sent with a frame ID allocated by this instance, just like
+     * {@link #send(XBeeRequest, Duration)} does, and the frame ID stays reserved until the response (typically,
+     * a transmit status) comes, or {@link #STATUS_TIMEOUT} expires. This way, the response can't be mistaken for
+     * the response to another request.
+     *
+     * Requests to remote XBees count against the {@link #getDestinationLimiter() per-destination limit} until
+     * their response comes, or until they are written if they don't expect one.
+     *
+     * @param rq Request to send.
+     * @param priority Priority class of the request.
+     *
+     * @return Mono that will be completed when the request is actually sent, or errors out if
+     * there was a hardware problem.
+     */
+    public Mono<Void> sendAsync(XBeeRequest rq, Priority priority) {
 
-        var written = new CompletableFuture<Void>();
-        getSendSink().next(new AbstractMap.SimpleEntry<>(rq, written));
+        var sent = destinationLimiter
+                .acquire(rq.getDestinationAddress64())
+                .flatMap(permit -> sendAsyncPermitted(rq, priority, permit))
+                .toFuture();
 
-        return Mono.fromFuture(written);
+        return Mono.fromFuture(sent);
+    }
+
+    private Mono<Void> sendAsyncPermitted(XBeeRequest rq, Priority priority, DestinationLimiter.Permit permit) {
+
+        if (rq.getFrameId() == XBeeRequest.NO_RESPONSE_FRAME_ID) {
+
+            // Nothing will come back, the request is done with once it is written
+            tracer.record(TraceEvent.SEND, rq.getApiId().getId(), rq.getFrameId(), 0);
+
+            var ticket = new WriteTicket(rq, rq.getFrameId(), 0, priority);
+
+            ticket.written.whenComplete((ignored, ex) -> permit.release());
+
+            return write(ticket);
+        }
+
+        return pending
+                .acquire(rq)
+                .doOnError(ex -> permit.release())
+                .flatMap(request -> {
+
+                    tracer.record(TraceEvent.SEND, rq.getApiId().getId(), request.frameId, 0);
+
+                    var ticket = new WriteTicket(rq, request.frameId, 0, priority);
+                    Runnable done = () -> {
+                        pending.evict(request);
+                        permit.release();
+                    };
+
+                    ticket.written.whenComplete((ignored, ex) -> {
+
+                        if (ex != null) {
+                            done.run();
+                            return;
+                        }
+
+                        // Nobody's waiting for the response, but the frame ID and the permit are taken until it comes
+                        request.response
+                                .orTimeout(STATUS_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)
+                                .whenComplete((response, timeout) -> done.run());
+                    });
+
+                    return write(ticket);
+                });
+    }
+
+    private Mono<Void> write(WriteTicket ticket) {
+
+        writer.submit(ticket);
+
+        return Mono.fromFuture(ticket.written);
     }
 
     /**
@@ -121,54 +355,103 @@ public class XBeeReactive implements AutoCloseable {
      *
      * The response to this call will also be emitted in the flux returned by {@link #receive} call.
      *
+     * The request is sent with a frame ID allocated by this instance, not the one it was created with
+     * (see {@link #getPendingRequests()}). If all frame IDs are in flight, the request waits until one is released.
+     * Requests to remote XBees also wait if their destination has too many requests in flight already
+     * (see {@link #getDestinationLimiter()}).
+     *
      * @param rq Request to send.
      * @param timeout Timeout to wait for response, {@code null} to wait indefinitely (be careful with it, eh?).
      *
      * @return Mono with a response, or empty Mono if the response didn't come within timeout, or error Mono if
-     * there was a hardware problem.
+     * there was a hardware problem. Nothing is sent until it is subscribed to. Neither sending nor waiting for
+     * the response blocks the subscriber's thread, so it is safe to subscribe to on any scheduler.
+     * The {@link FrameTracer#TRACE_ID} found in the subscriber's context is carried along with the request.
      */
     public Mono<XBeeResponseFrame> send(XBeeRequest rq, Duration timeout) {
+        return send(rq, timeout, Priority.NORMAL);
+    }
+
+    /**
+     * Send a request with the given priority and expect a response.
+     *
+     * See {@link #send(XBeeRequest, Duration)} for details.
+     *
+     * @param rq Request to send.
+     * @param timeout Timeout to wait for response, {@code null} to wait indefinitely.
+     * @param priority Priority class of the request. It decides how soon the request is written, the response
+     * takes as long as it takes.
+     *
+     * @return Mono with a response, or empty Mono if the response didn't come within timeout, or error Mono if
+     * there was a hardware problem.
+     */
+    public Mono<XBeeResponseFrame> send(XBeeRequest rq, Duration timeout, Priority priority) {
+        return send(rq, timeout, priority, destinationLimiter.acquire(rq.getDestinationAddress64()));
+    }
+
+    /**
+     * Send a request with a per-destination limit of its own, instead of {@link DestinationLimiter#getMaxInFlight()}.
+     *
+     * Used by {@link AtSession}, so that its window is not silently capped by the default limit.
+     *
+     * @param maxInFlight See {@link DestinationLimiter#acquire(XBeeAddress64, int)}.
+     */
+    Mono<XBeeResponseFrame> send(XBeeRequest rq, Duration timeout, Priority priority, int maxInFlight) {
+        return send(rq, timeout, priority, destinationLimiter.acquire(rq.getDestinationAddress64(), maxInFlight));
+    }
+
+    private Mono<XBeeResponseFrame> send(XBeeRequest rq, Duration timeout, Priority priority, Mono<DestinationLimiter.Permit> permit) {
 
         if (rq.getFrameId() == XBeeRequest.NO_RESPONSE_FRAME_ID) {
             throw new IllegalArgumentException("Invalid FrameID of zero for synchronous request, see https://www.digi.com/resources/documentation/Digidocs/90001942-13/reference/r_zigbee_frame_examples.htm");
         }
 
-        ThreadContext.push("send");
-        try {
+        return Mono.deferContextual(context -> {
 
-            var frameId = rq.getFrameId();
-            logger.debug("Expecting frameId={}", () -> ByteUtils.toBase16(frameId));
-            return Mono.create(sink -> {
-                try {
+            var traceId = FrameTracer.getTraceId(context);
+
+            // Wait for the destination to have room before taking a frame ID, so a dead node can't hog them
+            return permit
+                    .flatMap(p -> sendPermitted(rq, timeout, priority, traceId)
+                            .doFinally(ignored -> p.release()));
+        });
+    }
 
-                    // Make sure that the request was indeed sent before waiting
-                    sendAsync(rq).block();
+    private Mono<XBeeResponseFrame> sendPermitted(XBeeRequest rq, Duration timeout, Priority priority, long traceId) {
 
-                    var rawResponse = receive();
+        return pending
+                .acquire(rq)
+                .flatMap(request -> {
+
+                    var frameId = request.frameId;
+
+                    tracer.record(TraceEvent.SEND, rq.getApiId().getId(), frameId, 0, traceId);
+                    logger.debug("Expecting frameId={}, traceId={}", () -> ByteUtils.toBase16(frameId), () -> traceId);
+
+                    // Don't let the subscribers run on the reader thread, it has better things to do
+                    var response = Mono
+                            .fromFuture(request.response)
+                            .publishOn(Schedulers.boundedElastic());
                     var timedResponse = timeout == null
-                            ? rawResponse
-                            : rawResponse.take(timeout).doOnComplete(() -> logger.debug("timed: done"));
-
-                    var response = timedResponse
-                            .filter(FrameIdAwareResponse.class::isInstance)
-                            .map(FrameIdAwareResponse.class::cast)
-                            .filter(rsp -> rsp.frameId == frameId)
-                            .blockFirst();
-
-                    sink.success(response);
-                } catch (Exception ex) {
-                    sink.error(ex);
-                }
-            });
-        } finally {
-            ThreadContext.pop();
-        }
+                            ? response
+                            : response.timeout(timeout, Mono.<XBeeResponseFrame>empty()
+                                    .doOnSubscribe(ignored -> logger.debug("frameId={}: timed out", () -> ByteUtils.toBase16(frameId))));
+
+                    // Start the clock only when the request was indeed sent.
+                    // Release the frame ID before the result is seen downstream, not after.
+                    return write(new WriteTicket(rq, frameId, traceId, priority))
+                            .then(timedResponse)
+                            .doOnTerminate(() -> pending.evict(request))
+                            .doOnCancel(() -> pending.evict(request));
+                });
     }
 
     /**
      * Get the flux of all incoming XBee packets.
      *
      * This flux will contain the packets returned as a result of a {@link #send(XBeeRequest, Duration)} call as well.
+     * Every subscriber gets its own {@link ReceiveOptions#DEFAULT} buffer. It never drops frames, a subscriber
+     * that can't keep up makes it grow instead. Use {@link #receive(ReceiveOptions)} to bound it.
      *
      * @return Flux of all incoming XBee packets. It will error out if there was a hardware problem.
      */
@@ -176,45 +459,157 @@ public class XBeeReactive implements AutoCloseable {
         return reader.receive();
     }
 
-    private Flux<Map.Entry<XBeeRequest, CompletableFuture<Void>>> getSendFlux() {
-        return Flux
-                .create(this::connect)
-                .doOnSubscribe(ignored -> logger.debug("Subscribed:flux"))
-                .subscribeOn(Schedulers.newSingle("XbeeWriter", true));
+    /**
+     * Get the flux of all incoming XBee packets, with a buffer and overflow policy of its own.
+     *
+     * @param options Buffer size and overflow policy for this subscriber.
+     *
+     * @return Flux of all incoming XBee packets. It will error out if there was a hardware problem, or
+     * if the subscriber falls behind and the policy is {@link ReceiveOptions.Overflow#ERROR}.
+     */
+    public Flux<XBeeResponseFrame> receive(ReceiveOptions options) {
+        return reader.receive(options);
+    }
+
+    /**
+     * Get the flux of incoming XBee packets of the given type.
+     *
+     * Only the packets of this type are routed to the subscriber, it doesn't need to filter them.
+     *
+     * @param type Packet type, subtypes included.
+     *
+     * @return Flux of incoming XBee packets of this type. It will error out if there was a hardware problem.
+     */
+    public <T extends XBeeResponseFrame> Flux<T> receive(Class<T> type) {
+        return receive(type, ReceiveOptions.DEFAULT);
+    }
+
+    /**
+     * Get the flux of incoming XBee packets of the given type, with a buffer and overflow policy of its own.
+     *
+     * @param type Packet type, subtypes included.
+     * @param options Buffer size and overflow policy for this subscriber.
+     *
+     * @return Flux of incoming XBee packets of this type.
+     */
+    public <T extends XBeeResponseFrame> Flux<T> receive(Class<T> type, ReceiveOptions options) {
+        return reader.receive(type, options);
+    }
+
+    /**
+     * Get the flux of incoming XBee packets sent by the given remote XBee.
+     *
+     * Only the packets carrying this source address (see {@link XBeeResponseFrame#getSourceAddress64()}) are routed
+     * to the subscriber.
+     *
+     * @param source 64 bit address of the remote XBee.
+     *
+     * @return Flux of incoming XBee packets from this XBee. It will error out if there was a hardware problem.
+     */
+    public Flux<XBeeResponseFrame> receiveFrom(XBeeAddress64 source) {
+        return receiveFrom(source, ReceiveOptions.DEFAULT);
     }
 
-    private synchronized void connect(FluxSink<Map.Entry<XBeeRequest, CompletableFuture<Void>>> sink) {
-        logger.debug("Sink connected");
-        sendSink = sink;
-        notifyAll();
+    /**
+     * Get the flux of incoming XBee packets sent by the given remote XBee, with a buffer and overflow policy of its own.
+     *
+     * @param source 64 bit address of the remote XBee.
+     * @param options Buffer size and overflow policy for this subscriber.
+     *
+     * @return Flux of incoming XBee packets from this XBee.
+     */
+    public Flux<XBeeResponseFrame> receiveFrom(XBeeAddress64 source, ReceiveOptions options) {
+        return reader.receiveFrom(source, options);
     }
 
-    private synchronized FluxSink<Map.Entry<XBeeRequest, CompletableFuture<Void>>> getSendSink() {
+    /**
+     * Get the subscriber statistics.
+     *
+     * @return Lag and drop counters of every active subscriber.
+     */
+    public List<ReceiveStats> getReceiveStats() {
+        return reader.getReceiveStats();
+    }
 
-        var start = Instant.now();
+    /**
+     * Get the requests awaiting a response.
+     *
+     * @return Frame ID allocator and pending request table of this instance.
+     */
+    public PendingRequests getPendingRequests() {
+        return pending;
+    }
 
-        while (sendSink == null) {
-            logger.debug("Waiting for sendSink...");
-            try {
-                wait();
-            } catch (InterruptedException ex) {
-                Thread.currentThread().interrupt();
-                throw new IllegalStateException("Interrupted while waiting for sendSink", ex);
-            }
-        }
+    /**
+     * Get the receive latency.
+     *
+     * @return Histogram of the time between the bytes arriving from the transport and the frame decoded from them
+     * being emitted into {@link #receive()}.
+     */
+    public LatencyHistogram getReceiveLatency() {
+        return reader.getLatency();
+    }
+
+    /**
+     * Get the frame tracer.
+     *
+     * @return Tracer recording this instance's frame events. It is disabled until
+     * {@link FrameTracer#setEnabled(boolean) enabled}, and costs next to nothing until then.
+     */
+    public FrameTracer getTracer() {
+        return tracer;
+    }
+
+    /**
+     * Get the receive error counters.
+     *
+     * @return Counters of frames received, and frames dropped because they were damaged on the way.
+     */
+    public DecoderStats getDecoderStats() {
+        return reader.getDecoderStats();
+    }
+
+    /**
+     * Get the per-destination in-flight limiter.
+     *
+     * @return Limiter applied to {@link #send(XBeeRequest, Duration)} and {@link #sendAsync(XBeeRequest)} calls
+     * to remote XBees. Its limit can be changed at any time.
+     */
+    public DestinationLimiter getDestinationLimiter() {
+        return destinationLimiter;
+    }
 
-        logger.debug("Got sendSink {}ms later", Duration.between(start, Instant.now()).toMillis());
-        return sendSink;
+    /**
+     * Get the writer lane statistics.
+     *
+     * @return Queue depth, write count and queue wait time of every {@link Priority} lane, in priority order.
+     */
+    public List<WriteLaneStats> getWriteStats() {
+        return writer.getLaneStats();
+    }
+
+    /**
+     * Get the send queue depth.
+     *
+     * @return Number of requests submitted, but not yet written to the transport.
+     */
+    public int getSendQueueDepth() {
+        return writer.getQueueDepth();
     }
 
     @Override
     public void close() throws Exception {
 
-        sendSink.complete();
+        synchronized (reconnectLock) {
+            closing = true;
+            reconnectLock.notifyAll();
+        }
+
+        pending.failAll(new IOException(transport.getName() + ": closed"));
 
         reader.close();
         writer.close();
 
-        serialPort.close();
+        transport.close();
     }
 }
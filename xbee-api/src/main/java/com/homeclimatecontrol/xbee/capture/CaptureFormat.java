@@ -0,0 +1,99 @@
+package com.homeclimatecontrol.xbee.capture;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Raw byte stream capture file format.
+ *
+ * The file starts with a header: the {@link #MAGIC} bytes followed by the {@link #VERSION} byte. What follows is
+ * a sequence of records, one per chunk the transport handed over:
+ *
+ * <ul>
+ *     <li>time since the previous record arrived, in nanoseconds, as an unsigned LEB128 varint;</li>
+ *     <li>chunk length, as an unsigned LEB128 varint;</li>
+ *     <li>the chunk itself, raw, exactly as it came from the transport (start delimiters, escapes and all).</li>
+ * </ul>
+ *
+ * The file is append only. Every recording session starts with a zero delay record, so the time between sessions
+ * is not preserved.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public class CaptureFormat {
+
+    static final byte[] MAGIC = { 'X', 'B', 'C', 'P' };
+    static final byte VERSION = 1;
+
+    public static final int HEADER_LENGTH = MAGIC.length + 1;
+
+    /**
+     * Longest possible varint encoding of a long.
+     */
+    static final int MAX_VARINT_LENGTH = 10;
+
+    private CaptureFormat() {
+    }
+
+    static void writeHeader(ByteBuffer target) {
+        target.put(MAGIC);
+        target.put(VERSION);
+    }
+
+    /**
+     * Check the header, and position the buffer right after it.
+     *
+     * @exception IOException if this is not a capture file, or a version this code can't read.
+     */
+    static void readHeader(ByteBuffer source) throws IOException {
+
+        if (source.remaining() < HEADER_LENGTH) {
+            throw new IOException("Not a capture file: too short");
+        }
+
+        for (var b : MAGIC) {
+            if (source.get() != b) {
+                throw new IOException("Not a capture file: bad magic");
+            }
+        }
+
+        var version = source.get();
+
+        if (version != VERSION) {
+            throw new IOException("Unsupported capture version " + version + ", expected " + VERSION);
+        }
+    }
+
+    static void writeVarLong(ByteBuffer target, long value) {
+
+        while ((value & ~0x7FL) != 0) {
+            target.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        target.put((byte) value);
+    }
+
+    /**
+     * @exception BufferUnderflowException if the varint is truncated.
+     * @exception IllegalArgumentException if the varint is too long to be valid.
+     */
+    static long readVarLong(ByteBuffer source) {
+
+        var result = 0L;
+
+        for (var shift = 0; shift < 64; shift += 7) {
+
+            var b = source.get();
+
+            result |= (long) (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+
+        throw new IllegalArgumentException("Malformed varint at offset " + source.position());
+    }
+}
@@ -0,0 +1,126 @@
+package com.homeclimatecontrol.xbee.capture;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Iterates over the records of a capture.
+ *
+ * Nothing is copied, the chunks are views of the source buffer. See {@link CaptureFormat} for the file format.
+ *
+ * This object is NOT thread safe.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public class CaptureReader {
+
+    private final ByteBuffer source;
+
+    private long offsetNanos;
+    private ByteBuffer chunk;
+
+    /**
+     * Create an instance.
+     *
+     * @param source Capture contents, starting with the header. Its position will be advanced as records are read.
+     *
+     * @exception IOException if this is not a capture, or a version this code can't read.
+     */
+    public CaptureReader(ByteBuffer source) throws IOException {
+        this.source = source;
+        CaptureFormat.readHeader(source);
+    }
+
+    /**
+     * Memory map the capture file.
+     *
+     * The mapping stays valid after this method returns, even though the file is closed.
+     *
+     * @param path Capture file.
+     *
+     * @return Reader over the file contents.
+     *
+     * @exception IOException if the file can't be mapped, is not a capture, or is larger than 2GB.
+     */
+    public static CaptureReader map(Path path) throws IOException {
+
+        try (var channel = FileChannel.open(path, READ)) {
+
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(path + ": captures over 2GB are not supported, split it");
+            }
+
+            return new CaptureReader(channel.map(READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Advance to the next record.
+     *
+     * @return {@code false} if there are no more records. A record truncated by a crash counts as no more records.
+     */
+    public boolean next() {
+
+        if (!source.hasRemaining()) {
+            return false;
+        }
+
+        var start = source.position();
+
+        try {
+
+            var delay = CaptureFormat.readVarLong(source);
+            var length = CaptureFormat.readVarLong(source);
+
+            if (length > source.remaining()) {
+                throw new BufferUnderflowException();
+            }
+
+            offsetNanos += delay;
+
+            chunk = source.slice();
+            chunk.limit((int) length);
+            source.position(source.position() + (int) length);
+
+            return true;
+
+        } catch (BufferUnderflowException | IllegalArgumentException ex) {
+
+            // Truncated tail, stay put
+            source.position(start);
+            return false;
+        }
+    }
+
+    /**
+     * @return Offset right after the last record read.
+     */
+    int getPosition() {
+        return source.position();
+    }
+
+    /**
+     * @return Time between the first record and the current record arrival, in nanoseconds.
+     */
+    public long getOffsetNanos() {
+        return offsetNanos;
+    }
+
+    /**
+     * @return The current record's chunk. The buffer belongs to the caller, and is only valid while the source is.
+     */
+    public ByteBuffer getChunk() {
+
+        if (chunk == null) {
+            throw new IllegalStateException("next() hasn't been called yet");
+        }
+
+        return chunk;
+    }
+}
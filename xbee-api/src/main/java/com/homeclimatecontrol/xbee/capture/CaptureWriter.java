@@ -0,0 +1,179 @@
+package com.homeclimatecontrol.xbee.capture;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Appends the raw byte stream, with arrival timestamps, to a capture file.
+ *
+ * Records are buffered in memory and written out when the buffer fills up, on {@link #flush()}, and on {@link #close()}.
+ * See {@link CaptureFormat} for the file format.
+ *
+ * This object is thread safe, but it's meant to be fed by one thread - the one reading the transport.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public class CaptureWriter implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Logger logger = LogManager.getLogger();
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /**
+     * When the previous record arrived, as returned by {@link System#nanoTime()}. Meaningless before the first one.
+     */
+    private long lastNanos;
+
+    private long records;
+    private boolean closed = false;
+
+    /**
+     * Open the capture file for appending, create it if it doesn't exist.
+     *
+     * @param path File to write to.
+     *
+     * @exception IOException if the file can't be opened, or exists and is not a capture file.
+     */
+    public CaptureWriter(Path path) throws IOException {
+
+        this.path = path;
+        this.channel = FileChannel.open(path, CREATE, READ, WRITE);
+
+        try {
+
+            if (channel.size() == 0) {
+
+                CaptureFormat.writeHeader(buffer);
+                flush();
+
+            } else {
+                seekToEnd();
+            }
+
+        } catch (IOException ex) {
+            channel.close();
+            throw new IOException(path + ": can't open", ex);
+        }
+    }
+
+    /**
+     * Position the channel after the last complete record, dropping the tail a crash may have left truncated.
+     */
+    private void seekToEnd() throws IOException {
+
+        var size = channel.size();
+
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("captures over 2GB are not supported, start a new one");
+        }
+
+        var reader = new CaptureReader(channel.map(READ_ONLY, 0, size));
+
+        while (reader.next()) {
+            // Just skipping
+        }
+
+        var end = reader.getPosition();
+
+        if (end < size) {
+            logger.warn("{}: truncated record at offset {}, dropped {} bytes", path, end, size - end);
+            channel.truncate(end);
+        }
+
+        channel.position(end);
+
+        logger.info("{}: appending to existing capture, {} bytes", path, end);
+    }
+
+    /**
+     * Record a chunk.
+     *
+     * @param data Buffer with the chunk.
+     * @param offset Chunk offset.
+     * @param length Chunk length.
+     * @param arrivalNanos When the chunk arrived, as returned by {@link System#nanoTime()}.
+     *
+     * @exception IOException if the buffer had to be flushed and the write failed.
+     */
+    public synchronized void write(byte[] data, int offset, int length, long arrivalNanos) throws IOException {
+
+        if (closed) {
+            throw new IOException(path + ": closed");
+        }
+
+        var delay = records == 0 ? 0 : Math.max(0, arrivalNanos - lastNanos);
+        lastNanos = arrivalNanos;
+
+        if (buffer.remaining() < 2 * CaptureFormat.MAX_VARINT_LENGTH + length) {
+            flush();
+        }
+
+        CaptureFormat.writeVarLong(buffer, delay);
+        CaptureFormat.writeVarLong(buffer, length);
+
+        if (buffer.remaining() >= length) {
+            buffer.put(data, offset, length);
+        } else {
+            // Doesn't fit even into the empty buffer, write straight through
+            flush();
+            writeFully(ByteBuffer.wrap(data, offset, length));
+        }
+
+        records++;
+    }
+
+    /**
+     * Write out everything buffered so far.
+     *
+     * @exception IOException if the write failed.
+     */
+    public synchronized void flush() throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    /**
+     * @return Number of records written by this instance.
+     */
+    public synchronized long getRecordCount() {
+        return records;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+
+        if (closed) {
+            return;
+        }
+
+        try {
+            flush();
+            channel.force(false);
+        } finally {
+            closed = true;
+            channel.close();
+            logger.info("{}: closed, {} records written", path, records);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.homeclimatecontrol.xbee.request;
+
+import com.rapplogic.xbee.api.XBeeRequest;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes requests into API frames.
+ *
+ * The request writes its frame data into a reusable scratch buffer, and then the frame is written into
+ * the target buffer in a single pass, escaping the bytes and computing the checksum along the way.
+ * Nothing is allocated per frame, unless the request doesn't override {@link XBeeRequest#writeFrameData(ByteBuffer)}.
+ *
+ * This object is not thread safe.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ *
+ * @see com.homeclimatecontrol.xbee.response.FrameDecoder
+ */
+public class FrameEncoder {
+
+    private static final byte START_DELIMITER = 0x7E;
+    private static final byte ESCAPE = 0x7D;
+    private static final byte XON = 0x11;
+    private static final byte XOFF = 0x13;
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * Unescaped frame data.
+     */
+    private ByteBuffer frameData = ByteBuffer.allocate(INITIAL_CAPACITY);
+
+    /**
+     * Get the worst case encoded frame length.
+     *
+     * @param frameDataLength Frame data length.
+     *
+     * @return Encoded frame length, assuming every byte but the start delimiter needs escaping.
+     */
+    public static int getMaxEncodedLength(int frameDataLength) {
+        return 1 + 2 * (2 + frameDataLength + 1);
+    }
+
+    /**
+     * Encode the request with its own frame ID.
+     *
+     * @see #encode(XBeeRequest, byte, ByteBuffer)
+     */
+    public int encode(XBeeRequest rq, ByteBuffer target) {
+        return encode(rq, rq.getFrameId(), target);
+    }
+
+    /**
+     * Encode the request.
+     *
+     * @param rq Request to encode.
+     * @param frameId Frame ID to use instead of {@link XBeeRequest#getFrameId()}.
+     * @param target Buffer to write the frame into.
+     *
+     * @return Number of bytes written.
+     *
+     * @exception BufferOverflowException if the target doesn't have {@link #getMaxEncodedLength(int)} bytes remaining.
+     * The target is not modified in this case.
+     */
+    public int encode(XBeeRequest rq, byte frameId, ByteBuffer target) {
+
+        var length = rq.getFrameDataLength();
+
+        if (target.remaining() < getMaxEncodedLength(length)) {
+            throw new BufferOverflowException();
+        }
+
+        if (frameData.capacity() < length) {
+            frameData = ByteBuffer.allocate(Math.max(length, frameData.capacity() * 2));
+        }
+
+        frameData.clear();
+        rq.writeFrameData(frameData);
+
+        if (frameData.position() != length) {
+            throw new IllegalStateException(rq.getClass().getName() + ": declared frame data length " + length + ", wrote " + frameData.position());
+        }
+
+        // Frame ID is the second byte of the frame data for all the request types
+        frameData.put(1, frameId);
+
+        var start = target.position();
+
+        target.put(START_DELIMITER);
+        putEscaped(target, (byte) (length >> 8));
+        putEscaped(target, (byte) length);
+
+        var checksum = 0;
+
+        for (var offset = 0; offset < length; offset++) {
+
+            var b = frameData.get(offset);
+
+            checksum += b;
+            putEscaped(target, b);
+        }
+
+        putEscaped(target, (byte) (0xFF - (checksum & 0xFF)));
+
+        return target.position() - start;
+    }
+
+    private static void putEscaped(ByteBuffer target, byte b) {
+
+        if (b == START_DELIMITER || b == ESCAPE || b == XON || b == XOFF) {
+            target.put(ESCAPE);
+            target.put((byte) (b ^ 0x20));
+        } else {
+            target.put(b);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.homeclimatecontrol.xbee.response;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link FrameDecoder} error counters.
+ *
+ * A noisy link produces a steady trickle of damaged frames, and there's no point in logging every single one of them -
+ * these counters tell how bad the link is instead.
+ *
+ * This object is thread safe. It is updated by the decoder, and may be read from anywhere.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public class DecoderStats {
+
+    final AtomicLong frames = new AtomicLong();
+    final AtomicLong checksumErrors = new AtomicLong();
+    final AtomicLong resyncs = new AtomicLong();
+    final AtomicLong skippedBytes = new AtomicLong();
+    final AtomicLong invalidLengths = new AtomicLong();
+    final AtomicLong unknownFrameTypes = new AtomicLong();
+    final AtomicLong malformedFrames = new AtomicLong();
+
+    /**
+     * @return Number of frames decoded and handed over to the consumer.
+     */
+    public long getFrames() {
+        return frames.get();
+    }
+
+    /**
+     * @return Number of frames dropped because the checksum didn't match.
+     */
+    public long getChecksumErrors() {
+        return checksumErrors.get();
+    }
+
+    /**
+     * @return Number of frames abandoned halfway because an unescaped start delimiter showed up in the middle -
+     * the rest of the frame was lost, and a new one started.
+     */
+    public long getResyncs() {
+        return resyncs.get();
+    }
+
+    /**
+     * @return Number of bytes skipped while looking for the start delimiter.
+     */
+    public long getSkippedBytes() {
+        return skippedBytes.get();
+    }
+
+    /**
+     * @return Number of frames rejected because the length was zero or exceeded the maximum frame length.
+     */
+    public long getInvalidLengths() {
+        return invalidLengths.get();
+    }
+
+    /**
+     * @return Number of frames dropped because there was no reader for the frame type.
+     */
+    public long getUnknownFrameTypes() {
+        return unknownFrameTypes.get();
+    }
+
+    /**
+     * @return Number of frames with a valid checksum that the reader couldn't make sense of.
+     */
+    public long getMalformedFrames() {
+        return malformedFrames.get();
+    }
+
+    /**
+     * @return Total number of frames lost, for whatever reason.
+     */
+    public long getErrors() {
+        return getChecksumErrors() + getResyncs() + getInvalidLengths() + getUnknownFrameTypes() + getMalformedFrames();
+    }
+
+    @Override
+    public String toString() {
+        return "{frames=" + getFrames()
+                + ", checksumErrors=" + getChecksumErrors()
+                + ", resyncs=" + getResyncs()
+                + ", skippedBytes=" + getSkippedBytes()
+                + ", invalidLengths=" + getInvalidLengths()
+                + ", unknownFrameTypes=" + getUnknownFrameTypes()
+                + ", malformedFrames=" + getMalformedFrames()
+                + "}";
+    }
+}
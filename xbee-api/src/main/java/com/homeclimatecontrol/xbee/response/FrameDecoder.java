@@ -0,0 +1,314 @@
+package com.homeclimatecontrol.xbee.response;
+
+import com.homeclimatecontrol.xbee.response.frame.FrameIdAwareResponse;
+import com.homeclimatecontrol.xbee.response.frame.XBeeResponseFrame;
+import com.homeclimatecontrol.xbee.trace.FrameTracer;
+import com.homeclimatecontrol.xbee.trace.TraceEvent;
+import com.homeclimatecontrol.xbee.util.HexFormat;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+import static com.homeclimatecontrol.xbee.response.ResponseReader.ESCAPE;
+import static com.homeclimatecontrol.xbee.response.ResponseReader.FRAME_DELIMITER;
+
+/**
+ * Incremental XBee API frame decoder.
+ *
+ * Consumes arbitrary sized chunks of the raw byte stream, synchronizes on the start delimiter, unescapes the frame
+ * into a reusable buffer and validates the checksum in the same pass, and hands the frame data over to
+ * {@link ResponseReader#read(ByteBuffer)} without intermediate copies. A frame may be split across any number
+ * of chunks, and a chunk may contain any number of frames.
+ *
+ * Damaged frames don't throw exceptions, they are dropped and counted (see {@link #getStats()}). In escaped mode
+ * the start delimiter can't appear inside a frame, so an unescaped {@code 0x7E} in the middle of one means the rest
+ * of it was lost - the decoder abandons it and starts over with the new frame right away, instead of misreading it
+ * as a part of the broken one. Lengths that can't possibly be right are rejected before anything is allocated.
+ *
+ * See <a href="https://www.digi.com/resources/documentation/Digidocs/90001456-13/concepts/c_api_escaped_operating_mode.htm">API escaped operating mode (API 2)</a>
+ *
+ * This object is NOT thread safe.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public class FrameDecoder {
+
+    private enum State {
+        SYNC,
+        LENGTH_MSB,
+        LENGTH_LSB,
+        DATA,
+        CHECKSUM
+    }
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * Default maximum frame length. Larger than any frame a ZigBee module would send.
+     */
+    public static final int DEFAULT_MAX_FRAME_LENGTH = 1024;
+
+    private final Logger logger = LogManager.getLogger();
+
+    private final ResponseReader responseReader;
+    private final boolean direct;
+    private final int maxFrameLength;
+    private final FrameTracer tracer;
+    private final DecoderStats stats = new DecoderStats();
+
+    /**
+     * Unescaped frame data, starting with the frame type and not including the checksum.
+     */
+    private ByteBuffer frame;
+
+    private State state = State.SYNC;
+    private boolean escaped = false;
+    private int length;
+    private int checksum;
+    private int skipped;
+
+    /**
+     * Create an instance with a heap buffer.
+     *
+     * @param responseReader Reader to parse the decoded frames with.
+     */
+    public FrameDecoder(ResponseReader responseReader) {
+        this(responseReader, false);
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param responseReader Reader to parse the decoded frames with.
+     * @param direct {@code true} if the frame buffer must be direct.
+     */
+    public FrameDecoder(ResponseReader responseReader, boolean direct) {
+        this(responseReader, direct, DEFAULT_MAX_FRAME_LENGTH);
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param responseReader Reader to parse the decoded frames with.
+     * @param direct {@code true} if the frame buffer must be direct.
+     * @param maxFrameLength Frames declaring a longer length are considered damaged.
+     */
+    public FrameDecoder(ResponseReader responseReader, boolean direct, int maxFrameLength) {
+        this(responseReader, direct, maxFrameLength, FrameTracer.NONE);
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param responseReader Reader to parse the decoded frames with.
+     * @param direct {@code true} if the frame buffer must be direct.
+     * @param maxFrameLength Frames declaring a longer length are considered damaged.
+     * @param tracer Tracer to record the frame events into.
+     */
+    public FrameDecoder(ResponseReader responseReader, boolean direct, int maxFrameLength, FrameTracer tracer) {
+
+        if (maxFrameLength < 1 || maxFrameLength > 0xFFFF) {
+            throw new IllegalArgumentException("maxFrameLength must be 1..65535, got " + maxFrameLength);
+        }
+
+        this.responseReader = responseReader;
+        this.direct = direct;
+        this.maxFrameLength = maxFrameLength;
+        this.tracer = tracer;
+        this.frame = allocate(Math.min(INITIAL_CAPACITY, maxFrameLength));
+    }
+
+    /**
+     * Get the decoder statistics.
+     *
+     * @return Live counters, updated as the data is decoded.
+     */
+    public DecoderStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Forget the partially decoded frame, if any, and wait for the next start delimiter.
+     *
+     * Call this when the data stream is interrupted, the next byte has nothing to do with the previous one.
+     */
+    public void reset() {
+        state = State.SYNC;
+        escaped = false;
+    }
+
+    /**
+     * Consume the data, emitting frames as they become complete.
+     *
+     * Damaged frames are dropped and counted, see {@link #getStats()}.
+     *
+     * @param source Raw data to consume. Will be consumed in its entirety, unless the consumer throws an exception.
+     * @param consumer Consumer to hand over the decoded frames to.
+     */
+    public void decode(ByteBuffer source, Consumer<XBeeResponseFrame> consumer) {
+
+        while (source.hasRemaining()) {
+
+            var b = source.get();
+
+            if (b == FRAME_DELIMITER) {
+                // Never a part of a frame, escaped or not
+                startDelimiter();
+                continue;
+            }
+
+            if (state == State.SYNC) {
+                skipped++;
+                continue;
+            }
+
+            // Everything after the start delimiter may be escaped, length and checksum included
+
+            if (escaped) {
+                b ^= 0x20;
+                escaped = false;
+            } else if (b == ESCAPE) {
+                escaped = true;
+                continue;
+            }
+
+            switch (state) {
+
+                case LENGTH_MSB:
+                    length = (b & 0xFF) << 8;
+                    state = State.LENGTH_LSB;
+                    break;
+
+                case LENGTH_LSB:
+                    length |= b & 0xFF;
+                    startFrame();
+                    break;
+
+                case DATA:
+                    frame.put(b);
+                    checksum += b;
+                    if (frame.position() == length) {
+                        state = State.CHECKSUM;
+                    }
+                    break;
+
+                case CHECKSUM:
+                    state = State.SYNC;
+                    checksum += b;
+
+                    var result = complete();
+
+                    if (result != null) {
+                        consumer.accept(result);
+                    }
+
+                    break;
+
+                default:
+                    throw new IllegalStateException("Unexpected state " + state);
+            }
+        }
+    }
+
+    private void startDelimiter() {
+
+        if (state != State.SYNC) {
+            stats.resyncs.incrementAndGet();
+            tracer.record(TraceEvent.DROP, 0, 0, FrameTracer.DROP_RESYNC);
+            logger.debug("Start delimiter in {} state, frame abandoned", state);
+        }
+
+        tracer.record(TraceEvent.SYNC, 0, 0, skipped);
+
+        if (skipped > 0) {
+            stats.skippedBytes.addAndGet(skipped);
+            logger.debug("Skipped {} bytes before the start delimiter", skipped);
+            skipped = 0;
+        }
+
+        state = State.LENGTH_MSB;
+        escaped = false;
+    }
+
+    private void startFrame() {
+
+        // Zero length frame doesn't even have the frame type
+        if (length == 0 || length > maxFrameLength) {
+            stats.invalidLengths.incrementAndGet();
+            tracer.record(TraceEvent.DROP, 0, 0, FrameTracer.DROP_LENGTH);
+            logger.debug("Invalid frame length {}, looking for the next start delimiter", length);
+            state = State.SYNC;
+            return;
+        }
+
+        tracer.record(TraceEvent.HEADER, 0, 0, length);
+
+        if (length > frame.capacity()) {
+            frame = allocate(length);
+        }
+
+        frame.clear();
+        checksum = 0;
+        state = State.DATA;
+    }
+
+    /**
+     * Verify and read the frame.
+     *
+     * @return The frame, or {@code null} if it was dropped.
+     */
+    private XBeeResponseFrame complete() {
+
+        frame.flip();
+
+        if ((checksum & 0xFF) != 0xFF) {
+            stats.checksumErrors.incrementAndGet();
+            tracer.record(TraceEvent.DROP, frame.get(0), 0, FrameTracer.DROP_CHECKSUM);
+            logger.debug("Checksum mismatch, sum is {} instead of 0xFF, dropped: {}",
+                    () -> HexFormat.format((byte) checksum),
+                    () -> HexFormat.format(frame.duplicate()));
+            return null;
+        }
+
+        var type = frame.get(0);
+
+        if (!responseReader.canRead(type)) {
+            stats.unknownFrameTypes.incrementAndGet();
+            tracer.record(TraceEvent.DROP, type, 0, FrameTracer.DROP_UNKNOWN_TYPE);
+            logger.debug("No reader for frame type {}, dropped", () -> HexFormat.format(type));
+            return null;
+        }
+
+        try {
+
+            var result = responseReader.read(frame);
+
+            stats.frames.incrementAndGet();
+
+            if (tracer.isEnabled()) {
+                tracer.record(TraceEvent.DECODE, type, getFrameId(result), length);
+            }
+
+            return result;
+
+        } catch (RuntimeException ex) {
+
+            // The checksum is fine, so it's either the reader or the firmware that is broken, worth a stack trace
+            stats.malformedFrames.incrementAndGet();
+            tracer.record(TraceEvent.DROP, type, 0, FrameTracer.DROP_MALFORMED);
+            logger.error("Malformed frame, dropped", ex);
+
+            return null;
+        }
+    }
+
+    private static int getFrameId(XBeeResponseFrame frame) {
+        return frame instanceof FrameIdAwareResponse ? ((FrameIdAwareResponse) frame).frameId : 0;
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+}
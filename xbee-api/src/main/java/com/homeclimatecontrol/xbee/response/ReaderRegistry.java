@@ -0,0 +1,241 @@
+package com.homeclimatecontrol.xbee.response;
+
+import com.homeclimatecontrol.xbee.response.command.AIResponseReader;
+import com.homeclimatecontrol.xbee.response.command.APResponseReader;
+import com.homeclimatecontrol.xbee.response.command.CHResponseReader;
+import com.homeclimatecontrol.xbee.response.command.CommandResponseReader;
+import com.homeclimatecontrol.xbee.response.command.D0ResponseReader;
+import com.homeclimatecontrol.xbee.response.command.D1ResponseReader;
+import com.homeclimatecontrol.xbee.response.command.D2ResponseReader;
+import com.homeclimatecontrol.xbee.response.command.D3ResponseReader;
+import com.homeclimatecontrol.xbee.response.command.D4ResponseReader;
+import com.homeclimatecontrol.xbee.response.command.D5ResponseReader;
+import com.homeclimatecontrol.xbee.response.command.D6ResponseReader;
+import com.homeclimatecontrol.xbee.response.command.D7ResponseReader;
+import com.homeclimatecontrol.xbee.response.command.DDResponseReader;
+import com.homeclimatecontrol.xbee.response.command.GenericResponseReader;
+import com.homeclimatecontrol.xbee.response.command.HVResponseReader;
+import com.homeclimatecontrol.xbee.response.command.ISResponseReader;
+import com.homeclimatecontrol.xbee.response.command.MYResponseReader;
+import com.homeclimatecontrol.xbee.response.command.NCResponseReader;
+import com.homeclimatecontrol.xbee.response.command.NDResponseReader;
+import com.homeclimatecontrol.xbee.response.command.NIResponseReader;
+import com.homeclimatecontrol.xbee.response.command.NTResponseReader;
+import com.homeclimatecontrol.xbee.response.command.P0ResponseReader;
+import com.homeclimatecontrol.xbee.response.command.VRResponseReader;
+import com.homeclimatecontrol.xbee.response.frame.ExplicitReceiveIndicatorReader;
+import com.homeclimatecontrol.xbee.response.frame.ExtendedTransmitStatusReader;
+import com.homeclimatecontrol.xbee.response.frame.FrameReader;
+import com.homeclimatecontrol.xbee.response.frame.IOSampleIndicatorReader;
+import com.homeclimatecontrol.xbee.response.frame.LocalATCommandResponseReader;
+import com.homeclimatecontrol.xbee.response.frame.ReceivePacketReader;
+import com.homeclimatecontrol.xbee.response.frame.RemoteATCommandResponseReader;
+import com.homeclimatecontrol.xbee.response.frame.TransmitStatusReader;
+import com.rapplogic.xbee.api.AtCommand;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Arrays;
+
+import static com.homeclimatecontrol.xbee.FrameType.EXPLICIT_RECEIVE_INDICATOR;
+import static com.homeclimatecontrol.xbee.FrameType.EXTENDED_TRANSMIT_STATUS;
+import static com.homeclimatecontrol.xbee.FrameType.IO_SAMPLE_INDICATOR;
+import static com.homeclimatecontrol.xbee.FrameType.LOCAL_AT_COMMAND_RESPONSE;
+import static com.homeclimatecontrol.xbee.FrameType.RECEIVE_PACKET;
+import static com.homeclimatecontrol.xbee.FrameType.REMOTE_AT_COMMAND_RESPONSE;
+import static com.homeclimatecontrol.xbee.FrameType.TX_STATUS;
+import static com.rapplogic.xbee.api.AtCommand.Command.AI;
+import static com.rapplogic.xbee.api.AtCommand.Command.AP;
+import static com.rapplogic.xbee.api.AtCommand.Command.CH;
+import static com.rapplogic.xbee.api.AtCommand.Command.D0;
+import static com.rapplogic.xbee.api.AtCommand.Command.D1;
+import static com.rapplogic.xbee.api.AtCommand.Command.D2;
+import static com.rapplogic.xbee.api.AtCommand.Command.D3;
+import static com.rapplogic.xbee.api.AtCommand.Command.D4;
+import static com.rapplogic.xbee.api.AtCommand.Command.D5;
+import static com.rapplogic.xbee.api.AtCommand.Command.D6;
+import static com.rapplogic.xbee.api.AtCommand.Command.D7;
+import static com.rapplogic.xbee.api.AtCommand.Command.DD;
+import static com.rapplogic.xbee.api.AtCommand.Command.HV;
+import static com.rapplogic.xbee.api.AtCommand.Command.IS;
+import static com.rapplogic.xbee.api.AtCommand.Command.MY;
+import static com.rapplogic.xbee.api.AtCommand.Command.NC;
+import static com.rapplogic.xbee.api.AtCommand.Command.ND;
+import static com.rapplogic.xbee.api.AtCommand.Command.NI;
+import static com.rapplogic.xbee.api.AtCommand.Command.NT;
+import static com.rapplogic.xbee.api.AtCommand.Command.P0;
+import static com.rapplogic.xbee.api.AtCommand.Command.VR;
+
+/**
+ * Frame and AT command response reader dispatch tables.
+ *
+ * Frame readers are indexed by the frame type byte, AT commands by their two character code packed into
+ * a single index, and command response readers by the command ordinal - so the dispatch takes constant time and
+ * allocates nothing. Every command without a dedicated reader gets a {@link GenericResponseReader}.
+ *
+ * Custom readers can be registered at any time, the tables are copied on write, so registration is thread safe
+ * and doesn't slow down the dispatch. Registered readers are shared by all the {@link ResponseReader} instances,
+ * and must be thread safe.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public class ReaderRegistry {
+
+    /**
+     * AT command codes are printable ASCII, this is the first printable character.
+     */
+    private static final int CODE_BASE = 0x20;
+
+    /**
+     * Number of printable ASCII characters.
+     */
+    private static final int CODE_RANGE = 0x7F - CODE_BASE;
+
+    private static final Logger logger = LogManager.getLogger();
+
+    /**
+     * Command by its packed code, see {@link #pack(int, int)}. Never changes after initialization.
+     */
+    private static final AtCommand.Command[] code2command = new AtCommand.Command[CODE_RANGE * CODE_RANGE];
+
+    private static volatile FrameReader[] frameReaders = new FrameReader[256];
+    private static volatile CommandResponseReader[] commandReaders = new CommandResponseReader[AtCommand.Command.values().length];
+
+    static {
+
+        for (var command : AtCommand.Command.values()) {
+            code2command[pack(command.code.charAt(0), command.code.charAt(1))] = command;
+            commandReaders[command.ordinal()] = new GenericResponseReader(command);
+        }
+
+        frameReaders[LOCAL_AT_COMMAND_RESPONSE.type & 0xFF] = new LocalATCommandResponseReader();
+        frameReaders[IO_SAMPLE_INDICATOR.type & 0xFF] = new IOSampleIndicatorReader();
+        frameReaders[REMOTE_AT_COMMAND_RESPONSE.type & 0xFF] = new RemoteATCommandResponseReader();
+        frameReaders[TX_STATUS.type & 0xFF] = new TransmitStatusReader();
+        frameReaders[EXTENDED_TRANSMIT_STATUS.type & 0xFF] = new ExtendedTransmitStatusReader();
+        frameReaders[RECEIVE_PACKET.type & 0xFF] = new ReceivePacketReader();
+        frameReaders[EXPLICIT_RECEIVE_INDICATOR.type & 0xFF] = new ExplicitReceiveIndicatorReader();
+
+        commandReaders[AI.ordinal()] = new AIResponseReader();
+        commandReaders[AP.ordinal()] = new APResponseReader();
+
+        // These are similar, but different
+        commandReaders[D0.ordinal()] = new D0ResponseReader();
+        commandReaders[D1.ordinal()] = new D1ResponseReader();
+        commandReaders[D2.ordinal()] = new D2ResponseReader();
+        commandReaders[D3.ordinal()] = new D3ResponseReader();
+        commandReaders[D4.ordinal()] = new D4ResponseReader();
+        commandReaders[D5.ordinal()] = new D5ResponseReader();
+        commandReaders[D6.ordinal()] = new D6ResponseReader();
+        commandReaders[D7.ordinal()] = new D7ResponseReader();
+
+        commandReaders[DD.ordinal()] = new DDResponseReader();
+        commandReaders[CH.ordinal()] = new CHResponseReader();
+        commandReaders[HV.ordinal()] = new HVResponseReader();
+        commandReaders[IS.ordinal()] = new ISResponseReader();
+        commandReaders[MY.ordinal()] = new MYResponseReader();
+        commandReaders[NC.ordinal()] = new NCResponseReader();
+        commandReaders[ND.ordinal()] = new NDResponseReader();
+        commandReaders[NI.ordinal()] = new NIResponseReader();
+        commandReaders[NT.ordinal()] = new NTResponseReader();
+
+        commandReaders[P0.ordinal()] = new P0ResponseReader();
+        commandReaders[VR.ordinal()] = new VRResponseReader();
+    }
+
+    private ReaderRegistry() {
+    }
+
+    private static int pack(int c0, int c1) {
+
+        var i0 = c0 - CODE_BASE;
+        var i1 = c1 - CODE_BASE;
+
+        if (i0 < 0 || i0 >= CODE_RANGE || i1 < 0 || i1 >= CODE_RANGE) {
+            return -1;
+        }
+
+        return i0 * CODE_RANGE + i1;
+    }
+
+    /**
+     * Get the frame reader.
+     *
+     * @param frameType Frame type byte.
+     *
+     * @return Reader for this frame type, or {@code null} if there's none.
+     */
+    public static FrameReader getFrameReader(byte frameType) {
+        return frameReaders[frameType & 0xFF];
+    }
+
+    /**
+     * Get the command response reader.
+     *
+     * @param command AT command.
+     *
+     * @return Reader for the command response. Never {@code null}, commands without a dedicated reader get
+     * a {@link GenericResponseReader}.
+     */
+    public static CommandResponseReader getCommandReader(AtCommand.Command command) {
+        return commandReaders[command.ordinal()];
+    }
+
+    /**
+     * Resolve the AT command code.
+     *
+     * @param c0 First command code character.
+     * @param c1 Second command code character.
+     *
+     * @return The command, or {@code null} if the code is unknown.
+     */
+    public static AtCommand.Command getCommand(byte c0, byte c1) {
+
+        var index = pack(c0, c1);
+
+        return index < 0 ? null : code2command[index];
+    }
+
+    /**
+     * Register a frame reader, replacing the existing one, if any.
+     *
+     * @param frameType Frame type byte. It doesn't have to be one of {@link com.homeclimatecontrol.xbee.FrameType}.
+     * @param reader Reader to register, {@code null} to unregister.
+     *
+     * @return The reader previously registered for this frame type, or {@code null} if there was none.
+     */
+    public static synchronized FrameReader register(byte frameType, FrameReader reader) {
+
+        var copy = Arrays.copyOf(frameReaders, frameReaders.length);
+        var index = frameType & 0xFF;
+        var previous = copy[index];
+
+        copy[index] = reader;
+        frameReaders = copy;
+
+        logger.info("frameType=0x{}: registered {}, replaced {}", () -> Integer.toHexString(index), () -> reader, () -> previous);
+
+        return previous;
+    }
+
+    /**
+     * Register a command response reader, replacing the existing one.
+     *
+     * @param command AT command.
+     * @param reader Reader to register, {@code null} to go back to the {@link GenericResponseReader}.
+     *
+     * @return The reader previously registered for this command.
+     */
+    public static synchronized CommandResponseReader register(AtCommand.Command command, CommandResponseReader reader) {
+
+        var copy = Arrays.copyOf(commandReaders, commandReaders.length);
+        var previous = copy[command.ordinal()];
+
+        copy[command.ordinal()] = reader == null ? new GenericResponseReader(command) : reader;
+        commandReaders = copy;
+
+        logger.info("command={}: registered {}, replaced {}", () -> command, () -> reader, () -> previous);
+
+        return previous;
+    }
+}
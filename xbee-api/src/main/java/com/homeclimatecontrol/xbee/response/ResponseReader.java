@@ -2,9 +2,6 @@ package com.homeclimatecontrol.xbee.response;
 
 import com.homeclimatecontrol.xbee.FrameType;
 import com.homeclimatecontrol.xbee.response.frame.FrameReader;
-import com.homeclimatecontrol.xbee.response.frame.IOSampleIndicatorReader;
-import com.homeclimatecontrol.xbee.response.frame.LocalATCommandResponseReader;
-import com.homeclimatecontrol.xbee.response.frame.RemoteATCommandResponseReader;
 import com.homeclimatecontrol.xbee.response.frame.XBeeResponseFrame;
 import com.homeclimatecontrol.xbee.util.HexFormat;
 import com.homeclimatecontrol.xbee.util.XbeeChecksum;
@@ -14,29 +11,20 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
-import java.util.Map;
-
-import static com.homeclimatecontrol.xbee.FrameType.IO_SAMPLE_INDICATOR;
-import static com.homeclimatecontrol.xbee.FrameType.LOCAL_AT_COMMAND_RESPONSE;
-import static com.homeclimatecontrol.xbee.FrameType.REMOTE_AT_COMMAND_RESPONSE;
 
 /**
  * XBee response frame reader.
  *
  * See <a href="https://www.digi.com/resources/documentation/Digidocs/90002002/Content/Reference/r_api_frame_format_900hp.htm">API frame format</a>.
  *
+ * Frames are dispatched to the readers through {@link ReaderRegistry}.
+ *
  * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
  */
 public class ResponseReader {
 
     public static final byte FRAME_DELIMITER = 0x7E;
-    private static final byte ESCAPE = 0x7D;
-
-    private static final Map<FrameType, FrameReader> frame2reader = Map.of(
-            LOCAL_AT_COMMAND_RESPONSE, new LocalATCommandResponseReader(),
-            IO_SAMPLE_INDICATOR, new IOSampleIndicatorReader(),
-            REMOTE_AT_COMMAND_RESPONSE, new RemoteATCommandResponseReader()
-    );
+    static final byte ESCAPE = 0x7D;
 
     /**
      * Read the XBee response from the input stream.
@@ -57,7 +45,37 @@ public class ResponseReader {
 
         verifyChecksum(checksum, frameBuffer);
 
-        return getReader(frameBuffer[0]).read(ByteBuffer.wrap(frameBuffer, 1, frameBuffer.length - 1));
+        return read(ByteBuffer.wrap(frameBuffer));
+    }
+
+    /**
+     * Read the XBee response from the unescaped frame data.
+     *
+     * @param frame Frame data, starting with the frame type and not including the checksum.
+     *              The buffer is not retained, and may be reused by the caller as soon as this method returns.
+     *
+     * @return A newly instantiated response object.
+     */
+    public XBeeResponseFrame read(ByteBuffer frame) {
+
+        if (!frame.hasRemaining()) {
+            throw new IllegalArgumentException("Empty frame");
+        }
+
+        var type = frame.get();
+
+        return getReader(type).read(frame.slice());
+    }
+
+    /**
+     * Find out whether there is a reader for the frame type.
+     *
+     * @param type Frame type byte.
+     *
+     * @return {@code true} if {@link #read(ByteBuffer)} will be able to dispatch this frame type.
+     */
+    public boolean canRead(byte type) {
+        return ReaderRegistry.getFrameReader(type) != null;
     }
 
     /**
@@ -136,11 +154,11 @@ public class ResponseReader {
 
     private FrameReader getReader(byte type) {
 
-        var frameType = FrameType.getByType(type);
-        var result = frame2reader.get(frameType);
+        var result = ReaderRegistry.getFrameReader(type);
 
         if (result == null) {
-            throw new UnsupportedOperationException("No reader for " + frameType);
+            // Throws IllegalArgumentException if the type is unknown
+            throw new UnsupportedOperationException("No reader for " + FrameType.getByType(type));
         }
 
         return result;
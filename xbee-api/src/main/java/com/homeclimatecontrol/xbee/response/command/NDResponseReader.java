@@ -18,7 +18,7 @@ public class NDResponseReader extends CommandResponseReader {
     public CommandResponse read(ByteBuffer commandData) {
 
         var address16 = new XBeeAddress16(commandData);
-        var address64 = new XBeeAddress64(commandData);
+        var address64 = XBeeAddress64.valueOf(commandData);
         var nodeIdentifier = readNI(commandData);
         var parentAddress = new XBeeAddress16(commandData);
         var deviceType = DeviceType.valueOf(commandData.get());
@@ -0,0 +1,61 @@
+package com.homeclimatecontrol.xbee.response.frame;
+
+import com.homeclimatecontrol.xbee.util.HexFormat;
+import com.rapplogic.xbee.api.XBeeAddress16;
+import com.rapplogic.xbee.api.XBeeAddress64;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Explicit Receive Indicator frame, a {@link ReceivePacket} with the ZigBee addressing details. Comes instead of
+ * the Receive Packet when {@code AO} is not 0.
+ *
+ * See <a href="https://www.digi.com/resources/documentation/Digidocs/90002002/Default.htm#Reference/r_frame_0x91.htm">Explicit Rx Indicator</a>.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public class ExplicitReceiveIndicator extends ReceivePacket {
+
+    public final byte sourceEndpoint;
+    public final byte destinationEndpoint;
+
+    /**
+     * Unsigned 16 bit.
+     */
+    public final int clusterId;
+
+    /**
+     * Unsigned 16 bit.
+     */
+    public final int profileId;
+
+    public ExplicitReceiveIndicator(
+            XBeeAddress64 sourceAddress64,
+            XBeeAddress16 sourceAddress16,
+            byte sourceEndpoint,
+            byte destinationEndpoint,
+            int clusterId,
+            int profileId,
+            byte receiveOptions,
+            ByteBuffer data) {
+
+        super(sourceAddress64, sourceAddress16, receiveOptions, data);
+
+        this.sourceEndpoint = sourceEndpoint;
+        this.destinationEndpoint = destinationEndpoint;
+        this.clusterId = clusterId;
+        this.profileId = profileId;
+    }
+
+    @Override
+    public String toString() {
+        return "{" + getClass().getSimpleName()
+                + " sourceAddress=" + sourceAddress64 + "/" + sourceAddress16
+                + ", endpoints=" + HexFormat.format(sourceEndpoint) + "->" + HexFormat.format(destinationEndpoint)
+                + ", clusterId=" + String.format("0x%04X", clusterId)
+                + ", profileId=" + String.format("0x%04X", profileId)
+                + ", receiveOptions=" + HexFormat.format(receiveOptions)
+                + ", data=" + dataToString()
+                + "}";
+    }
+}
@@ -0,0 +1,38 @@
+package com.homeclimatecontrol.xbee.response.frame;
+
+import com.rapplogic.xbee.api.XBeeAddress16;
+import com.rapplogic.xbee.api.XBeeAddress64;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Explicit Receive Indicator reader.
+ *
+ * See <a href="https://www.digi.com/resources/documentation/Digidocs/90002002/Default.htm#Reference/r_frame_0x91.htm">Explicit Rx Indicator</a>.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public class ExplicitReceiveIndicatorReader extends FrameReader {
+
+    @Override
+    public XBeeResponseFrame read(ByteBuffer frameData) {
+
+        var sourceAddress64 = XBeeAddress64.valueOf(frameData);
+        var sourceAddress16 = new XBeeAddress16(frameData);
+        var sourceEndpoint = frameData.get();
+        var destinationEndpoint = frameData.get();
+        var clusterId = frameData.getShort() & 0xFFFF;
+        var profileId = frameData.getShort() & 0xFFFF;
+        var receiveOptions = frameData.get();
+
+        return new ExplicitReceiveIndicator(
+                sourceAddress64,
+                sourceAddress16,
+                sourceEndpoint,
+                destinationEndpoint,
+                clusterId,
+                profileId,
+                receiveOptions,
+                ReceivePacketReader.readData(frameData));
+    }
+}
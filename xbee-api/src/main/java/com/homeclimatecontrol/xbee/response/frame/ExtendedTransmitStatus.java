@@ -0,0 +1,91 @@
+package com.homeclimatecontrol.xbee.response.frame;
+
+import com.homeclimatecontrol.xbee.util.HexFormat;
+import com.rapplogic.xbee.api.XBeeAddress16;
+
+/**
+ * Extended Transmit Status frame, the outcome of a Transmit Request.
+ *
+ * See <a href="https://www.digi.com/resources/documentation/Digidocs/90002002/Default.htm#Reference/r_frame_0x8B.htm">Extended Transmit Status</a>.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public class ExtendedTransmitStatus extends FrameIdAwareResponse {
+
+    public enum DeliveryStatus {
+
+        SUCCESS((byte) 0x00),
+        MAC_ACK_FAILURE((byte) 0x01),
+        CCA_FAILURE((byte) 0x02),
+        INVALID_DESTINATION_ENDPOINT((byte) 0x15),
+        NETWORK_ACK_FAILURE((byte) 0x21),
+        NOT_JOINED_TO_NETWORK((byte) 0x22),
+        SELF_ADDRESSED((byte) 0x23),
+        ADDRESS_NOT_FOUND((byte) 0x24),
+        ROUTE_NOT_FOUND((byte) 0x25),
+        BROADCAST_SOURCE_NEIGHBOR_FAILURE((byte) 0x26),
+        INVALID_BINDING_TABLE_INDEX((byte) 0x2B),
+        RESOURCE_ERROR((byte) 0x2C),
+        ATTEMPTED_BROADCAST_WITH_APS_TX((byte) 0x2D),
+        ATTEMPTED_UNICAST_WITH_APS_TX_EE_ZERO((byte) 0x2E),
+        RESOURCE_ERROR_NO_BUFFERS((byte) 0x32),
+        PAYLOAD_TOO_LARGE((byte) 0x74),
+
+        /**
+         * The status code is not on this list. Firmware versions keep adding them, and the delivery status
+         * is not worth losing the whole frame over.
+         */
+        UNKNOWN((byte) 0xFF);
+
+        public final byte code;
+
+        DeliveryStatus(byte code) {
+            this.code = code;
+        }
+
+        private static final DeliveryStatus[] VALUES = values();
+
+        public static DeliveryStatus valueOf(byte code) {
+            for (var status : VALUES) {
+                if (status.code == code) {
+                    return status;
+                }
+            }
+            return UNKNOWN;
+        }
+    }
+
+    public final XBeeAddress16 destinationAddress16;
+    public final byte retryCount;
+    public final DeliveryStatus deliveryStatus;
+
+    /**
+     * Raw delivery status, for when {@link #deliveryStatus} is {@link DeliveryStatus#UNKNOWN}.
+     */
+    public final byte deliveryStatusCode;
+
+    /**
+     * Discovery status. The lower two bits are the address and route discovery flags, {@code 0x40} is
+     * the extended timeout discovery flag.
+     */
+    public final byte discoveryStatus;
+
+    public ExtendedTransmitStatus(byte frameId, XBeeAddress16 destinationAddress16, byte retryCount, byte deliveryStatusCode, byte discoveryStatus) {
+        super(frameId);
+        this.destinationAddress16 = destinationAddress16;
+        this.retryCount = retryCount;
+        this.deliveryStatus = DeliveryStatus.valueOf(deliveryStatusCode);
+        this.deliveryStatusCode = deliveryStatusCode;
+        this.discoveryStatus = discoveryStatus;
+    }
+
+    @Override
+    public String toString() {
+        return "{" + getClass().getSimpleName() + " frameId=" + HexFormat.format(frameId)
+                + ", destinationAddress=" + destinationAddress16
+                + ", retryCount=" + retryCount
+                + ", deliveryStatus=" + deliveryStatus + (deliveryStatus == DeliveryStatus.UNKNOWN ? "(" + HexFormat.format(deliveryStatusCode) + ")" : "")
+                + ", discoveryStatus=" + HexFormat.format(discoveryStatus)
+                + "}";
+    }
+}
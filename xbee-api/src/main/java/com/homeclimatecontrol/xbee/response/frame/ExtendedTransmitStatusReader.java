@@ -0,0 +1,26 @@
+package com.homeclimatecontrol.xbee.response.frame;
+
+import com.rapplogic.xbee.api.XBeeAddress16;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Extended Transmit Status reader.
+ *
+ * See <a href="https://www.digi.com/resources/documentation/Digidocs/90002002/Default.htm#Reference/r_frame_0x8B.htm">Extended Transmit Status</a>.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public class ExtendedTransmitStatusReader extends FrameIdAwareReader {
+
+    @Override
+    protected XBeeResponseFrame read(byte frameId, ByteBuffer frameData) {
+
+        var destinationAddress16 = new XBeeAddress16(frameData);
+        var retryCount = frameData.get();
+        var deliveryStatus = frameData.get();
+        var discoveryStatus = frameData.get();
+
+        return new ExtendedTransmitStatus(frameId, destinationAddress16, retryCount, deliveryStatus, discoveryStatus);
+    }
+}
@@ -4,43 +4,171 @@ import com.homeclimatecontrol.xbee.util.HexFormat;
 import com.rapplogic.xbee.api.XBeeAddress16;
 import com.rapplogic.xbee.api.XBeeAddress64;
 
-import java.util.BitSet;
-import java.util.Map;
-import java.util.Optional;
+/**
+ * I/O Sample Indicator frame.
+ *
+ * This is the most frequent frame on a sensor network, so it is kept as the raw frame bytes with the masks
+ * decoded into primitives, and the samples and addresses are decoded only when asked for. Use
+ * {@link IOSampleIndicatorView} if the {@code BitSet} and {@code Map} representation is more convenient.
+ *
+ * See <a href="https://www.digi.com/resources/documentation/Digidocs/90002002/Default.htm#Reference/r_frame_0x92.htm">I/O Sample Indicator</a>.
+ */
+public class IOSampleIndicator extends XBeeResponseFrame {
 
-public class IOSampleIndicator extends XBeeResponseFrame{
+    private static final int OFFSET_ADDRESS16 = 8;
+    private static final int OFFSET_RECEIVE_OPTIONS = 10;
+    private static final int OFFSET_SAMPLE_COUNT = 11;
+    private static final int OFFSET_DIGITAL_MASK = 12;
+    private static final int OFFSET_ANALOG_MASK = 14;
+    private static final int OFFSET_SAMPLES = 15;
+
+    /**
+     * Frame data past the frame type.
+     */
+    private final byte[] frameData;
 
-    public final XBeeAddress64 sourceAddress64;
-    public final XBeeAddress16 sourceAddress16;
     public final byte receiveOptions;
     public final byte sampleCount;
-    public final BitSet digitalSampleMask;
+
+    /**
+     * Bit N set means DION is sampled.
+     */
+    public final short digitalSampleMask;
+
+    /**
+     * Bit N set means ADN is sampled, bit 7 is the supply voltage.
+     */
     public final byte analogSampleMask;
-    public final Optional<BitSet> digitalSamples; // NOSONAR This is intended
 
     /**
-     * The key is the analog sample mask (frame byte at offset 18), the value is the sample.
+     * Digital sample bits, meaningful only for the pins set in {@link #digitalSampleMask}.
      */
-    public final Map<Integer, Integer> analogSamples;
-
-    public IOSampleIndicator(
-            XBeeAddress64 sourceAddress64,
-            XBeeAddress16 sourceAddress16,
-            byte receiveOptions,
-            byte sampleCount,
-            BitSet digitalSampleMask,
-            byte analogSampleMask,
-            BitSet digitalSamples,
-            Map<Integer, Integer> analogSamples) {
-
-        this.sourceAddress64 = sourceAddress64;
-        this.sourceAddress16 = sourceAddress16;
-        this.receiveOptions = receiveOptions;
-        this.sampleCount = sampleCount;
-        this.digitalSampleMask = digitalSampleMask;
-        this.analogSampleMask = analogSampleMask;
-        this.digitalSamples = digitalSamples == null ? Optional.empty() : Optional.of(digitalSamples);
-        this.analogSamples = analogSamples;
+    public final short digitalSamples;
+
+    /**
+     * Create an instance.
+     *
+     * @param frameData Frame data past the frame type. The array is retained, it must not be modified afterwards.
+     *
+     * @exception IllegalArgumentException if the frame is too short for the samples it declares.
+     */
+    public IOSampleIndicator(byte[] frameData) {
+
+        if (frameData.length < OFFSET_SAMPLES) {
+            throw new IllegalArgumentException("I/O sample frame too short, " + frameData.length + " bytes");
+        }
+
+        this.frameData = frameData;
+
+        receiveOptions = frameData[OFFSET_RECEIVE_OPTIONS];
+        sampleCount = frameData[OFFSET_SAMPLE_COUNT];
+        digitalSampleMask = getShort(OFFSET_DIGITAL_MASK);
+        analogSampleMask = frameData[OFFSET_ANALOG_MASK];
+
+        var analogOffset = OFFSET_SAMPLES + (digitalSampleMask != 0 ? 2 : 0);
+        var expected = analogOffset + 2 * Integer.bitCount(analogSampleMask & 0xFF);
+
+        if (frameData.length < expected) {
+            throw new IllegalArgumentException("I/O sample frame too short, "
+                    + frameData.length + " bytes instead of " + expected + " for the masks given");
+        }
+
+        digitalSamples = digitalSampleMask != 0 ? getShort(OFFSET_SAMPLES) : 0;
+    }
+
+    private short getShort(int offset) {
+        return (short) (((frameData[offset] & 0xFF) << 8) | (frameData[offset + 1] & 0xFF));
+    }
+
+    @Override
+    public XBeeAddress64 getSourceAddress64() {
+        long address = 0;
+
+        for (var offset = 0; offset < 8; offset++) {
+            address = (address << 8) | (frameData[offset] & 0xFF);
+        }
+
+        return XBeeAddress64.valueOf(address);
+    }
+
+    public XBeeAddress16 getSourceAddress16() {
+        return new XBeeAddress16(frameData[OFFSET_ADDRESS16] & 0xFF, frameData[OFFSET_ADDRESS16 + 1] & 0xFF);
+    }
+
+    public boolean hasDigitalSamples() {
+        return digitalSampleMask != 0;
+    }
+
+    /**
+     * @param pin Digital pin number, 0 to 15.
+     *
+     * @return {@code true} if the pin is sampled.
+     */
+    public boolean isDigitalSampled(int pin) {
+        return (digitalSampleMask & (1 << checkPin(pin))) != 0;
+    }
+
+    /**
+     * @param pin Digital pin number, 0 to 15.
+     *
+     * @return Digital sample.
+     *
+     * @exception IllegalArgumentException if the pin is not sampled.
+     */
+    public boolean isHigh(int pin) {
+
+        if (!isDigitalSampled(pin)) {
+            throw new IllegalArgumentException("DIO" + pin + " is not sampled");
+        }
+
+        return (digitalSamples & (1 << pin)) != 0;
+    }
+
+    /**
+     * @param channel Analog channel number, 0 to 7, 7 being the supply voltage.
+     *
+     * @return {@code true} if the channel is sampled.
+     */
+    public boolean isAnalogSampled(int channel) {
+        return (analogSampleMask & (1 << checkChannel(channel))) != 0;
+    }
+
+    /**
+     * @param channel Analog channel number, 0 to 7, 7 being the supply voltage.
+     *
+     * @return Raw 10 bit analog sample.
+     *
+     * @exception IllegalArgumentException if the channel is not sampled.
+     */
+    public int getAnalog(int channel) {
+
+        if (!isAnalogSampled(channel)) {
+            throw new IllegalArgumentException("AD" + channel + " is not sampled");
+        }
+
+        // Samples come in the channel order, only for the channels present in the mask
+        var before = Integer.bitCount(analogSampleMask & ((1 << channel) - 1));
+        var offset = OFFSET_SAMPLES + (digitalSampleMask != 0 ? 2 : 0) + 2 * before;
+
+        return getShort(offset) & 0xFFFF;
+    }
+
+    private static int checkPin(int pin) {
+
+        if (pin < 0 || pin > 15) {
+            throw new IllegalArgumentException("Digital pin out of range: " + pin);
+        }
+
+        return pin;
+    }
+
+    private static int checkChannel(int channel) {
+
+        if (channel < 0 || channel > 7) {
+            throw new IllegalArgumentException("Analog channel out of range: " + channel);
+        }
+
+        return channel;
     }
 
     @Override
@@ -48,35 +176,40 @@ public class IOSampleIndicator extends XBeeResponseFrame{
 
         var sb = new StringBuilder("{IOSample");
 
-        sb.append(" sourceAddress=").append(sourceAddress64).append("/").append(sourceAddress16);
+        sb.append(" sourceAddress=").append(getSourceAddress64()).append("/").append(getSourceAddress16());
         sb.append(", receiveOptions=").append(HexFormat.format(receiveOptions));
         sb.append(", sampleCount=").append(sampleCount);
 
-        digitalSamples.ifPresent(sample -> {
+        if (hasDigitalSamples()) {
+
             sb.append(", digital(");
 
             var printed = 0;
-            for (var bit = 0; bit < 16; bit++) {
-                if (digitalSampleMask.get(bit)) {
+            for (var pin = 0; pin < 16; pin++) {
+                if (isDigitalSampled(pin)) {
                     if (printed > 0) {
                         sb.append(",");
                     }
-                    sb.append(bit).append(":").append(sample.get(bit));
+                    sb.append(pin).append(":").append(isHigh(pin));
                     printed++;
                 }
             }
             sb.append(")");
-        });
+        }
+
+        if (analogSampleMask != 0) {
 
-        if (!analogSamples.isEmpty()) {
             sb.append(", analog(");
+
             var printed = 0;
-            for (var kv : analogSamples.entrySet()) {
-                if (printed > 0) {
-                    sb.append(",");
+            for (var channel = 0; channel < 8; channel++) {
+                if (isAnalogSampled(channel)) {
+                    if (printed > 0) {
+                        sb.append(",");
+                    }
+                    sb.append(channel).append(":").append(getAnalog(channel));
+                    printed++;
                 }
-                sb.append(kv.getKey()).append(":").append(kv.getValue());
-                printed++;
             }
             sb.append(")");
         }
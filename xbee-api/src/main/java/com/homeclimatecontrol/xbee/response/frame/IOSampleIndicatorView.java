@@ -0,0 +1,70 @@
+package com.homeclimatecontrol.xbee.response.frame;
+
+import com.rapplogic.xbee.api.XBeeAddress16;
+import com.rapplogic.xbee.api.XBeeAddress64;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * {@link IOSampleIndicator} decoded into collections, all at once.
+ *
+ * Convenient, but costs a dozen allocations per sample - use {@link IOSampleIndicator} accessors on a hot path.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public class IOSampleIndicatorView {
+
+    public final XBeeAddress64 sourceAddress64;
+    public final XBeeAddress16 sourceAddress16;
+    public final byte receiveOptions;
+    public final byte sampleCount;
+    public final BitSet digitalSampleMask;
+    public final byte analogSampleMask;
+    public final Optional<BitSet> digitalSamples; // NOSONAR This is intended
+
+    /**
+     * The key is the analog channel number, the value is the sample.
+     */
+    public final Map<Integer, Integer> analogSamples;
+
+    public IOSampleIndicatorView(IOSampleIndicator source) {
+
+        sourceAddress64 = source.getSourceAddress64();
+        sourceAddress16 = source.getSourceAddress16();
+        receiveOptions = source.receiveOptions;
+        sampleCount = source.sampleCount;
+        digitalSampleMask = toBitSet(source.digitalSampleMask);
+        analogSampleMask = source.analogSampleMask;
+        digitalSamples = source.hasDigitalSamples()
+                ? Optional.of(toBitSet((short) (source.digitalSamples & source.digitalSampleMask)))
+                : Optional.empty();
+
+        var analog = new LinkedHashMap<Integer, Integer>();
+
+        for (var channel = 0; channel < 8; channel++) {
+            if (source.isAnalogSampled(channel)) {
+                analog.put(channel, source.getAnalog(channel));
+            }
+        }
+
+        analogSamples = Collections.unmodifiableMap(analog);
+    }
+
+    static BitSet toBitSet(short mask) {
+        return BitSet.valueOf(new long[] { mask & 0xFFFFL });
+    }
+
+    @Override
+    public String toString() {
+        return "{IOSampleView sourceAddress=" + sourceAddress64 + "/" + sourceAddress16
+                + ", sampleCount=" + sampleCount
+                + ", digitalSampleMask=" + digitalSampleMask
+                + ", digitalSamples=" + digitalSamples.map(BitSet::toString).orElse("none")
+                + ", analogSamples=" + analogSamples
+                + "}";
+    }
+}
@@ -19,8 +19,13 @@ public class LocalATCommandResponse extends ATCommandResponse<LocalATCommandResp
             this.code = code;
         }
 
+        /**
+         * {@link #values()} clones the array on every call.
+         */
+        private static final Status[] VALUES = values();
+
         public static Status valueOf(byte code) {
-            for (var status : values()) {
+            for (var status : VALUES) {
                 if (status.code == code) {
                     return status;
                 }
@@ -1,7 +1,5 @@
 package com.homeclimatecontrol.xbee.response.frame;
 
-import com.rapplogic.xbee.api.AtCommand;
-
 import java.nio.ByteBuffer;
 
 /**
@@ -15,8 +13,7 @@ public class LocalATCommandResponseReader extends FrameIdAwareReader {
 
     @Override
     public XBeeResponseFrame read(byte frameId, ByteBuffer frameData) {
-        var commandName = Character.toString((char) frameData.get()) + Character.toString((char) frameData.get());
-        var command = AtCommand.Command.valueOf(commandName);
+        var command = readCommand(frameData);
         var status = LocalATCommandResponse.Status.valueOf(frameData.get());
 
         // Response may be unavailable if the command was to set  the value, not read it
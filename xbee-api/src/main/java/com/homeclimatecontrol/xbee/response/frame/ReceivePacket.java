@@ -0,0 +1,73 @@
+package com.homeclimatecontrol.xbee.response.frame;
+
+import com.homeclimatecontrol.xbee.util.HexFormat;
+import com.rapplogic.xbee.api.XBeeAddress16;
+import com.rapplogic.xbee.api.XBeeAddress64;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Receive Packet frame, the RF data another node sent to this one.
+ *
+ * See <a href="https://www.digi.com/resources/documentation/Digidocs/90002002/Default.htm#Reference/r_frame_0x90.htm">Receive Packet</a>.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public class ReceivePacket extends XBeeResponseFrame {
+
+    public final XBeeAddress64 sourceAddress64;
+    public final XBeeAddress16 sourceAddress16;
+    public final byte receiveOptions;
+
+    /**
+     * Read only, never handed out directly so that the consumers don't trip over each other's position.
+     */
+    private final ByteBuffer data;
+
+    /**
+     * Create an instance.
+     *
+     * @param data RF data, positioned at the start. The buffer is retained, so it must not be reused by the caller.
+     */
+    public ReceivePacket(XBeeAddress64 sourceAddress64, XBeeAddress16 sourceAddress16, byte receiveOptions, ByteBuffer data) {
+
+        this.sourceAddress64 = sourceAddress64;
+        this.sourceAddress16 = sourceAddress16;
+        this.receiveOptions = receiveOptions;
+        this.data = data.asReadOnlyBuffer();
+    }
+
+    @Override
+    public XBeeAddress64 getSourceAddress64() {
+        return sourceAddress64;
+    }
+
+    /**
+     * Get the RF data.
+     *
+     * @return Read only view of the RF data, with its own position and limit. Nothing is copied.
+     */
+    public ByteBuffer getData() {
+        return data.duplicate();
+    }
+
+    /**
+     * @return RF data length.
+     */
+    public int getDataLength() {
+        return data.remaining();
+    }
+
+    protected String dataToString() {
+        return data.hasRemaining() ? HexFormat.format(data.duplicate()) : "";
+    }
+
+    @Override
+    public String toString() {
+        return "{" + getClass().getSimpleName()
+                + " sourceAddress=" + sourceAddress64 + "/" + sourceAddress16
+                + ", receiveOptions=" + HexFormat.format(receiveOptions)
+                + ", data=" + dataToString()
+                + "}";
+    }
+}
@@ -0,0 +1,41 @@
+package com.homeclimatecontrol.xbee.response.frame;
+
+import com.rapplogic.xbee.api.XBeeAddress16;
+import com.rapplogic.xbee.api.XBeeAddress64;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Receive Packet reader.
+ *
+ * See <a href="https://www.digi.com/resources/documentation/Digidocs/90002002/Default.htm#Reference/r_frame_0x90.htm">Receive Packet</a>.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public class ReceivePacketReader extends FrameReader {
+
+    @Override
+    public XBeeResponseFrame read(ByteBuffer frameData) {
+
+        var sourceAddress64 = XBeeAddress64.valueOf(frameData);
+        var sourceAddress16 = new XBeeAddress16(frameData);
+        var receiveOptions = frameData.get();
+
+        return new ReceivePacket(sourceAddress64, sourceAddress16, receiveOptions, readData(frameData));
+    }
+
+    /**
+     * Take the rest of the frame as RF data.
+     *
+     * The frame buffer is reused by the decoder as soon as the frame is read, so the data has to be copied out,
+     * once, into a buffer of its own.
+     */
+    static ByteBuffer readData(ByteBuffer frameData) {
+
+        var data = new byte[frameData.remaining()];
+
+        frameData.get(data);
+
+        return ByteBuffer.wrap(data);
+    }
+}
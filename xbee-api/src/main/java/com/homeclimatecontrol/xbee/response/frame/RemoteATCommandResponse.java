@@ -25,8 +25,10 @@ public class RemoteATCommandResponse extends ATCommandResponse<RemoteATCommandRe
             this.code = code;
         }
 
+        private static final Status[] VALUES = values();
+
         public static Status valueOf(byte code) {
-            for (var status : values()) {
+            for (var status : VALUES) {
                 if (status.code == code) {
                     return status;
                 }
@@ -44,6 +46,11 @@ public class RemoteATCommandResponse extends ATCommandResponse<RemoteATCommandRe
         this.address16 = address16;
     }
 
+    @Override
+    public XBeeAddress64 getSourceAddress64() {
+        return address64;
+    }
+
     @Override
     public String toString() {
         return "{" + getClass().getSimpleName() + " frameId=" + HexFormat.format(frameId)
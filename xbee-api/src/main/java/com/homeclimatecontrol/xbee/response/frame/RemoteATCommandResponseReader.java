@@ -1,6 +1,5 @@
 package com.homeclimatecontrol.xbee.response.frame;
 
-import com.rapplogic.xbee.api.AtCommand;
 import com.rapplogic.xbee.api.XBeeAddress16;
 import com.rapplogic.xbee.api.XBeeAddress64;
 
@@ -11,10 +10,9 @@ public class RemoteATCommandResponseReader extends FrameIdAwareReader {
     @Override
     protected XBeeResponseFrame read(byte frameId, ByteBuffer frameData) {
 
-        var address64 = new XBeeAddress64(frameData);
+        var address64 = XBeeAddress64.valueOf(frameData);
         var address16 = new XBeeAddress16(frameData);
-        var commandName = Character.toString((char) frameData.get()) + Character.toString((char) frameData.get());
-        var command = AtCommand.Command.valueOf(commandName);
+        var command = readCommand(frameData);
         var status = RemoteATCommandResponse.Status.valueOf(frameData.get());
 
         // Response may be unavailable if the command was to set  the value, not read it
@@ -0,0 +1,63 @@
+package com.homeclimatecontrol.xbee.response.frame;
+
+import com.homeclimatecontrol.xbee.util.HexFormat;
+
+/**
+ * Transmit Status frame (0x89), the outcome of a 802.15.4 (Series 1) Transmit Request with a 64 or 16 bit address.
+ *
+ * ZigBee transmit requests are answered with {@link ExtendedTransmitStatus} instead.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public class TransmitStatus extends FrameIdAwareResponse {
+
+    public enum DeliveryStatus {
+
+        SUCCESS((byte) 0x00),
+        NO_ACK((byte) 0x01),
+        CCA_FAILURE((byte) 0x02),
+        PURGED((byte) 0x03),
+
+        /**
+         * The status code is not on this list.
+         */
+        UNKNOWN((byte) 0xFF);
+
+        public final byte code;
+
+        DeliveryStatus(byte code) {
+            this.code = code;
+        }
+
+        private static final DeliveryStatus[] VALUES = values();
+
+        public static DeliveryStatus valueOf(byte code) {
+            for (var status : VALUES) {
+                if (status.code == code) {
+                    return status;
+                }
+            }
+            return UNKNOWN;
+        }
+    }
+
+    public final DeliveryStatus deliveryStatus;
+
+    /**
+     * Raw delivery status, for when {@link #deliveryStatus} is {@link DeliveryStatus#UNKNOWN}.
+     */
+    public final byte deliveryStatusCode;
+
+    public TransmitStatus(byte frameId, byte deliveryStatusCode) {
+        super(frameId);
+        this.deliveryStatus = DeliveryStatus.valueOf(deliveryStatusCode);
+        this.deliveryStatusCode = deliveryStatusCode;
+    }
+
+    @Override
+    public String toString() {
+        return "{" + getClass().getSimpleName() + " frameId=" + HexFormat.format(frameId)
+                + ", deliveryStatus=" + deliveryStatus + (deliveryStatus == DeliveryStatus.UNKNOWN ? "(" + HexFormat.format(deliveryStatusCode) + ")" : "")
+                + "}";
+    }
+}
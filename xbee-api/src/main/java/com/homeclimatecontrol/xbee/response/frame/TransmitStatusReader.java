@@ -0,0 +1,16 @@
+package com.homeclimatecontrol.xbee.response.frame;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Transmit Status (0x89) reader, see {@link TransmitStatus}.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public class TransmitStatusReader extends FrameIdAwareReader {
+
+    @Override
+    protected XBeeResponseFrame read(byte frameId, ByteBuffer frameData) {
+        return new TransmitStatus(frameId, frameData.get());
+    }
+}
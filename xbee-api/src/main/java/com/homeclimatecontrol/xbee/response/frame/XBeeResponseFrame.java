@@ -1,4 +1,15 @@
 package com.homeclimatecontrol.xbee.response.frame;
 
+import com.rapplogic.xbee.api.XBeeAddress64;
+
 public class XBeeResponseFrame {
+
+    /**
+     * Get the address of the node this frame came from.
+     *
+     * @return Source address, or {@code null} if the frame came from the local XBee.
+     */
+    public XBeeAddress64 getSourceAddress64() {
+        return null;
+    }
 }
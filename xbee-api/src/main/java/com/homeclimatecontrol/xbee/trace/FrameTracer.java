@@ -0,0 +1,286 @@
+package com.homeclimatecontrol.xbee.trace;
+
+import com.homeclimatecontrol.xbee.util.HexFormat;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Per-frame event recorder.
+ *
+ * Events are written into a ring buffer allocated up front, so recording is a handful of array stores and
+ * an atomic increment, and the oldest events are overwritten when the buffer is full. When the tracer is disabled,
+ * recording is a single volatile read. Take a {@link #snapshot()} or a {@link #dump()} whenever something
+ * looks wrong.
+ *
+ * Requests are correlated with their callers by the trace ID taken from the subscriber's Reactor
+ * {@link Context} (see {@link #withTraceId(long)}), not from a thread local - the request changes threads
+ * several times on its way to the wire.
+ *
+ * This object is thread safe.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public class FrameTracer {
+
+    /**
+     * Reactor {@link Context} key for the trace ID, a {@code Long}.
+     */
+    public static final String TRACE_ID = FrameTracer.class.getName() + ".traceId";
+
+    public static final int DROP_CHECKSUM = 1;
+    public static final int DROP_RESYNC = 2;
+    public static final int DROP_LENGTH = 3;
+    public static final int DROP_UNKNOWN_TYPE = 4;
+    public static final int DROP_MALFORMED = 5;
+
+    private static final String[] DROP_REASONS = { "?", "checksum", "resync", "length", "unknown type", "malformed" };
+
+    private static final TraceEvent[] EVENTS = TraceEvent.values();
+
+    /**
+     * Tracer that can't be enabled, for when there's nothing to trace into.
+     */
+    public static final FrameTracer NONE = new FrameTracer(0);
+
+    private final int mask;
+
+    private final long[] timestamps;
+
+    /**
+     * Event ordinal, frame type, frame ID and value, packed.
+     */
+    private final long[] words;
+
+    private final long[] traceIds;
+
+    /**
+     * Sequence number of the event in the slot, -1 while it is being written.
+     */
+    private final AtomicLongArray published;
+
+    private final AtomicLong cursor = new AtomicLong();
+
+    private volatile boolean enabled = false;
+
+    /**
+     * Create a disabled instance.
+     *
+     * @param capacity Number of events to keep, rounded up to a power of two. 0 means the tracer can't be enabled.
+     */
+    public FrameTracer(int capacity) {
+
+        if (capacity < 0 || capacity > 1 << 24) {
+            throw new IllegalArgumentException("capacity out of range: " + capacity);
+        }
+
+        var size = capacity <= 1 ? capacity : Integer.highestOneBit(capacity - 1) << 1;
+
+        mask = size - 1;
+        timestamps = new long[size];
+        words = new long[size];
+        traceIds = new long[size];
+        published = new AtomicLongArray(size);
+
+        for (var slot = 0; slot < size; slot++) {
+            published.set(slot, -1);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start or stop recording. The events recorded so far are kept.
+     *
+     * @exception IllegalStateException if there is no room to record anything.
+     */
+    public void setEnabled(boolean enabled) {
+
+        if (enabled && timestamps.length == 0) {
+            throw new IllegalStateException("Zero capacity tracer can't be enabled");
+        }
+
+        this.enabled = enabled;
+    }
+
+    public int getCapacity() {
+        return timestamps.length;
+    }
+
+    /**
+     * Record an event, if enabled.
+     *
+     * @param event What happened.
+     * @param frameType Frame type, or API ID for requests, 0 if unknown.
+     * @param frameId Frame ID, 0 if unknown or not applicable.
+     * @param value Event specific value, see {@link TraceEvent}.
+     * @param traceId Trace ID, 0 if none.
+     */
+    public void record(TraceEvent event, int frameType, int frameId, int value, long traceId) {
+
+        if (!enabled) {
+            return;
+        }
+
+        var sequence = cursor.getAndIncrement();
+        var slot = (int) sequence & mask;
+
+        published.set(slot, -1);
+
+        timestamps[slot] = System.nanoTime();
+        words[slot] = ((long) event.ordinal() << 56)
+                | ((long) (frameType & 0xFF) << 48)
+                | ((long) (frameId & 0xFF) << 40)
+                | (value & 0xFFFFFFFFL);
+        traceIds[slot] = traceId;
+
+        published.lazySet(slot, sequence);
+    }
+
+    /**
+     * Record an event that is not related to any request, if enabled.
+     */
+    public void record(TraceEvent event, int frameType, int frameId, int value) {
+        record(event, frameType, frameId, value, 0);
+    }
+
+    /**
+     * Get the recorded events.
+     *
+     * @return Events still in the buffer, oldest first. Events being written at the time are skipped.
+     */
+    public List<Event> snapshot() {
+
+        var end = cursor.get();
+        var start = Math.max(0, end - timestamps.length);
+        var result = new ArrayList<Event>((int) (end - start));
+
+        for (var sequence = start; sequence < end; sequence++) {
+
+            var slot = (int) sequence & mask;
+
+            if (published.get(slot) != sequence) {
+                continue;
+            }
+
+            var timestamp = timestamps[slot];
+            var word = words[slot];
+            var traceId = traceIds[slot];
+
+            // Make sure the slot wasn't overwritten while we were reading it
+            VarHandle.acquireFence();
+
+            if (published.get(slot) != sequence) {
+                continue;
+            }
+
+            result.add(new Event(timestamp, word, traceId));
+        }
+
+        return result;
+    }
+
+    /**
+     * Render the recorded events, one per line, with the time relative to the first one.
+     */
+    public String dump() {
+
+        var events = snapshot();
+        var sb = new StringBuilder();
+        var start = events.isEmpty() ? 0 : events.get(0).nanos;
+
+        for (var event : events) {
+            sb.append(String.format("%+12.3fus ", (event.nanos - start) / 1000d)).append(event).append('\n');
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Forget the events recorded so far.
+     */
+    public void clear() {
+
+        for (var slot = 0; slot < timestamps.length; slot++) {
+            published.set(slot, -1);
+        }
+    }
+
+    /**
+     * Get the trace ID.
+     *
+     * @param context Subscriber context.
+     *
+     * @return The trace ID, or 0 if there's none.
+     */
+    public static long getTraceId(ContextView context) {
+        return context.getOrDefault(TRACE_ID, 0L);
+    }
+
+    /**
+     * Attach a trace ID to the subscription, like this: {@code xbee.send(rq, timeout).contextWrite(FrameTracer.withTraceId(42))}.
+     */
+    public static Function<Context, Context> withTraceId(long traceId) {
+        return context -> context.put(TRACE_ID, traceId);
+    }
+
+    /**
+     * Recorded event.
+     */
+    public static class Event {
+
+        /**
+         * When it happened, as returned by {@link System#nanoTime()}.
+         */
+        public final long nanos;
+
+        public final TraceEvent event;
+        public final int frameType;
+        public final int frameId;
+        public final int value;
+        public final long traceId;
+
+        Event(long nanos, long word, long traceId) {
+            this.nanos = nanos;
+            this.event = EVENTS[(int) (word >>> 56)];
+            this.frameType = (int) (word >>> 48) & 0xFF;
+            this.frameId = (int) (word >>> 40) & 0xFF;
+            this.value = (int) word;
+            this.traceId = traceId;
+        }
+
+        @Override
+        public String toString() {
+
+            var sb = new StringBuilder(event.name());
+
+            if (frameType != 0) {
+                sb.append(" type=").append(HexFormat.format(frameType));
+            }
+
+            if (frameId != 0) {
+                sb.append(" frameId=").append(HexFormat.format(frameId));
+            }
+
+            if (event == TraceEvent.DROP) {
+                sb.append(" reason=").append(value > 0 && value < DROP_REASONS.length ? DROP_REASONS[value] : value);
+            } else {
+                sb.append(" value=").append(value);
+            }
+
+            if (traceId != 0) {
+                sb.append(" traceId=").append(traceId);
+            }
+
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.homeclimatecontrol.xbee.trace;
+
+/**
+ * What happened to a frame, see {@link FrameTracer}.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public enum TraceEvent {
+
+    /**
+     * Start delimiter found. The value is the number of bytes skipped before it.
+     */
+    SYNC,
+
+    /**
+     * Frame length read. The value is the length.
+     */
+    HEADER,
+
+    /**
+     * Frame decoded. The value is the frame length.
+     */
+    DECODE,
+
+    /**
+     * Frame dropped. The value is one of the {@code FrameTracer.DROP_*} reasons.
+     */
+    DROP,
+
+    /**
+     * Frame delivered to the pending request, if any, and emitted to the subscribers.
+     */
+    EMIT,
+
+    /**
+     * Request submitted for sending.
+     */
+    SEND,
+
+    /**
+     * Request written to the transport. The value is the size of the batch it was written with, in bytes.
+     */
+    WRITE
+}
@@ -0,0 +1,276 @@
+package com.homeclimatecontrol.xbee.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * In-memory transport.
+ *
+ * Bytes {@link #inject(byte[]) injected} into this transport are what the driver reads, bytes the driver writes
+ * are {@link #getWritten() recorded} and, on every flush, handed over to the optional responder that plays
+ * the part of the device. This allows to exercise the whole reactive stack at full speed without any hardware.
+ */
+public class LoopbackTransport implements XBeeTransport {
+
+    private final String name;
+    private final Consumer<byte[]> responder;
+    private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+
+    private DeviceInputStream in;
+    private HostOutputStream out;
+
+    /**
+     * Create an instance without a responder.
+     */
+    public LoopbackTransport() {
+        this("loopback", null);
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param name Transport name, for logging.
+     * @param responder Consumer to call with the bytes written since the last flush, on every flush.
+     * May be {@code null}. It is free to call {@link #inject(byte[])} to emulate the device response.
+     */
+    public LoopbackTransport(String name, Consumer<byte[]> responder) {
+        this.name = name;
+        this.responder = responder;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public synchronized void open() throws IOException {
+
+        if (in != null) {
+            throw new IllegalStateException(name + ": already open");
+        }
+
+        in = new DeviceInputStream();
+        out = new HostOutputStream();
+    }
+
+    /**
+     * Make the data available to the driver, as if the device sent it.
+     *
+     * @param data Raw data, including start delimiters and escapes.
+     */
+    public void inject(byte[] data) {
+        getDeviceStream().inject(data);
+    }
+
+    /**
+     * Get everything the driver has written and flushed so far.
+     *
+     * @return Copy of the raw data written.
+     */
+    public byte[] getWritten() {
+        synchronized (written) {
+            return written.toByteArray();
+        }
+    }
+
+    private synchronized DeviceInputStream getDeviceStream() {
+
+        if (in == null) {
+            throw new IllegalStateException(name + ": not open");
+        }
+
+        return in;
+    }
+
+    @Override
+    public synchronized InputStream getInputStream() {
+        return in;
+    }
+
+    @Override
+    public synchronized OutputStream getOutputStream() {
+        return out;
+    }
+
+    @Override
+    public synchronized void close() {
+
+        if (in == null) {
+            return;
+        }
+
+        in.close();
+
+        in = null;
+        out = null;
+    }
+
+    @Override
+    public String toString() {
+        return "{loopback " + name + "}";
+    }
+
+    /**
+     * What the device sends. Reads block until something is injected, or the stream is closed.
+     * Array reads return 0 if nothing was injected within {@link #READ_TIMEOUT}.
+     */
+    private static class DeviceInputStream extends InputStream {
+
+        private byte[] buffer = new byte[256];
+        private int head = 0;
+        private int size = 0;
+        private boolean closed = false;
+
+        synchronized void inject(byte[] data) {
+
+            if (size + data.length > buffer.length) {
+
+                var grown = new byte[Math.max(buffer.length * 2, size + data.length)];
+
+                for (var offset = 0; offset < size; offset++) {
+                    grown[offset] = buffer[(head + offset) % buffer.length];
+                }
+
+                buffer = grown;
+                head = 0;
+            }
+
+            for (var b : data) {
+                buffer[(head + size++) % buffer.length] = b;
+            }
+
+            notifyAll();
+        }
+
+        @Override
+        public synchronized int read() throws IOException {
+
+            while (size == 0 && !closed) {
+                await();
+            }
+
+            if (size == 0) {
+                return -1;
+            }
+
+            var result = buffer[head] & 0xFF;
+            head = (head + 1) % buffer.length;
+            size--;
+
+            return result;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) throws IOException {
+
+            if (len == 0) {
+                return 0;
+            }
+
+            if (size == 0 && !closed) {
+                await();
+            }
+
+            if (size == 0) {
+                return closed ? -1 : 0;
+            }
+
+            var count = Math.min(len, size);
+
+            for (var offset = 0; offset < count; offset++) {
+                b[off + offset] = buffer[head];
+                head = (head + 1) % buffer.length;
+            }
+
+            size -= count;
+
+            return count;
+        }
+
+        /**
+         * Wait until there's data to read, the stream is closed, or {@link #READ_TIMEOUT} expires.
+         */
+        private void await() throws IOException {
+
+            var deadline = System.nanoTime() + READ_TIMEOUT.toNanos();
+
+            try {
+                while (size == 0 && !closed) {
+
+                    var left = deadline - System.nanoTime();
+
+                    if (left <= 0) {
+                        return;
+                    }
+
+                    NANOSECONDS.timedWait(this, left);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                var iex = new InterruptedIOException("Interrupted while waiting for data");
+                iex.initCause(ex);
+                throw iex;
+            }
+        }
+
+        @Override
+        public synchronized int available() {
+            return size;
+        }
+
+        @Override
+        public synchronized void close() {
+            closed = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * What the host (the driver) sends.
+     */
+    private class HostOutputStream extends OutputStream {
+
+        private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+        @Override
+        public synchronized void write(int b) {
+            pending.write(b);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            pending.write(b, off, len);
+        }
+
+        @Override
+        public void flush() {
+
+            byte[] data;
+
+            synchronized (this) {
+                data = pending.toByteArray();
+                pending.reset();
+            }
+
+            if (data.length == 0) {
+                return;
+            }
+
+            synchronized (written) {
+                written.write(data, 0, data.length);
+            }
+
+            if (responder != null) {
+                responder.accept(Arrays.copyOf(data, data.length));
+            }
+        }
+    }
+}
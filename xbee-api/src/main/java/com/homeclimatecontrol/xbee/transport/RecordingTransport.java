@@ -0,0 +1,118 @@
+package com.homeclimatecontrol.xbee.transport;
+
+import com.homeclimatecontrol.xbee.capture.CaptureWriter;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+/**
+ * Transport decorator that records everything read from the underlying transport into a capture file.
+ *
+ * The bytes are recorded raw, below the frame decoder, exactly the way they came, along with the time they arrived.
+ * The capture can later be played back with {@link ReplayTransport}. Writes are not recorded.
+ *
+ * @see com.homeclimatecontrol.xbee.capture.CaptureFormat
+ */
+public class RecordingTransport implements XBeeTransport {
+
+    private final XBeeTransport target;
+    private final Path capture;
+
+    private CaptureWriter writer;
+    private RecordingInputStream in;
+
+    /**
+     * Create an instance.
+     *
+     * @param target Transport to record the input of.
+     * @param capture File to append the capture to. It is created if it doesn't exist.
+     */
+    public RecordingTransport(XBeeTransport target, Path capture) {
+        this.target = target;
+        this.capture = capture;
+    }
+
+    @Override
+    public String getName() {
+        return target.getName();
+    }
+
+    @Override
+    public synchronized void open() throws IOException {
+
+        writer = new CaptureWriter(capture);
+
+        try {
+            target.open();
+        } catch (IOException | RuntimeException ex) {
+            writer.close();
+            throw ex;
+        }
+
+        in = new RecordingInputStream(target.getInputStream(), writer);
+    }
+
+    @Override
+    public synchronized InputStream getInputStream() {
+        return in;
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+        return target.getOutputStream();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+
+        try {
+            target.close();
+        } finally {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "{recording " + target + " to " + capture + "}";
+    }
+
+    private static class RecordingInputStream extends FilterInputStream {
+
+        private final CaptureWriter writer;
+
+        RecordingInputStream(InputStream in, CaptureWriter writer) {
+            super(in);
+            this.writer = writer;
+        }
+
+        @Override
+        public int read() throws IOException {
+
+            var b = in.read();
+
+            if (b != -1) {
+                writer.write(new byte[] { (byte) b }, 0, 1, System.nanoTime());
+            }
+
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+
+            var count = in.read(b, off, len);
+
+            if (count > 0) {
+                writer.write(b, off, count, System.nanoTime());
+            }
+
+            return count;
+        }
+    }
+}
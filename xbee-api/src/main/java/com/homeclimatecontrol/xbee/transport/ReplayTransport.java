@@ -0,0 +1,269 @@
+package com.homeclimatecontrol.xbee.transport;
+
+import com.homeclimatecontrol.xbee.capture.CaptureReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Plays back a capture recorded by {@link RecordingTransport}, as if the device was sending it.
+ *
+ * The capture file is memory mapped, and the chunks are handed over the way they were recorded, at the original
+ * pace, at a multiple of it, or {@link #AS_FAST_AS_POSSIBLE}. {@link com.homeclimatecontrol.xbee.XBeeReactive#receive()}
+ * is hot, so the replay doesn't begin until {@link #start()} is called - subscribe first. Once the capture is over,
+ * the transport stays open and silent until it is closed. Writes are discarded, so requests sent through it will time out.
+ *
+ * This transport can't be reopened.
+ *
+ * @see com.homeclimatecontrol.xbee.capture.CaptureFormat
+ */
+public class ReplayTransport implements XBeeTransport {
+
+    /**
+     * Replay speed to use when the recorded timing doesn't matter.
+     */
+    public static final double AS_FAST_AS_POSSIBLE = Double.POSITIVE_INFINITY;
+
+    private final Path capture;
+    private final double speed;
+    private final CompletableFuture<Void> finished = new CompletableFuture<>();
+
+    private ReplayInputStream in;
+    private boolean closed = false;
+
+    /**
+     * Create an instance replaying at the original pace.
+     *
+     * @param capture Capture file.
+     */
+    public ReplayTransport(Path capture) {
+        this(capture, 1);
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param capture Capture file.
+     * @param speed How many times faster than real time to play back, or {@link #AS_FAST_AS_POSSIBLE}.
+     */
+    public ReplayTransport(Path capture, double speed) {
+
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("speed must be positive, got " + speed);
+        }
+
+        this.capture = capture;
+        this.speed = speed;
+    }
+
+    @Override
+    public String getName() {
+        return capture.getFileName().toString();
+    }
+
+    @Override
+    public synchronized void open() throws IOException {
+
+        if (closed || in != null) {
+            throw new IOException(getName() + ": replay transport can't be reopened");
+        }
+
+        in = new ReplayInputStream(CaptureReader.map(capture));
+    }
+
+    @Override
+    public synchronized InputStream getInputStream() {
+        return in;
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+        return OutputStream.nullOutputStream();
+    }
+
+    /**
+     * Start the replay. Until then, the transport stays silent.
+     */
+    public void start() {
+        getReplayStream().start();
+    }
+
+    private synchronized ReplayInputStream getReplayStream() {
+
+        if (in == null) {
+            throw new IllegalStateException(getName() + ": not open");
+        }
+
+        return in;
+    }
+
+    /**
+     * Get the replay completion.
+     *
+     * @return Future completed when the last recorded chunk has been read and the reader came back for more,
+     * which means everything recorded has been decoded and emitted.
+     */
+    public CompletableFuture<Void> getFinished() {
+        return finished;
+    }
+
+    @Override
+    public synchronized void close() {
+
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+
+        if (in != null) {
+            in.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "{replay " + capture + " at " + speed + "x}";
+    }
+
+    /**
+     * Array reads return 0 if the next chunk is not due within {@link #READ_TIMEOUT}.
+     */
+    private class ReplayInputStream extends InputStream {
+
+        private final CaptureReader reader;
+
+        /**
+         * The chunk being handed over, {@code null} if it's time to read the next one.
+         */
+        private ByteBuffer chunk;
+
+        /**
+         * When the current chunk is due, as returned by {@link System#nanoTime()}.
+         */
+        private long dueNanos;
+
+        /**
+         * When the replay started, as returned by {@link System#nanoTime()}.
+         */
+        private long startNanos;
+
+        private boolean started = false;
+        private boolean streamClosed = false;
+
+        ReplayInputStream(CaptureReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public synchronized int read() throws IOException {
+
+            var b = new byte[1];
+            int count;
+
+            while ((count = read(b, 0, 1)) == 0) {
+                // Not there yet
+            }
+
+            return count == -1 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) throws IOException {
+
+            if (streamClosed) {
+                return -1;
+            }
+
+            if (len == 0) {
+                return 0;
+            }
+
+            if (!started) {
+                await(READ_TIMEOUT.toNanos());
+                return streamClosed ? -1 : 0;
+            }
+
+            if (chunk == null && !nextChunk()) {
+
+                // The end, just idle until closed
+                finished.complete(null);
+                await(READ_TIMEOUT.toNanos());
+
+                return streamClosed ? -1 : 0;
+            }
+
+            var left = dueNanos - System.nanoTime();
+
+            if (left > 0) {
+
+                await(Math.min(left, READ_TIMEOUT.toNanos()));
+
+                if (streamClosed) {
+                    return -1;
+                }
+
+                if (dueNanos - System.nanoTime() > 0) {
+                    return 0;
+                }
+            }
+
+            var count = Math.min(len, chunk.remaining());
+
+            chunk.get(b, off, count);
+
+            if (!chunk.hasRemaining()) {
+                chunk = null;
+            }
+
+            return count;
+        }
+
+        private boolean nextChunk() {
+
+            if (!reader.next()) {
+                return false;
+            }
+
+            chunk = reader.getChunk();
+            dueNanos = startNanos + (long) (reader.getOffsetNanos() / speed);
+
+            return true;
+        }
+
+        synchronized void start() {
+
+            if (started) {
+                return;
+            }
+
+            started = true;
+            startNanos = System.nanoTime();
+            notifyAll();
+        }
+
+        private void await(long nanos) throws InterruptedIOException {
+            try {
+                NANOSECONDS.timedWait(this, nanos);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                var iex = new InterruptedIOException("Interrupted while waiting for the next chunk");
+                iex.initCause(ex);
+                throw iex;
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            streamClosed = true;
+            notifyAll();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.homeclimatecontrol.xbee.transport;
+
+import gnu.io.CommPort;
+import gnu.io.CommPortIdentifier;
+import gnu.io.PortInUseException;
+import gnu.io.UnsupportedCommOperationException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Enumeration;
+import java.util.TreeMap;
+
+/**
+ * RXTX serial port transport.
+ */
+public class SerialTransport implements XBeeTransport {
+
+    private final Logger logger = LogManager.getLogger();
+
+    private final String port;
+    private CommPort serialPort;
+    private InputStream in;
+    private OutputStream out;
+
+    /**
+     * Create an instance.
+     *
+     * @param port Serial port name, like {@code /dev/ttyUSB0}.
+     */
+    public SerialTransport(String port) {
+        this.port = port;
+    }
+
+    @Override
+    public String getName() {
+        return port;
+    }
+
+    @Override
+    public synchronized void open() throws IOException {
+
+        if (serialPort != null) {
+            throw new IllegalStateException(port + ": already open");
+        }
+
+        try {
+
+            var commPort = open(port);
+
+            enableReceiveTimeout(commPort);
+
+            in = commPort.getInputStream();
+            out = commPort.getOutputStream();
+            serialPort = commPort;
+
+        } catch (PortInUseException ex) {
+            throw new IOException(port + ": port in use", ex);
+        }
+    }
+
+    private CommPort open(String port) throws PortInUseException {
+
+        var portsAvailable = (Enumeration<CommPortIdentifier>) CommPortIdentifier.getPortIdentifiers(); // NOSONAR Unavoidable
+        var portsFound = new TreeMap<String, CommPortIdentifier>();
+
+        for (var i = portsAvailable.asIterator(); i.hasNext(); ) {
+            var found = i.next();
+            logger.debug("port found: {}", found.getName());
+            portsFound.put(found.getName(), found);
+        }
+
+        var ourPort = portsFound.get(port);
+
+        if (ourPort == null) {
+            throw new IllegalArgumentException(port + ": not found, available ports are: " + portsFound.keySet());
+        }
+
+        return ourPort.open("xbee-api", 9600);
+    }
+
+    /**
+     * Make reads return 0 if there was no data within {@link #READ_TIMEOUT}.
+     *
+     * Without it, the reader thread can't be stopped, and {@link CommPort#close()} will block forever
+     * (see https://github.com/home-climate-control/xbee-api/issues/15).
+     */
+    private void enableReceiveTimeout(CommPort commPort) {
+        try {
+
+            commPort.disableReceiveThreshold();
+            commPort.enableReceiveTimeout((int) READ_TIMEOUT.toMillis());
+
+        } catch (UnsupportedCommOperationException ex) {
+            logger.warn("{}: receive timeout not supported, close() may block", port, ex);
+        }
+    }
+
+    @Override
+    public synchronized InputStream getInputStream() {
+        return in;
+    }
+
+    @Override
+    public synchronized OutputStream getOutputStream() {
+        return out;
+    }
+
+    @Override
+    public synchronized void close() {
+
+        if (serialPort == null) {
+            logger.debug("{}: not open", port);
+            return;
+        }
+
+        serialPort.close();
+
+        serialPort = null;
+        in = null;
+        out = null;
+    }
+
+    @Override
+    public String toString() {
+        return "{serial port=" + port + "}";
+    }
+}
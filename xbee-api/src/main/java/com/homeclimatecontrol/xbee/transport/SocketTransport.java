@@ -0,0 +1,143 @@
+package com.homeclimatecontrol.xbee.transport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+
+/**
+ * TCP socket transport.
+ *
+ * Use it to talk to a coordinator sitting behind a {@code ser2net} style serial to TCP bridge.
+ */
+public class SocketTransport implements XBeeTransport {
+
+    private final Logger logger = LogManager.getLogger();
+
+    private final String host;
+    private final int port;
+    private final Duration connectTimeout;
+
+    private Socket socket;
+    private InputStream in;
+    private OutputStream out;
+
+    /**
+     * Create an instance with a default connect timeout of 5 seconds.
+     *
+     * @param host Host to connect to.
+     * @param port TCP port to connect to.
+     */
+    public SocketTransport(String host, int port) {
+        this(host, port, Duration.ofSeconds(5));
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param host Host to connect to.
+     * @param port TCP port to connect to.
+     * @param connectTimeout Connect timeout.
+     */
+    public SocketTransport(String host, int port, Duration connectTimeout) {
+
+        if (port <= 0 || port > 0xFFFF) {
+            throw new IllegalArgumentException("Invalid port " + port);
+        }
+
+        this.host = host;
+        this.port = port;
+        this.connectTimeout = connectTimeout;
+    }
+
+    @Override
+    public String getName() {
+        return host + ":" + port;
+    }
+
+    @Override
+    public synchronized void open() throws IOException {
+
+        if (socket != null) {
+            throw new IllegalStateException(getName() + ": already open");
+        }
+
+        var s = new Socket();
+
+        try {
+
+            // Frames are small and latency matters more than throughput
+            s.setTcpNoDelay(true);
+            s.connect(new InetSocketAddress(host, port), (int) connectTimeout.toMillis());
+            s.setSoTimeout((int) READ_TIMEOUT.toMillis());
+
+            in = new TimeoutInputStream(s.getInputStream());
+            out = s.getOutputStream();
+            socket = s;
+
+            logger.debug("{}: connected", getName());
+
+        } catch (IOException ex) {
+            s.close();
+            throw new IOException(getName() + ": failed to connect", ex);
+        }
+    }
+
+    @Override
+    public synchronized InputStream getInputStream() {
+        return in;
+    }
+
+    @Override
+    public synchronized OutputStream getOutputStream() {
+        return out;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+
+        if (socket == null) {
+            logger.debug("{}: not open", getName());
+            return;
+        }
+
+        try {
+            socket.close();
+        } finally {
+            socket = null;
+            in = null;
+            out = null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "{socket " + getName() + "}";
+    }
+
+    /**
+     * Converts the read timeout into a zero length read, as {@link XBeeTransport} expects.
+     */
+    private static class TimeoutInputStream extends FilterInputStream {
+
+        TimeoutInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                return super.read(b, off, len);
+            } catch (SocketTimeoutException ex) {
+                return 0;
+            }
+        }
+    }
+}
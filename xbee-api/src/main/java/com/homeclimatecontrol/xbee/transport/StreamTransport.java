@@ -0,0 +1,78 @@
+package com.homeclimatecontrol.xbee.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Transport over an existing pair of streams - a pipe, a named FIFO, a process' stdin/stdout, and so on.
+ *
+ * The streams are owned by this transport and will be closed by {@link #close()}. This transport can't be reopened.
+ *
+ * Reads from arbitrary streams can't be made to time out, so the reader will only stop when the input stream
+ * is closed.
+ */
+public class StreamTransport implements XBeeTransport {
+
+    private final String name;
+    private final InputStream in;
+    private final OutputStream out;
+
+    private boolean closed = false;
+
+    /**
+     * Create an instance.
+     *
+     * @param name Transport name, for logging.
+     * @param in Stream to read incoming frames from.
+     * @param out Stream to write outgoing frames to.
+     */
+    public StreamTransport(String name, InputStream in, OutputStream out) {
+        this.name = name;
+        this.in = in;
+        this.out = out;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public synchronized void open() throws IOException {
+        if (closed) {
+            throw new IOException(name + ": stream transport can't be reopened");
+        }
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return in;
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+        return out;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+
+        try {
+            in.close();
+        } finally {
+            out.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "{stream " + name + "}";
+    }
+}
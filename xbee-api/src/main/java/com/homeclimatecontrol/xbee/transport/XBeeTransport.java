@@ -0,0 +1,61 @@
+package com.homeclimatecontrol.xbee.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+
+/**
+ * Byte channel to talk to the XBee over.
+ *
+ * {@link com.homeclimatecontrol.xbee.XBeeReactive} doesn't care what's at the other end - a serial port,
+ * a TCP socket to a {@code ser2net} style bridge, a pipe, or an in-memory loopback - as long as it can read
+ * and write API frames through it.
+ *
+ * The lifecycle is {@link #open()}, then any number of {@link #getInputStream()} and {@link #getOutputStream()}
+ * calls, then {@link #close()}. Implementations are allowed (but not required) to support reopening after close.
+ *
+ * The reader blocks in {@link InputStream#read(byte[], int, int)} until the data arrives, so implementations must
+ * make sure that this call returns as soon as at least one byte is available, and should make it return 0 if nothing
+ * arrived within {@link #READ_TIMEOUT}, so that the reader gets a chance to notice that it's time to stop.
+ * Transports that can't do that must make sure that closing them unblocks the read.
+ */
+public interface XBeeTransport extends AutoCloseable {
+
+    /**
+     * How long a read is allowed to block before returning 0.
+     */
+    Duration READ_TIMEOUT = Duration.ofMillis(100);
+
+    /**
+     * Get the human readable name of this transport, for logging.
+     *
+     * @return Transport name, like a port name or a {@code host:port} pair.
+     */
+    String getName();
+
+    /**
+     * Open the transport.
+     *
+     * @exception IOException if the transport can't be opened.
+     * @exception IllegalArgumentException if the transport configuration is invalid (the port doesn't exist, for example).
+     */
+    void open() throws IOException;
+
+    /**
+     * Get the stream to read the incoming frames from.
+     *
+     * @return Input stream. Only valid after {@link #open()} and until {@link #close()}.
+     */
+    InputStream getInputStream();
+
+    /**
+     * Get the stream to write the outgoing frames to.
+     *
+     * @return Output stream. Only valid after {@link #open()} and until {@link #close()}.
+     */
+    OutputStream getOutputStream();
+
+    @Override
+    void close() throws IOException;
+}
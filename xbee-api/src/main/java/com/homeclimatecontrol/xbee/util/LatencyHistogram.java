@@ -0,0 +1,152 @@
+package com.homeclimatecontrol.xbee.util;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free latency histogram.
+ *
+ * Values are recorded in nanoseconds into log-linear buckets - every power of two is split into
+ * {@link #SUB_BUCKETS} linear sub-buckets, so the relative error of reported percentiles is under 13%,
+ * and recording is a couple of bit operations and an atomic increment, without allocation.
+ *
+ * This object is thread safe.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(64 * SUB_BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record a value.
+     *
+     * @param nanos Latency in nanoseconds. Negative values are recorded as zero.
+     */
+    public void record(long nanos) {
+
+        var value = Math.max(nanos, 0);
+
+        buckets.incrementAndGet(index(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Record the time elapsed since the given moment.
+     *
+     * @param startNanos Start time as returned by {@link System#nanoTime()}.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    static int index(long value) {
+
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        var magnitude = 63 - Long.numberOfLeadingZeros(value);
+        var shift = magnitude - SUB_BUCKET_BITS;
+        var subBucket = (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return Upper bound of the values that fall into the bucket.
+     */
+    static long upperBound(int index) {
+
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        var shift = index / SUB_BUCKETS - 1;
+        var subBucket = index % SUB_BUCKETS;
+
+        return ((long) (SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public Duration getMax() {
+        return Duration.ofNanos(max.get());
+    }
+
+    public Duration getMean() {
+        var n = count.get();
+        return n == 0 ? Duration.ZERO : Duration.ofNanos(total.get() / n);
+    }
+
+    /**
+     * Get the percentile.
+     *
+     * @param percentile Percentile, {@code 0 < percentile <= 100}.
+     *
+     * @return The latency that this percentile of recorded values didn't exceed, or zero if nothing was recorded.
+     */
+    public Duration getPercentile(double percentile) {
+
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile out of range: " + percentile);
+        }
+
+        var n = count.get();
+
+        if (n == 0) {
+            return Duration.ZERO;
+        }
+
+        var threshold = (long) Math.ceil(n * percentile / 100);
+        var seen = 0L;
+
+        for (var index = 0; index < buckets.length(); index++) {
+
+            seen += buckets.get(index);
+
+            if (seen >= threshold) {
+                return Duration.ofNanos(Math.min(upperBound(index), max.get()));
+            }
+        }
+
+        return getMax();
+    }
+
+    /**
+     * Forget everything recorded so far.
+     *
+     * Not atomic with respect to concurrent {@link #record(long)} calls, a few values may slip through.
+     */
+    public void reset() {
+
+        for (var index = 0; index < buckets.length(); index++) {
+            buckets.set(index, 0);
+        }
+
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "{count=" + getCount()
+                + ", mean=" + getMean()
+                + ", p50=" + getPercentile(50)
+                + ", p99=" + getPercentile(99)
+                + ", max=" + getMax()
+                + "}";
+    }
+}
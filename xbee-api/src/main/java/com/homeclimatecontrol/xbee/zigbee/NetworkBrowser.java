@@ -54,11 +54,9 @@ public class NetworkBrowser {
         logger.debug("Collecting responses for NT={}", timeout);
 
         return xbee
-                .receive()
+                .receive(LocalATCommandResponse.class)
                 .take(timeout)
                 .doOnNext(incoming -> logger.debug("Incoming packet: {}", incoming))
-                .filter(LocalATCommandResponse.class::isInstance)
-                .map(LocalATCommandResponse.class::cast)
                 .filter(rsp -> rsp.command.equals(ND))
                 .map(rsp -> rsp.commandResponse)
                 .map(NDResponse.class::cast)
@@ -23,6 +23,8 @@ import com.homeclimatecontrol.xbee.FrameIdGenerator;
 import com.rapplogic.xbee.util.ByteUtils;
 import com.rapplogic.xbee.util.IntArrayOutputStream;
 
+import java.nio.ByteBuffer;
+
 /**
  * API technique to set/query commands
  * <p/>
@@ -50,6 +52,7 @@ public class AtCommand extends XBeeRequest {
      *
      */
     public enum Command {
+        AC("AC", "Apply Changes"),
         AI("AI", "Association Status"),
         AO("AO", "API Options"),
         AP("AP", "API Enable"),
@@ -165,6 +168,24 @@ public class AtCommand extends XBeeRequest {
         return out.getIntArray();
     }
 
+    @Override
+    public int getFrameDataLength() {
+        return 4 + (value == null ? 0 : value.length);
+    }
+
+    @Override
+    public void writeFrameData(ByteBuffer target) {
+
+        target.put((byte) getApiId().getId());
+        target.put(getFrameId());
+        target.put((byte) command.code.charAt(0));
+        target.put((byte) command.code.charAt(1));
+
+        if (value != null) {
+            put(target, value);
+        }
+    }
+
     @Override
     public ApiId getApiId() {
         return ApiId.AT_COMMAND;
@@ -304,13 +304,13 @@ public class PacketParser implements IIntInputStream, IPacketParser {
 
     @Override
     public XBeeAddress64 parseAddress64() throws IOException {
-        var addr = new XBeeAddress64();
+        var addr = new int[8];
 
         for (int i = 0; i < 8; i++) {
-            addr.getAddress()[i] = read("64-bit Address byte " + i);
+            addr[i] = read("64-bit Address byte " + i);
         }
 
-        return addr;
+        return new XBeeAddress64(addr);
     }
 
     @Override
@@ -22,6 +22,8 @@ package com.rapplogic.xbee.api;
 import com.homeclimatecontrol.xbee.FrameIdGenerator;
 import com.rapplogic.xbee.util.IntArrayOutputStream;
 
+import java.nio.ByteBuffer;
+
 /**
  * Supported by both series 1 (10C8 firmware and later) and series 2.
  * Allows AT commands to be sent to a remote radio.
@@ -159,11 +161,41 @@ public class RemoteAtRequest extends AtCommand {
         return out.getIntArray();
     }
 
+    @Override
+    public int getFrameDataLength() {
+        return 15 + (getValue() == null ? 0 : getValue().length);
+    }
+
+    @Override
+    public void writeFrameData(ByteBuffer target) {
+
+        target.put((byte) getApiId().getId());
+        target.put(getFrameId());
+
+        target.putLong(remoteAddr64.toLong());
+        target.put((byte) remoteAddr16.getMsb());
+        target.put((byte) remoteAddr16.getLsb());
+
+        target.put((byte) (applyChanges ? 2 : 0));
+
+        target.put((byte) getCommand().code.charAt(0));
+        target.put((byte) getCommand().code.charAt(1));
+
+        if (getValue() != null) {
+            put(target, getValue());
+        }
+    }
+
     @Override
     public ApiId getApiId() {
         return ApiId.REMOTE_AT_REQUEST;
     }
 
+    @Override
+    public XBeeAddress64 getDestinationAddress64() {
+        return remoteAddr64;
+    }
+
     public void setApplyChanges(boolean applyChanges) {
         this.applyChanges = applyChanges;
     }
@@ -22,21 +22,35 @@ package com.rapplogic.xbee.api;
 import com.homeclimatecontrol.xbee.AddressParser;
 
 import java.nio.ByteBuffer;
-import java.util.Arrays;
 import java.util.StringTokenizer;
 
 /**
  * Represents a 64-bit XBee Address
  * <p/>
+ * Immutable, backed by a single {@code long}. Use {@link #valueOf(long)} or {@link #valueOf(ByteBuffer)}
+ * to get instances for addresses seen over and over again, they come from a bounded cache, so the same node
+ * keeps getting the same instance and map lookups mostly end with the reference comparison.
+ * <p/>
  * @author andrew
  *
  */
 public class XBeeAddress64 extends XBeeAddress {
 
-    public static final XBeeAddress64 BROADCAST = new XBeeAddress64(new int[]{0, 0, 0, 0, 0, 0, 0xff, 0xff});
-    public static final XBeeAddress64 ZNET_COORDINATOR = new XBeeAddress64(new int[]{0, 0, 0, 0, 0, 0, 0, 0});
+    public static final XBeeAddress64 BROADCAST = new XBeeAddress64(0x000000000000FFFFL);
+    public static final XBeeAddress64 ZNET_COORDINATOR = new XBeeAddress64(0L);
+
+    /**
+     * Intern cache size, must be a power of two. Plenty for a ZigBee network, and if there are more nodes,
+     * the worst that can happen is an extra allocation.
+     */
+    private static final int CACHE_SIZE = 1024;
+
+    /**
+     * Direct mapped intern cache. Entries are immutable, so racing writers can only cause a cache miss.
+     */
+    private static final XBeeAddress64[] cache = new XBeeAddress64[CACHE_SIZE];
 
-    private int[] address;
+    private final long address;
 
     /**
      * Parses an 64-bit XBee address from a string representation
@@ -44,20 +58,22 @@ public class XBeeAddress64 extends XBeeAddress {
      * ex: 0013A200408B98FF or 00 13 A2 00 40 8B 98 FF
      */
     public XBeeAddress64(String addressStr) {
-        address = new int[8];
 
         if (addressStr.contains(" ")) {
+
             StringTokenizer st = new StringTokenizer(addressStr, " ");
+            long value = 0;
 
-            for (int i = 0; i < address.length; i++) {
+            for (int i = 0; i < 8; i++) {
                 String byteStr = st.nextToken();
-                address[i] = Integer.parseInt(byteStr, 16);
+                value = (value << 8) | (Integer.parseInt(byteStr, 16) & 0xFF);
             }
+
+            address = value;
+
         } else {
             // secretly also handle no space format
-            for (int i = 0; i < address.length; i++) {
-                address[i] = Integer.parseInt(addressStr.substring(i * 2, i * 2 + 2), 16);
-            }
+            address = AddressParser.parseLong(addressStr);
         }
     }
 
@@ -74,33 +90,90 @@ public class XBeeAddress64 extends XBeeAddress {
      * @param b8 LSB
      */
     public XBeeAddress64(int b1, int b2, int b3, int b4, int b5, int b6, int b7, int b8) {
-        address = new int[8];
-
-        address[0] = b1;
-        address[1] = b2;
-        address[2] = b3;
-        address[3] = b4;
-        address[4] = b5;
-        address[5] = b6;
-        address[6] = b7;
-        address[7] = b8;
+        this(new int[] { b1, b2, b3, b4, b5, b6, b7, b8 });
     }
 
+    /**
+     * Creates a 64-bit address.
+     *
+     * @param address Address bytes, MSB first. The array is not retained, modifying it later doesn't affect
+     * this address.
+     */
     public XBeeAddress64(int[] address) {
-        this.address = address;
+
+        if (address.length != 8) {
+            throw new IllegalArgumentException("Need 8 bytes, got " + address.length);
+        }
+
+        long value = 0;
+
+        for (var b : address) {
+            value = (value << 8) | (b & 0xFF);
+        }
+
+        this.address = value;
     }
 
+    /**
+     * Creates the all zeroes address, same as {@link #ZNET_COORDINATOR}.
+     *
+     * @deprecated This used to create an address to fill in through the array returned by {@link #getAddress()}.
+     * Addresses are immutable now, and that array is a copy, so that doesn't work anymore. Use
+     * {@link #XBeeAddress64(int[])}, {@link #XBeeAddress64(long)} or {@link #valueOf(ByteBuffer)} instead.
+     */
+    @Deprecated(forRemoval = true)
     public XBeeAddress64() {
-        address = new int[8];
+        this(0L);
+    }
+
+    public XBeeAddress64(long address) {
+        this.address = address;
     }
 
     public XBeeAddress64(ByteBuffer source) {
+        address = source.getLong();
+    }
 
-        address = new int[8];
+    /**
+     * Get the address instance, possibly cached.
+     *
+     * @param address Address as a 64 bit number, MSB first.
+     *
+     * @return Address instance. Same address may or may not come back as the same instance.
+     */
+    public static XBeeAddress64 valueOf(long address) {
 
-        for (var offset = 0; offset < 8; offset++) {
-            address[offset] = source.get() & 0xFF;
+        // Low bytes of the address differ the most, but not enough to skip mixing them with the high bytes
+        var index = (int) (address ^ (address >>> 29)) & (CACHE_SIZE - 1);
+        var cached = cache[index];
+
+        if (cached != null && cached.address == address) {
+            return cached;
         }
+
+        var result = new XBeeAddress64(address);
+
+        cache[index] = result;
+
+        return result;
+    }
+
+    /**
+     * Read the address and get the instance for it, possibly cached.
+     *
+     * @param source Buffer to read 8 bytes from.
+     *
+     * @return Address instance.
+     */
+    public static XBeeAddress64 valueOf(ByteBuffer source) {
+        return valueOf(source.getLong());
+    }
+
+    /**
+     * @return The address as a 64 bit number, MSB first.
+     */
+    public long toLong() {
+        return address;
     }
 
     @Override
@@ -114,19 +187,32 @@ public class XBeeAddress64 extends XBeeAddress {
             return false;
         }
 
-        XBeeAddress64 that = (XBeeAddress64) o;
-
-        return Arrays.equals(address, that.address);
+        return address == ((XBeeAddress64) o).address;
     }
 
     @Override
     public int hashCode() {
-        return address != null ? Arrays.hashCode(address) : 0;
+        return Long.hashCode(address);
     }
 
+    /**
+     * Get the address bytes.
+     *
+     * Every call allocates a new array. Unlike earlier versions, which returned the backing array, writing into
+     * the result doesn't change this address. Use {@link #toLong()} if all you need is to compare or store it.
+     *
+     * @return A new array with the address bytes, MSB first.
+     */
     @Override
     public int[] getAddress() {
-        return address;
+
+        var result = new int[8];
+
+        for (var offset = 0; offset < 8; offset++) {
+            result[offset] = (int) (address >>> (56 - offset * 8)) & 0xFF;
+        }
+
+        return result;
     }
 
     @Override
@@ -21,6 +21,8 @@ package com.rapplogic.xbee.api;
 
 import com.rapplogic.xbee.util.ByteUtils;
 
+import java.nio.ByteBuffer;
+
 /**
  * The super class of all XBee transmit packets.
  * Constructs frame data portion of an XBee packet
@@ -59,12 +61,50 @@ public abstract class XBeeRequest {
 
     public abstract int[] getFrameData();
 
+    /**
+     * Get the length of the frame data, as written by {@link #writeFrameData(ByteBuffer)}.
+     *
+     * This implementation is an adapter over {@link #getFrameData()}, requests on the hot path override it
+     * along with {@link #writeFrameData(ByteBuffer)} to avoid allocations.
+     *
+     * @return Frame data length, in bytes.
+     */
+    public int getFrameDataLength() {
+        return getFrameData().length;
+    }
+
+    /**
+     * Write the frame data, unescaped, starting with the API ID, without the start delimiter, length and checksum.
+     *
+     * This implementation is an adapter over {@link #getFrameData()}.
+     *
+     * @param target Buffer to write the frame data into. Must have at least {@link #getFrameDataLength()} bytes remaining.
+     */
+    public void writeFrameData(ByteBuffer target) {
+        put(target, getFrameData());
+    }
+
+    protected static void put(ByteBuffer target, int[] source) {
+        for (var b : source) {
+            target.put((byte) b);
+        }
+    }
+
     public abstract ApiId getApiId();
 
     public byte getFrameId() {
         return frameId;
     }
 
+    /**
+     * Get the remote XBee this request is addressed to.
+     *
+     * @return 64 bit destination address, or {@code null} if the request is for the local XBee.
+     */
+    public XBeeAddress64 getDestinationAddress64() {
+        return null;
+    }
+
     @Override
     public String toString() {
         return "apiId=" + getApiId() + ",frameId=" + ByteUtils.toBase16(getFrameId());
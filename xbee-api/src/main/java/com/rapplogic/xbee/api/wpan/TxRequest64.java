@@ -101,6 +101,11 @@ public class TxRequest64 extends TxRequestBase {
 		return ApiId.TX_REQUEST_64;
 	}
 
+    @Override
+    public XBeeAddress64 getDestinationAddress64() {
+        return remoteAddr64;
+    }
+
     @Override
 	public String toString() {
 		return super.toString() +
@@ -26,6 +26,7 @@ import com.rapplogic.xbee.util.ByteUtils;
 import com.rapplogic.xbee.util.DoubleByte;
 import com.rapplogic.xbee.util.IntArrayOutputStream;
 
+import java.nio.ByteBuffer;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
@@ -154,6 +155,19 @@ public class ZNetExplicitTxRequest extends ZNetTxRequest {
 		return frameData.getIntArray();
 	}
 
+    /**
+     * Not worth optimizing, go through {@link #getFrameData()}.
+     */
+    @Override
+    public int getFrameDataLength() {
+        return getFrameData().length;
+    }
+
+    @Override
+    public void writeFrameData(ByteBuffer target) {
+        put(target, getFrameData());
+    }
+
 	@Override
     public ApiId getApiId() {
 		return ApiId.ZNET_EXPLICIT_TX_REQUEST;
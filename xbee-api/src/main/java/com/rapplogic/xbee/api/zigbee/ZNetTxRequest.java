@@ -27,6 +27,7 @@ import com.rapplogic.xbee.api.XBeeRequest;
 import com.rapplogic.xbee.util.ByteUtils;
 import com.rapplogic.xbee.util.IntArrayOutputStream;
 
+import java.nio.ByteBuffer;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
@@ -176,11 +177,41 @@ public class ZNetTxRequest extends XBeeRequest {
 		return getFrameDataAsIntArrayOutputStream().getIntArray();
 	}
 
+    @Override
+    public int getFrameDataLength() {
+        return 14 + payload.length;
+    }
+
+    @Override
+    public void writeFrameData(ByteBuffer target) {
+
+        if (getMaxPayloadSize() > 0 && payload.length > getMaxPayloadSize()) {
+            throw new IllegalArgumentException("Payload exceeds user-defined maximum payload size of " + getMaxPayloadSize() + " bytes.  Please package into multiple packets");
+        }
+
+        target.put((byte) getApiId().getId());
+        target.put(getFrameId());
+
+        target.putLong(destAddr64.toLong());
+        target.put((byte) destAddr16.getMsb());
+        target.put((byte) destAddr16.getLsb());
+
+        target.put((byte) broadcastRadius);
+        target.put((byte) option.getValue());
+
+        put(target, payload);
+    }
+
     @Override
 	public ApiId getApiId() {
 		return ApiId.ZNET_TX_REQUEST;
 	}
 
+    @Override
+    public XBeeAddress64 getDestinationAddress64() {
+        return destAddr64;
+    }
+
     public void setDestAddr16(XBeeAddress16 destAddr16) {
 		this.destAddr16 = destAddr16;
 	}
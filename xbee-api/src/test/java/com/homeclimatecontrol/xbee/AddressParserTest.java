@@ -5,7 +5,10 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.jupiter.api.Test;
 
-import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 
 class AddressParserTest {
 
@@ -33,4 +36,45 @@ class AddressParserTest {
         assertThat(AddressParser.render4x4("00 13 a2 00 40 5d 80 27")).isEqualTo("0013A200.405D8027");
         assertThat(AddressParser.render4x4("00 13 a2 00 f0 5d 80 27")).isEqualTo("0013A200.F05D8027");
     }
+
+    @Test
+    void badAddress() {
+
+        assertThatIllegalArgumentException().isThrownBy(() -> AddressParser.parse("48 fe 00 13 a2 00 40"));
+        assertThatIllegalArgumentException().isThrownBy(() -> AddressParser.parse("48 fe 00 13 a2 00 40 5d 00"));
+        assertThatIllegalArgumentException().isThrownBy(() -> AddressParser.parse("0x48fe0013a200405d"));
+    }
+
+    @Test
+    void longBacked() {
+
+        var a64 = AddressParser.parse("0013A200.405D8027");
+
+        assertThat(a64.toLong()).isEqualTo(0x0013A200405D8027L);
+        assertThat(a64.getAddress()).containsExactly(0x00, 0x13, 0xA2, 0x00, 0x40, 0x5D, 0x80, 0x27);
+
+        // The array is a copy, the address is immutable
+        a64.getAddress()[0] = 0xFF;
+        assertThat(a64.getAddress()[0]).isZero();
+
+        assertThat(new XBeeAddress64(a64.getAddress())).isEqualTo(a64).hasSameHashCodeAs(a64);
+        assertThat(new XBeeAddress64("00 13 A2 00 40 5D 80 27")).isEqualTo(a64);
+        assertThat(XBeeAddress64.valueOf(ByteBuffer.wrap(new byte[] { 0x00, 0x13, (byte) 0xA2, 0x00, 0x40, 0x5D, (byte) 0x80, 0x27 }))).isEqualTo(a64);
+    }
+
+    @Test
+    @SuppressWarnings("removal")
+    void deprecatedConstructor() {
+        assertThat(new XBeeAddress64()).isEqualTo(XBeeAddress64.ZNET_COORDINATOR);
+    }
+
+    @Test
+    void intern() {
+
+        var a1 = XBeeAddress64.valueOf(0x0013A200405D8027L);
+        var a2 = XBeeAddress64.valueOf(0x0013A200405D8027L);
+
+        assertThat(a1).isSameAs(a2);
+        assertThat(XBeeAddress64.valueOf(0xFFFFFFFF_FFFFFFFFL).toString()).isEqualTo("FFFFFFFF.FFFFFFFF");
+    }
 }
@@ -0,0 +1,94 @@
+package com.homeclimatecontrol.xbee;
+
+import com.homeclimatecontrol.xbee.transport.LoopbackDevice;
+import com.rapplogic.xbee.api.AtCommand;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.homeclimatecontrol.xbee.ReceiveLaneTest.await;
+import static com.rapplogic.xbee.api.AtCommand.Command.HV;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AtSessionTest {
+
+    @Test
+    void pipelined() throws Exception {
+
+        var window = 4;
+        var held = new ArrayList<int[]>();
+
+        // Only respond once the whole window is in flight, a session that waits for every response would time out
+        var transport = LoopbackDevice.transport((device, frame) -> {
+            synchronized (held) {
+
+                held.add(frame);
+
+                if (held.size() >= window) {
+                    held.forEach(f -> LoopbackDevice.answer(device, f));
+                    held.clear();
+                }
+            }
+        });
+
+        try (var xbee = new XBeeReactive(transport)) {
+
+            var commands = new AtCommand.Command[window * 2];
+            Arrays.fill(commands, HV);
+
+            var results = new AtSession(xbee, window, Duration.ofSeconds(5))
+                    .read(null, commands)
+                    .collectList()
+                    .block(Duration.ofSeconds(4));
+
+            assertThat(results).hasSize(window * 2);
+            assertThat(results).allSatisfy(result -> {
+                assertThat(result.isTimedOut()).isFalse();
+                assertThat(result.response.command).isEqualTo(HV);
+            });
+            assertThat(xbee.getPendingRequests().size()).isZero();
+        }
+    }
+
+    @Test
+    void remoteWindow() throws Exception {
+
+        var window = DestinationLimiter.DEFAULT_MAX_IN_FLIGHT * 2;
+        var node = AddressParser.parse("0013A200.402D52DD");
+        var held = new ArrayList<int[]>();
+        var maxHeld = new AtomicInteger();
+
+        // Only respond once the whole window is in flight, the default destination limit would never let it fill up
+        var transport = LoopbackDevice.transport((device, frame) -> {
+            synchronized (held) {
+
+                held.add(frame);
+                maxHeld.accumulateAndGet(held.size(), Math::max);
+
+                if (held.size() >= window) {
+                    held.forEach(f -> LoopbackDevice.answer(device, f));
+                    held.clear();
+                }
+            }
+        });
+
+        try (var xbee = new XBeeReactive(transport)) {
+
+            var commands = new AtCommand.Command[window * 2];
+            Arrays.fill(commands, HV);
+
+            var results = new AtSession(xbee, window, Duration.ofSeconds(5))
+                    .read(node, commands)
+                    .collectList()
+                    .block(Duration.ofSeconds(4));
+
+            assertThat(results).hasSize(window * 2);
+            assertThat(results).allSatisfy(result -> assertThat(result.isTimedOut()).isFalse());
+            assertThat(maxHeld.get()).isEqualTo(window);
+            await(() -> xbee.getDestinationLimiter().getDestinations().isEmpty());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.homeclimatecontrol.xbee;
+
+import com.homeclimatecontrol.xbee.transport.LoopbackDevice;
+import com.homeclimatecontrol.xbee.transport.LoopbackTransport;
+import com.rapplogic.xbee.api.AtCommand;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static com.homeclimatecontrol.xbee.transport.LoopbackDevice.LOCAL_AT;
+import static com.homeclimatecontrol.xbee.transport.LoopbackDevice.QUEUED_AT;
+import static com.rapplogic.xbee.api.AtCommand.Command.AC;
+import static com.rapplogic.xbee.api.AtCommand.Command.ID;
+import static com.rapplogic.xbee.api.AtCommand.Command.NJ;
+import static com.rapplogic.xbee.api.AtCommand.Command.SD;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+class ConfigTransactionTest {
+
+    @Test
+    void local() throws Exception {
+
+        var transport = LoopbackDevice.transport();
+
+        try (var xbee = new XBeeReactive(transport)) {
+
+            var responses = new ConfigTransaction(null)
+                    .set(ID, 0x12, 0x34)
+                    .set(SD, 0x03)
+                    .set(NJ, 0xFF)
+                    .apply(xbee, Duration.ofSeconds(5))
+                    .block(Duration.ofSeconds(10));
+
+            assertThat(responses).hasSize(4);
+            assertThat(responses.get(3).command).isEqualTo(AC);
+
+            // Three queued changes, one apply, and the apply goes last
+            var frames = LoopbackDevice.frames(transport.getWritten());
+
+            assertThat(frames).extracting(frame -> frame[0]).containsExactly(QUEUED_AT, QUEUED_AT, QUEUED_AT, LOCAL_AT);
+            assertThat(command(frames.get(3))).isEqualTo(AC.code);
+        }
+    }
+
+    @Test
+    void aborted() throws Exception {
+
+        // Nobody home
+        var transport = new LoopbackTransport();
+
+        try (var xbee = new XBeeReactive(transport)) {
+
+            var apply = new ConfigTransaction(null)
+                    .set(ID, 0x12, 0x34)
+                    .set(SD, 0x03)
+                    .apply(xbee, Duration.ofMillis(200));
+
+            assertThatThrownBy(() -> apply.block(Duration.ofSeconds(5)))
+                    .hasCauseInstanceOf(ConfigTransaction.AbortedException.class);
+
+            assertThat(LoopbackDevice.frames(transport.getWritten()))
+                    .extracting(frame -> frame[0])
+                    .containsExactly(QUEUED_AT, QUEUED_AT);
+        }
+    }
+
+    @Test
+    void partial() throws Exception {
+
+        // Rejects SD, a bit later so that ID is confirmed first, takes everything else
+        var transport = LoopbackDevice.transport((device, frame) -> {
+            if (command(frame).equals(SD.code)) {
+                Mono.delay(Duration.ofMillis(100))
+                        .subscribe(ignored -> device.inject(LoopbackDevice.frame(0x88, frame[1], frame[2], frame[3], 0x03)));
+            } else {
+                LoopbackDevice.answer(device, frame);
+            }
+        });
+
+        try (var xbee = new XBeeReactive(transport)) {
+
+            var apply = new ConfigTransaction(null)
+                    .set(ID, 0x12, 0x34)
+                    .set(SD, 0x0F)
+                    .apply(xbee, Duration.ofSeconds(5));
+
+            var thrown = catchThrowable(() -> apply.block(Duration.ofSeconds(10)));
+
+            assertThat(thrown).hasCauseInstanceOf(ConfigTransaction.AbortedException.class);
+
+            var aborted = (ConfigTransaction.AbortedException) thrown.getCause();
+
+            // ID is left stored for the caller to clean up, and nothing is applied
+            assertThat(aborted.request.getCommand()).isEqualTo(SD);
+            assertThat(aborted.stored).extracting(AtCommand::getCommand).containsExactly(ID);
+            assertThat(LoopbackDevice.frames(transport.getWritten()))
+                    .extracting(frame -> frame[0])
+                    .containsExactly(QUEUED_AT, QUEUED_AT);
+        }
+    }
+
+    private static String command(int[] frame) {
+        return new String(new char[] {(char) frame[2], (char) frame[3]});
+    }
+}
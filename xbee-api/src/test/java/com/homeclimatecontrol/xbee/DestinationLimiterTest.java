@@ -0,0 +1,142 @@
+package com.homeclimatecontrol.xbee;
+
+import com.rapplogic.xbee.api.XBeeAddress64;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Hooks;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class DestinationLimiterTest {
+
+    private static final XBeeAddress64 DEAD = XBeeAddress64.valueOf(0x0013A2004055730DL);
+    private static final XBeeAddress64 HEALTHY = XBeeAddress64.valueOf(0x0013A200402D52DDL);
+
+    @Test
+    void limit() throws Exception {
+
+        var limiter = new DestinationLimiter(2);
+
+        var p1 = limiter.acquire(DEAD).block();
+        var p2 = limiter.acquire(DEAD).block();
+        var waiting = limiter.acquire(DEAD).toFuture();
+
+        assertThat(waiting).isNotDone();
+        assertThat(limiter.getInFlight(DEAD)).isEqualTo(2);
+        assertThat(limiter.getQueued(DEAD)).isEqualTo(1);
+
+        // The dead node doesn't hold up the healthy one
+        var healthy = limiter.acquire(HEALTHY).block();
+
+        assertThat(healthy).isNotNull();
+        assertThat(limiter.getInFlight(HEALTHY)).isEqualTo(1);
+
+        p1.release();
+        // Released twice, counted once
+        p1.release();
+
+        var p3 = waiting.get(5, TimeUnit.SECONDS);
+
+        assertThat(limiter.getInFlight(DEAD)).isEqualTo(2);
+        assertThat(limiter.getQueued(DEAD)).isZero();
+
+        assertThat(limiter.getDestinations()).containsExactlyInAnyOrder(DEAD, HEALTHY);
+
+        p2.release();
+        p3.release();
+        healthy.release();
+
+        // Nothing in flight, nothing to remember
+        assertThat(limiter.getInFlight(DEAD)).isZero();
+        assertThat(limiter.getDestinations()).isEmpty();
+
+        // Comes back when needed
+        limiter.acquire(DEAD).block();
+        assertThat(limiter.getInFlight(DEAD)).isEqualTo(1);
+    }
+
+    @Test
+    void cancel() {
+
+        var dropped = new ArrayList<Throwable>();
+
+        Hooks.onErrorDropped(dropped::add);
+
+        try {
+
+            var limiter = new DestinationLimiter(1);
+            var p1 = limiter.acquire(DEAD).block();
+            var waiting = limiter.acquire(DEAD).subscribe();
+
+            assertThat(limiter.getQueued(DEAD)).isEqualTo(1);
+
+            waiting.dispose();
+
+            assertThat(limiter.getQueued(DEAD)).isZero();
+
+            p1.release();
+
+            // The cancelled waiter didn't take the place
+            assertThat(limiter.getInFlight(DEAD)).isZero();
+            assertThat(limiter.getDestinations()).isEmpty();
+
+            // Giving up the place in the queue is not an error. Dropped errors would come from another thread.
+            Mono.delay(Duration.ofMillis(200)).block();
+            assertThat(dropped).isEmpty();
+
+        } finally {
+            Hooks.resetOnErrorDropped();
+        }
+    }
+
+    @Test
+    void raiseLimit() throws Exception {
+
+        var limiter = new DestinationLimiter(1);
+
+        limiter.acquire(DEAD).block();
+
+        var waiting = limiter.acquire(DEAD).toFuture();
+
+        limiter.setMaxInFlight(DestinationLimiter.UNLIMITED);
+
+        assertThat(waiting.get(5, TimeUnit.SECONDS)).isNotNull();
+        assertThat(limiter.getInFlight(DEAD)).isEqualTo(2);
+    }
+
+    @Test
+    void override() {
+
+        var limiter = new DestinationLimiter(1);
+
+        for (var count = 0; count < 3; count++) {
+            assertThat(limiter.acquire(DEAD, 3).toFuture()).isDone();
+        }
+
+        // Those with their own limit count against the default one, and the other way around
+        assertThat(limiter.acquire(DEAD).toFuture()).isNotDone();
+        assertThat(limiter.acquire(DEAD, 4).toFuture()).isNotDone();
+        assertThat(limiter.getInFlight(DEAD)).isEqualTo(3);
+        assertThat(limiter.getQueued(DEAD)).isEqualTo(2);
+    }
+
+    @Test
+    void unlimited() {
+
+        var limiter = new DestinationLimiter(1);
+
+        // Local and broadcast requests are never held up
+        for (var count = 0; count < 10; count++) {
+            assertThat(limiter.acquire(null).block()).isNotNull();
+            assertThat(limiter.acquire(XBeeAddress64.BROADCAST).block()).isNotNull();
+        }
+
+        assertThat(limiter.getDestinations()).isEmpty();
+        assertThatIllegalArgumentException().isThrownBy(() -> new DestinationLimiter(-1));
+    }
+}
@@ -0,0 +1,167 @@
+package com.homeclimatecontrol.xbee;
+
+import com.homeclimatecontrol.xbee.trace.FrameTracer;
+import com.rapplogic.xbee.api.AtCommand;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.homeclimatecontrol.xbee.ReceiveLaneTest.await;
+import static com.rapplogic.xbee.api.AtCommand.Command.HV;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HardwareWriterTest {
+
+    @Test
+    void strict() throws Exception {
+
+        var written = writeBehindBlocker(WriteScheduling.STRICT, List.of(
+                ticket(2, Priority.BULK),
+                ticket(3, Priority.BULK),
+                ticket(20, Priority.NORMAL),
+                ticket(4, Priority.BULK),
+                ticket(10, Priority.CONTROL)));
+
+        // Control overtakes everything queued before it
+        assertThat(written).containsExactly(1, 10, 20, 2, 3, 4);
+    }
+
+    @Test
+    void weighted() throws Exception {
+
+        var written = writeBehindBlocker(WriteScheduling.weighted(1, 1, 1), List.of(
+                ticket(2, Priority.BULK),
+                ticket(3, Priority.BULK),
+                ticket(4, Priority.BULK),
+                ticket(10, Priority.CONTROL),
+                ticket(11, Priority.CONTROL),
+                ticket(12, Priority.CONTROL)));
+
+        // One of each per round, control first
+        assertThat(written).containsExactly(1, 10, 2, 11, 3, 12, 4);
+    }
+
+    @Test
+    void stats() throws Exception {
+
+        var out = new ByteArrayOutputStream();
+
+        try (var writer = new HardwareWriter(out, FrameTracer.NONE)) {
+
+            var control = ticket(1, Priority.CONTROL);
+            var bulk = ticket(2, Priority.BULK);
+
+            writer.submit(control);
+            writer.submit(bulk);
+
+            CompletableFuture.allOf(control.written, bulk.written).get(5, TimeUnit.SECONDS);
+
+            var stats = writer.getLaneStats();
+
+            assertThat(stats).extracting(s -> s.priority).containsExactly(Priority.values());
+            assertThat(stats.get(Priority.CONTROL.ordinal()).getWritten()).isEqualTo(1);
+            assertThat(stats.get(Priority.NORMAL.ordinal()).getWritten()).isZero();
+            assertThat(stats.get(Priority.BULK.ordinal()).getWait().getCount()).isEqualTo(1);
+            assertThat(writer.getQueueDepth()).isZero();
+        }
+    }
+
+    /**
+     * Submit a blocker ticket, wait until the writer is stuck writing it, submit the rest,
+     * then let the writer go.
+     *
+     * @return Frame IDs in the order they were written.
+     */
+    private static List<Integer> writeBehindBlocker(WriteScheduling scheduling, List<WriteTicket> tickets) throws Exception {
+
+        var out = new BlockingOutputStream();
+
+        try (var writer = new HardwareWriter(out, FrameTracer.NONE, scheduling)) {
+
+            writer.submit(ticket(1, Priority.BULK));
+            out.entered.await(5, TimeUnit.SECONDS);
+
+            for (var ticket : tickets) {
+                writer.submit(ticket);
+            }
+
+            assertThat(writer.getQueueDepth()).isEqualTo(tickets.size());
+
+            out.release.countDown();
+
+            for (var ticket : tickets) {
+                ticket.written.get(5, TimeUnit.SECONDS);
+            }
+
+            await(() -> writer.getQueueDepth() == 0);
+        }
+
+        return out.getFrameIds();
+    }
+
+    private static WriteTicket ticket(int frameId, Priority priority) {
+        return new WriteTicket(new AtCommand(HV), (byte) frameId, 0, priority);
+    }
+
+    /**
+     * Blocks the first write until released, records everything.
+     */
+    private static class BlockingOutputStream extends OutputStream {
+
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+
+        @Override
+        public void write(int b) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+
+            entered.countDown();
+
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+
+            synchronized (data) {
+                data.write(b, off, len);
+            }
+        }
+
+        /**
+         * None of the frames used here need escaping, so the frame ID is always 4 bytes past the start delimiter.
+         */
+        List<Integer> getFrameIds() {
+
+            byte[] bytes;
+
+            synchronized (data) {
+                bytes = data.toByteArray();
+            }
+
+            var result = new ArrayList<Integer>();
+            var offset = 0;
+
+            while (offset < bytes.length) {
+
+                var length = ((bytes[offset + 1] & 0xFF) << 8) | (bytes[offset + 2] & 0xFF);
+
+                result.add(bytes[offset + 4] & 0xFF);
+                offset += length + 4;
+            }
+
+            return result;
+        }
+    }
+}
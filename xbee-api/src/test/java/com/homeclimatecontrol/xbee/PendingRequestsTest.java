@@ -0,0 +1,239 @@
+package com.homeclimatecontrol.xbee;
+
+import com.homeclimatecontrol.xbee.response.frame.ExtendedTransmitStatus;
+import com.homeclimatecontrol.xbee.response.frame.LocalATCommandResponse;
+import com.homeclimatecontrol.xbee.response.frame.RemoteATCommandResponse;
+import com.homeclimatecontrol.xbee.response.frame.TransmitStatus;
+import com.rapplogic.xbee.api.AtCommand;
+import com.rapplogic.xbee.api.RemoteAtRequest;
+import com.rapplogic.xbee.api.XBeeAddress16;
+import com.rapplogic.xbee.api.XBeeAddress64;
+import com.rapplogic.xbee.api.XBeeRequest;
+import com.rapplogic.xbee.api.wpan.TxRequest64;
+import com.rapplogic.xbee.api.zigbee.ZNetTxRequest;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Hooks;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import static com.rapplogic.xbee.api.AtCommand.Command.D0;
+import static com.rapplogic.xbee.api.AtCommand.Command.HV;
+import static com.rapplogic.xbee.api.AtCommand.Command.NT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PendingRequestsTest {
+
+    private static LocalATCommandResponse response(int frameId, AtCommand.Command command) {
+        return new LocalATCommandResponse((byte) frameId, command, LocalATCommandResponse.Status.OK, null);
+    }
+
+    @Test
+    void complete() {
+
+        var table = new PendingRequests();
+        var pending = table.allocate(new AtCommand(HV));
+
+        assertThat(table.size()).isEqualTo(1);
+
+        var rsp = response(pending.frameId, HV);
+
+        assertThat(table.complete(response(pending.frameId + 1, HV))).isFalse();
+        assertThat(table.complete(rsp)).isTrue();
+        assertThat(pending.response).isCompletedWithValue(rsp);
+        assertThat(table.size()).isZero();
+
+        // Nobody's waiting anymore
+        assertThat(table.complete(rsp)).isFalse();
+        assertThat(table.evict(pending)).isFalse();
+    }
+
+    @Test
+    void allocate() {
+
+        var table = new PendingRequests();
+        var ids = new HashSet<Byte>();
+
+        for (var count = 0; count < PendingRequests.CAPACITY; count++) {
+
+            var pending = table.allocate(new AtCommand(HV));
+
+            assertThat(pending).isNotNull();
+            assertThat(pending.frameId).isNotZero();
+            assertThat(pending.frameId).isNotEqualTo(XBeeRequest.DEFAULT_FRAME_ID);
+            assertThat(ids.add(pending.frameId)).isTrue();
+        }
+
+        assertThat(table.allocate(new AtCommand(HV))).isNull();
+    }
+
+    @Test
+    void inFlightSkipped() {
+
+        var table = new PendingRequests();
+        var held = table.allocate(new AtCommand(HV));
+
+        // Go full circle, the ID still in flight must never be handed out
+        for (var count = 0; count < PendingRequests.CAPACITY * 3; count++) {
+
+            var pending = table.allocate(new AtCommand(NT));
+
+            assertThat(pending.frameId).isNotEqualTo(held.frameId);
+            table.evict(pending);
+        }
+    }
+
+    @Test
+    void backpressure() {
+
+        var table = new PendingRequests();
+        PendingRequests.Pending first = null;
+
+        for (var count = 0; count < PendingRequests.CAPACITY; count++) {
+            var pending = table.allocate(new AtCommand(HV));
+            first = first == null ? pending : first;
+        }
+
+        var waiting = table.acquire(new AtCommand(NT)).toFuture();
+
+        assertThat(waiting).isNotDone();
+        assertThat(table.getWaiting()).isEqualTo(1);
+
+        table.complete(response(first.frameId, HV));
+
+        var acquired = waiting.orTimeout(5, TimeUnit.SECONDS).join();
+
+        assertThat(acquired.frameId).isEqualTo(first.frameId);
+        assertThat(table.getWaiting()).isZero();
+    }
+
+    @Test
+    void cancelWhileWaiting() {
+
+        var table = new PendingRequests();
+
+        for (var count = 0; count < PendingRequests.CAPACITY; count++) {
+            table.allocate(new AtCommand(HV));
+        }
+
+        var dropped = new ArrayList<Throwable>();
+
+        Hooks.onErrorDropped(dropped::add);
+
+        try {
+
+            var disposable = table.acquire(new AtCommand(NT)).subscribe();
+            assertThat(table.getWaiting()).isEqualTo(1);
+
+            disposable.dispose();
+            assertThat(table.getWaiting()).isZero();
+            assertThat(table.size()).isEqualTo(PendingRequests.CAPACITY);
+
+            // Giving up the place in the queue is not an error. Dropped errors would come from another thread.
+            Mono.delay(Duration.ofMillis(200)).block();
+            assertThat(dropped).isEmpty();
+
+        } finally {
+            Hooks.resetOnErrorDropped();
+        }
+    }
+
+    @Test
+    void cancelAfterFailAll() {
+
+        var table = new PendingRequests();
+
+        for (var count = 0; count < PendingRequests.CAPACITY; count++) {
+            table.allocate(new AtCommand(HV));
+        }
+
+        var failed = new ArrayList<Throwable>();
+        var disposable = table.acquire(new AtCommand(NT)).subscribe(pending -> {}, failed::add);
+
+        table.failAll(new IOException("gone"));
+
+        // Cancelling a waiter that has already failed is a no-op
+        disposable.dispose();
+
+        assertThat(table.getWaiting()).isZero();
+        assertThat(table.size()).isZero();
+    }
+
+    @Test
+    void mismatch() {
+
+        var table = new PendingRequests();
+        var pending = table.allocate(new AtCommand(NT));
+
+        // Late response to some other request that used to have this frame ID
+        assertThat(table.complete(response(pending.frameId, HV))).isFalse();
+        assertThat(pending.response).isNotDone();
+        assertThat(table.size()).isEqualTo(1);
+    }
+
+    @Test
+    void wrongType() {
+
+        var table = new PendingRequests();
+        var remote = table.allocate(new RemoteAtRequest(XBeeAddress64.BROADCAST, D0));
+        var tx = table.allocate(new ZNetTxRequest(XBeeAddress64.BROADCAST, new int[] {0x42}));
+
+        // Transmit status, and a local response to the same command, don't answer a remote AT command
+        assertThat(table.complete(status(remote.frameId))).isFalse();
+        assertThat(table.complete(new LocalATCommandResponse(remote.frameId, D0, LocalATCommandResponse.Status.OK, null))).isFalse();
+        assertThat(remote.response).isNotDone();
+
+        // AT command response doesn't answer a transmit request
+        assertThat(table.complete(response(tx.frameId, D0))).isFalse();
+        assertThat(tx.response).isNotDone();
+        assertThat(table.size()).isEqualTo(2);
+
+        var remoteResponse = new RemoteATCommandResponse(remote.frameId, XBeeAddress64.BROADCAST, XBeeAddress16.ZNET_BROADCAST, D0, RemoteATCommandResponse.Status.OK, null);
+
+        assertThat(table.complete(remoteResponse)).isTrue();
+        assertThat(remote.response).isCompletedWithValue(remoteResponse);
+        assertThat(table.complete(status(tx.frameId))).isTrue();
+        assertThat(table.size()).isZero();
+    }
+
+    @Test
+    void wpanTransmitStatus() {
+
+        var table = new PendingRequests();
+        var tx = table.allocate(new TxRequest64(XBeeAddress64.BROADCAST, new int[] {0x42}));
+
+        // 802.15.4 transmit requests are answered with 0x89, not 0x8B
+        assertThat(table.complete(status(tx.frameId))).isFalse();
+        assertThat(tx.response).isNotDone();
+
+        var status = new TransmitStatus(tx.frameId, (byte) 0x00);
+
+        assertThat(table.complete(status)).isTrue();
+        assertThat(tx.response).isCompletedWithValue(status);
+        assertThat(table.size()).isZero();
+    }
+
+    private static ExtendedTransmitStatus status(byte frameId) {
+        return new ExtendedTransmitStatus(frameId, XBeeAddress16.ZNET_BROADCAST, (byte) 0, (byte) 0, (byte) 0);
+    }
+
+    @Test
+    void failAll() {
+
+        var table = new PendingRequests();
+        var first = table.allocate(new AtCommand(HV));
+        var last = table.allocate(new AtCommand(NT));
+
+        table.failAll(new IOException("gone"));
+
+        assertThat(first.response).isCompletedExceptionally();
+        assertThat(last.response).isCompletedExceptionally();
+        assertThat(table.size()).isZero();
+
+        assertThat(table.acquire(new AtCommand(HV)).block(Duration.ofSeconds(1))).isNotNull();
+    }
+}
@@ -0,0 +1,297 @@
+package com.homeclimatecontrol.xbee;
+
+import com.homeclimatecontrol.xbee.response.frame.FrameIdAwareResponse;
+import com.homeclimatecontrol.xbee.response.frame.XBeeResponseFrame;
+import com.homeclimatecontrol.xbee.transport.LoopbackTransport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReceiveLaneTest {
+
+    static final byte[] ADDRESS_A = { 0x00, 0x13, (byte) 0xA2, 0x00, 0x40, 0x55, 0x73, 0x0D };
+    static final byte[] ADDRESS_B = { 0x00, 0x13, (byte) 0xA2, 0x00, 0x40, 0x2D, 0x52, (byte) 0xDD };
+
+    private LoopbackTransport transport;
+    private HardwareReader reader;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        transport = new LoopbackTransport();
+        transport.open();
+        reader = new HardwareReader(transport.getInputStream());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        reader.close();
+        transport.close();
+    }
+
+    @Test
+    void dropOldest() throws Exception {
+
+        var subscriber = subscribe(new ReceiveOptions("test", 2, ReceiveOptions.Overflow.DROP_OLDEST));
+
+        injectLocal(1, 2, 3, 4, 5);
+        await(() -> stats().getReceived() == 5);
+
+        assertThat(stats().getDropped()).isEqualTo(3);
+        assertThat(stats().getLag()).isEqualTo(2);
+
+        subscriber.request(10);
+        await(() -> subscriber.frames.size() == 2);
+
+        assertThat(frameIds(subscriber.frames)).containsExactly(4, 5);
+        assertThat(stats().getLag()).isZero();
+    }
+
+    @Test
+    void buffer() throws Exception {
+
+        var subscriber = subscribe(new ReceiveOptions("test", 2, ReceiveOptions.Overflow.BUFFER));
+
+        injectLocal(1, 2, 3, 4, 5);
+        await(() -> stats().getReceived() == 5);
+
+        assertThat(stats().getDropped()).isZero();
+        assertThat(stats().getLag()).isEqualTo(5);
+
+        subscriber.request(10);
+        await(() -> subscriber.frames.size() == 5);
+
+        assertThat(frameIds(subscriber.frames)).containsExactly(1, 2, 3, 4, 5);
+    }
+
+    @Test
+    void dropNewest() throws Exception {
+
+        var subscriber = subscribe(new ReceiveOptions("test", 2, ReceiveOptions.Overflow.DROP_NEWEST));
+
+        injectLocal(1, 2, 3, 4, 5);
+        await(() -> stats().getReceived() == 5);
+
+        subscriber.request(10);
+        await(() -> subscriber.frames.size() == 2);
+
+        assertThat(frameIds(subscriber.frames)).containsExactly(1, 2);
+        assertThat(stats().getDropped()).isEqualTo(3);
+    }
+
+    @Test
+    void error() throws Exception {
+
+        var subscriber = subscribe(new ReceiveOptions("test", 2, ReceiveOptions.Overflow.ERROR));
+
+        injectLocal(1, 2, 3);
+
+        var error = subscriber.error.get(5, TimeUnit.SECONDS);
+
+        assertThat(Exceptions.isOverflow(error)).isTrue();
+
+        // The lane is gone right after the error has been delivered
+        await(() -> reader.getReceiveStats().isEmpty());
+    }
+
+    @Test
+    void latestPerSource() throws Exception {
+
+        var subscriber = subscribe(new ReceiveOptions("test", 4, ReceiveOptions.Overflow.LATEST_PER_SOURCE));
+
+        injectRemote(1, ADDRESS_A);
+        injectRemote(2, ADDRESS_B);
+        injectRemote(3, ADDRESS_A);
+        injectRemote(4, ADDRESS_B);
+        injectRemote(5, ADDRESS_A);
+        await(() -> stats().getReceived() == 5);
+
+        assertThat(stats().getLag()).isEqualTo(2);
+
+        subscriber.request(10);
+        await(() -> subscriber.frames.size() == 2);
+
+        assertThat(frameIds(subscriber.frames)).containsExactly(5, 4);
+    }
+
+    @Test
+    void slowDoesNotStallFast() throws Exception {
+
+        var slow = subscribe(new ReceiveOptions("slow", 1, ReceiveOptions.Overflow.DROP_NEWEST));
+        var fast = reader.receive().take(5).collectList().toFuture();
+
+        injectLocal(1, 2, 3, 4, 5);
+
+        assertThat(frameIds(fast.get(5, TimeUnit.SECONDS))).containsExactly(1, 2, 3, 4, 5);
+        assertThat(slow.frames).isEmpty();
+    }
+
+    @Test
+    void complete() throws Exception {
+
+        var subscriber = subscribe(ReceiveOptions.DEFAULT);
+
+        injectLocal(1);
+        await(() -> stats().getReceived() == 1);
+
+        reader.close();
+
+        // Buffered frames are delivered before the completion
+        subscriber.request(1);
+
+        assertThat(subscriber.completed.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(frameIds(subscriber.frames)).containsExactly(1);
+    }
+
+    private ReceiveStats stats() {
+        return reader.getReceiveStats().get(0);
+    }
+
+    private TestSubscriber subscribe(ReceiveOptions options) {
+
+        var result = new TestSubscriber();
+
+        reader.receive(options).subscribe(result);
+
+        return result;
+    }
+
+    private void injectLocal(int... frameIds) {
+        for (var frameId : frameIds) {
+            transport.inject(localFrame(frameId));
+        }
+    }
+
+    private void injectRemote(int frameId, byte[] address) {
+        transport.inject(remoteFrame(frameId, address));
+    }
+
+    /**
+     * @return Local AT command response to NT.
+     */
+    static byte[] localFrame(int frameId) {
+        return frame((byte) 0x88, (byte) frameId, 0x4E, 0x54, 0x00, 0x00, 0x3C);
+    }
+
+    /**
+     * @return Remote AT command response to D0.
+     */
+    static byte[] remoteFrame(int frameId, byte[] address) {
+
+        var data = new byte[] {
+                (byte) 0x97, (byte) frameId,
+                address[0], address[1], address[2], address[3], address[4], address[5], address[6], address[7],
+                (byte) 0xFF, (byte) 0xFE, // Address 16
+                0x44, 0x30, // D0
+                0x00 // Status
+        };
+
+        return frame(data);
+    }
+
+    /**
+     * Wrap the frame data into an escaped frame.
+     */
+    private static byte[] frame(byte type, byte frameId, int... rest) {
+
+        var data = new byte[rest.length + 2];
+
+        data[0] = type;
+        data[1] = frameId;
+
+        for (var offset = 0; offset < rest.length; offset++) {
+            data[offset + 2] = (byte) rest[offset];
+        }
+
+        return frame(data);
+    }
+
+    private static byte[] frame(byte[] data) {
+
+        var out = new ByteArrayOutputStream();
+        var sum = 0;
+
+        out.write(0x7E);
+        escape(out, data.length >> 8);
+        escape(out, data.length);
+
+        for (var b : data) {
+            escape(out, b);
+            sum += b;
+        }
+
+        escape(out, 0xFF - (sum & 0xFF));
+
+        return out.toByteArray();
+    }
+
+    private static void escape(ByteArrayOutputStream out, int b) {
+
+        var value = b & 0xFF;
+
+        if (value == 0x7E || value == 0x7D || value == 0x11 || value == 0x13) {
+            out.write(0x7D);
+            out.write(value ^ 0x20);
+        } else {
+            out.write(value);
+        }
+    }
+
+    static List<Integer> frameIds(List<? extends XBeeResponseFrame> frames) {
+        return frames.stream().map(f -> ((FrameIdAwareResponse) f).frameId & 0xFF).collect(Collectors.toList());
+    }
+
+    static void await(BooleanSupplier condition) throws InterruptedException {
+
+        var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+
+        while (!condition.getAsBoolean()) {
+
+            assertThat(System.nanoTime()).as("timed out").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Requests nothing until told to.
+     */
+    static class TestSubscriber extends BaseSubscriber<XBeeResponseFrame> {
+
+        final List<XBeeResponseFrame> frames = new CopyOnWriteArrayList<>();
+        final CompletableFuture<Throwable> error = new CompletableFuture<>();
+        final CompletableFuture<Boolean> completed = new CompletableFuture<>();
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            // Don't request anything yet
+        }
+
+        @Override
+        protected void hookOnNext(XBeeResponseFrame value) {
+            frames.add(value);
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            error.complete(throwable);
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            completed.complete(true);
+        }
+    }
+}
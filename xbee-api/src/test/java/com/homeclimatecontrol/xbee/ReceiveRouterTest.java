@@ -0,0 +1,99 @@
+package com.homeclimatecontrol.xbee;
+
+import com.homeclimatecontrol.xbee.response.frame.FrameIdAwareResponse;
+import com.homeclimatecontrol.xbee.response.frame.LocalATCommandResponse;
+import com.homeclimatecontrol.xbee.response.frame.RemoteATCommandResponse;
+import com.homeclimatecontrol.xbee.transport.LoopbackTransport;
+import com.rapplogic.xbee.api.XBeeAddress64;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static com.homeclimatecontrol.xbee.ReceiveLaneTest.ADDRESS_A;
+import static com.homeclimatecontrol.xbee.ReceiveLaneTest.ADDRESS_B;
+import static com.homeclimatecontrol.xbee.ReceiveLaneTest.await;
+import static com.homeclimatecontrol.xbee.ReceiveLaneTest.frameIds;
+import static com.homeclimatecontrol.xbee.ReceiveLaneTest.localFrame;
+import static com.homeclimatecontrol.xbee.ReceiveLaneTest.remoteFrame;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class ReceiveRouterTest {
+
+    private LoopbackTransport transport;
+    private HardwareReader reader;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        transport = new LoopbackTransport();
+        transport.open();
+        reader = new HardwareReader(transport.getInputStream());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        reader.close();
+        transport.close();
+    }
+
+    @Test
+    void byType() throws Exception {
+
+        var local = reader.receive(LocalATCommandResponse.class, ReceiveOptions.DEFAULT).take(2).collectList().toFuture();
+        var remote = reader.receive(RemoteATCommandResponse.class, ReceiveOptions.DEFAULT).take(1).collectList().toFuture();
+        var all = reader.receive().take(3).collectList().toFuture();
+        // Supertype gets the subtypes, too
+        var frameIdAware = reader.receive(FrameIdAwareResponse.class, ReceiveOptions.DEFAULT).take(3).collectList().toFuture();
+
+        await(() -> reader.getReceiveStats().size() == 4);
+
+        transport.inject(localFrame(1));
+        transport.inject(remoteFrame(2, ADDRESS_A));
+        transport.inject(localFrame(3));
+
+        assertThat(frameIds(local.get(5, TimeUnit.SECONDS))).containsExactly(1, 3);
+        assertThat(frameIds(remote.get(5, TimeUnit.SECONDS))).containsExactly(2);
+        assertThat(frameIds(all.get(5, TimeUnit.SECONDS))).containsExactly(1, 2, 3);
+        assertThat(frameIds(frameIdAware.get(5, TimeUnit.SECONDS))).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void bySource() throws Exception {
+
+        var a = XBeeAddress64.valueOf(ByteBuffer.wrap(ADDRESS_A));
+        var fromA = reader.receiveFrom(a, ReceiveOptions.DEFAULT).take(2).collectList().toFuture();
+
+        await(() -> reader.getReceiveStats().size() == 1);
+
+        transport.inject(remoteFrame(1, ADDRESS_A));
+        transport.inject(remoteFrame(2, ADDRESS_B));
+        // No source address, nobody's interested
+        transport.inject(localFrame(3));
+        transport.inject(remoteFrame(4, ADDRESS_A));
+
+        var frames = fromA.get(5, TimeUnit.SECONDS);
+
+        assertThat(frameIds(frames)).containsExactly(1, 4);
+        assertThat(frames).allSatisfy(f -> assertThat(f.getSourceAddress64()).isEqualTo(a));
+    }
+
+    @Test
+    void unsubscribe() throws Exception {
+
+        var subscription = reader.receive(LocalATCommandResponse.class, ReceiveOptions.DEFAULT).subscribe();
+
+        await(() -> reader.getReceiveStats().size() == 1);
+
+        subscription.dispose();
+
+        assertThat(reader.getReceiveStats()).isEmpty();
+    }
+
+    @Test
+    void nullSource() {
+        assertThatIllegalArgumentException().isThrownBy(() -> reader.receiveFrom(null, ReceiveOptions.DEFAULT));
+    }
+}
@@ -0,0 +1,93 @@
+package com.homeclimatecontrol.xbee;
+
+import com.rapplogic.xbee.api.AtCommand;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static com.rapplogic.xbee.api.AtCommand.Command.HV;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WriteQueueTest {
+
+    @Test
+    void fifo() {
+
+        var queue = new WriteQueue();
+        var rq = new AtCommand(HV);
+
+        assertThat(queue.isEmpty()).isTrue();
+        assertThat(queue.poll()).isNull();
+
+        var first = new WriteTicket(rq, (byte) 1);
+        var second = new WriteTicket(rq, (byte) 2);
+
+        queue.offer(first);
+        queue.offer(second);
+
+        assertThat(queue.size()).isEqualTo(2);
+        assertThat(queue.poll()).isSameAs(first);
+        assertThat(queue.poll()).isSameAs(second);
+        assertThat(queue.poll()).isNull();
+        assertThat(queue.isEmpty()).isTrue();
+        assertThat(queue.size()).isZero();
+    }
+
+    @Test
+    void concurrentProducers() throws InterruptedException {
+
+        var producers = 4;
+        var perProducer = 10_000;
+        var queue = new WriteQueue();
+        var rq = new AtCommand(HV);
+        var start = new CountDownLatch(1);
+        var threads = new ArrayList<Thread>();
+
+        for (var producer = 0; producer < producers; producer++) {
+
+            // Frame ID tells the producer apart, trace ID is the sequence number
+            var frameId = (byte) producer;
+            var thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (var sequence = 0; sequence < perProducer; sequence++) {
+                    queue.offer(new WriteTicket(rq, frameId, sequence));
+                }
+            });
+
+            thread.start();
+            threads.add(thread);
+        }
+
+        start.countDown();
+
+        var next = new long[producers];
+        var received = 0;
+
+        while (received < producers * perProducer) {
+
+            var ticket = queue.poll();
+
+            if (ticket == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+
+            // Every producer's tickets come out in the order they went in
+            assertThat(ticket.traceId).isEqualTo(next[ticket.frameId]++);
+            received++;
+        }
+
+        for (var thread : threads) {
+            thread.join();
+        }
+
+        assertThat(queue.poll()).isNull();
+        assertThat(queue.size()).isZero();
+    }
+}
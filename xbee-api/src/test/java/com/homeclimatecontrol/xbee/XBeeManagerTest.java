@@ -0,0 +1,105 @@
+package com.homeclimatecontrol.xbee;
+
+import com.homeclimatecontrol.xbee.transport.LoopbackTransport;
+import com.rapplogic.xbee.api.AtCommand;
+import com.rapplogic.xbee.api.XBeeAddress64;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.homeclimatecontrol.xbee.ReceiveLaneTest.ADDRESS_A;
+import static com.homeclimatecontrol.xbee.ReceiveLaneTest.ADDRESS_B;
+import static com.homeclimatecontrol.xbee.ReceiveLaneTest.await;
+import static com.homeclimatecontrol.xbee.ReceiveLaneTest.localFrame;
+import static com.homeclimatecontrol.xbee.ReceiveLaneTest.remoteFrame;
+import static com.rapplogic.xbee.api.AtCommand.Command.HV;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class XBeeManagerTest {
+
+    @Test
+    void receive() throws Exception {
+
+        var t0 = new LoopbackTransport("t0", null);
+        var t1 = new LoopbackTransport("t1", null);
+
+        try (var manager = XBeeManager.open(List.of(t0, t1))) {
+
+            var future = manager.receive().take(2).collectList().toFuture();
+
+            // Subscriptions are made by now, receive() is hot
+            t0.inject(localFrame(1));
+            t1.inject(localFrame(2));
+
+            var received = future.get(5, TimeUnit.SECONDS);
+
+            assertThat(received).hasSize(2);
+            assertThat(received).anySatisfy(f -> assertThat(f.adapter.getName()).isEqualTo("t0"));
+            assertThat(received).anySatisfy(f -> assertThat(f.adapter.getName()).isEqualTo("t1"));
+        }
+    }
+
+    @Test
+    void route() throws Exception {
+
+        var t0 = new LoopbackTransport("t0", null);
+        var t1 = new LoopbackTransport("t1", null);
+
+        try (var manager = XBeeManager.open(List.of(t0, t1))) {
+
+            var a = XBeeAddress64.valueOf(ByteBuffer.wrap(ADDRESS_A));
+            var b = XBeeAddress64.valueOf(ByteBuffer.wrap(ADDRESS_B));
+            var adapters = manager.getAdapters();
+
+            // Nobody heard from anyone yet, both are idle, the first one wins
+            assertThat(manager.getAdapter(a)).isSameAs(adapters.get(0));
+
+            t1.inject(remoteFrame(1, ADDRESS_A));
+            await(() -> manager.getAdapter(a) == adapters.get(1));
+
+            t0.inject(remoteFrame(2, ADDRESS_B));
+            await(() -> manager.getAdapter(b) == adapters.get(0));
+
+            // A moved to another PAN
+            t0.inject(remoteFrame(3, ADDRESS_A));
+            await(() -> manager.getAdapter(a) == adapters.get(0));
+        }
+    }
+
+    @Test
+    void failover() throws Exception {
+
+        var t0 = new LoopbackTransport("t0", null);
+        var t1 = new LoopbackTransport("t1", null);
+
+        try (var manager = new XBeeManager(List.of(
+                new XBeeReactive(t0, ReconnectPolicy.NONE),
+                new XBeeReactive(t1, ReconnectPolicy.NONE)))) {
+
+            var a = XBeeAddress64.valueOf(ByteBuffer.wrap(ADDRESS_A));
+            var adapters = manager.getAdapters();
+
+            t1.inject(remoteFrame(1, ADDRESS_A));
+            await(() -> manager.getAdapter(a) == adapters.get(1));
+
+            // t1 is gone and won't be back, A is routed through whoever is left
+            t1.close();
+            await(() -> manager.getAdapter(a) == adapters.get(0));
+
+            // Even though t1 is the least busy now
+            adapters.get(0).sendAsync(new AtCommand(HV));
+            await(() -> adapters.get(0).getPendingRequests().size() == 1);
+
+            assertThat(manager.getLeastBusy()).isSameAs(adapters.get(0));
+            assertThat(manager.getAdapters()).hasSize(2);
+        }
+    }
+
+    @Test
+    void empty() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new XBeeManager(List.of()));
+    }
+}
@@ -2,8 +2,11 @@ package com.homeclimatecontrol.xbee;
 
 import com.homeclimatecontrol.xbee.response.command.DxResponse;
 import com.homeclimatecontrol.xbee.response.frame.RemoteATCommandResponse;
+import com.homeclimatecontrol.xbee.transport.LoopbackDevice;
+import com.homeclimatecontrol.xbee.transport.LoopbackTransport;
 import com.rapplogic.xbee.api.AtCommand;
 import com.rapplogic.xbee.api.RemoteAtRequest;
+import com.rapplogic.xbee.api.zigbee.ZNetTxRequest;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.jupiter.api.BeforeAll;
@@ -13,10 +16,17 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 import reactor.tools.agent.ReactorDebugAgent;
 
+import java.io.IOException;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
+import static com.homeclimatecontrol.xbee.ReceiveLaneTest.await;
 import static com.homeclimatecontrol.xbee.TestPortProvider.getCoordinatorTestPort;
 import static com.homeclimatecontrol.xbee.TestPortProvider.getTestPort;
 import static com.rapplogic.xbee.api.AtCommand.Command.AP;
@@ -33,12 +43,18 @@ import static com.rapplogic.xbee.api.AtCommand.Command.IS;
 import static com.rapplogic.xbee.api.AtCommand.Command.ND;
 import static com.rapplogic.xbee.api.AtCommand.Command.NT;
 import static com.rapplogic.xbee.api.AtCommand.Command.P0;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
-import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class XBeeReactiveTest {
 
+    /**
+     * Local AT Command Response to HV.
+     */
+    private static final byte[] HV_RESPONSE = LoopbackDevice.frame(0x88, 0x01, 0x48, 0x56, 0x00, 0x1A, 0x46);
+
     private final Logger logger = LogManager.getLogger();
     private final Duration localTimeout = Duration.ofSeconds(5);
     private final Duration remoteTimeout = Duration.ofSeconds(5);
@@ -302,6 +318,182 @@ class XBeeReactiveTest {
         }).doesNotThrowAnyException();
     }
 
+    @Test
+    void sendAndSendAsync() throws Exception {
+
+        var remote = AddressParser.parse("0013A200.402D52DD");
+        var held = new ArrayList<int[]>();
+
+        // Answer the remote AT command only after the transmit status, to see who gets the status
+        var transport = LoopbackDevice.transport((device, frame) -> {
+            synchronized (held) {
+
+                if (frame[0] == LoopbackDevice.REMOTE_AT) {
+                    held.add(frame);
+                    return;
+                }
+
+                LoopbackDevice.answer(device, frame);
+                held.forEach(f -> LoopbackDevice.answer(device, f));
+                held.clear();
+            }
+        });
+
+        try (var xbee = new XBeeReactive(transport)) {
+
+            var response = xbee.sendAT(new RemoteAtRequest(remote, D0), Duration.ofSeconds(5)).toFuture();
+
+            await(() -> xbee.getPendingRequests().size() == 1);
+
+            // Frame ID 2 is the first one send() hands out, it used to be sent as is
+            xbee.sendAsync(new ZNetTxRequest((byte) 2, remote, new int[] {0x42})).block(Duration.ofSeconds(5));
+
+            assertThat(response.get(5, TimeUnit.SECONDS)).isInstanceOf(RemoteATCommandResponse.class);
+
+            var frames = LoopbackDevice.frames(transport.getWritten());
+
+            assertThat(frames).hasSize(2);
+            assertThat(frames.get(0)[1]).isNotEqualTo(frames.get(1)[1]);
+
+            // The transmit status released the frame ID of the asynchronous request
+            await(() -> xbee.getPendingRequests().size() == 0);
+        }
+    }
+
+    @Test
+    void sendAsyncLimited() throws Exception {
+
+        var remote = AddressParser.parse("0013A200.402D52DD");
+        var held = new ArrayList<int[]>();
+
+        // The transmit status only comes when the test says so
+        var transport = LoopbackDevice.transport((device, frame) -> {
+            synchronized (held) {
+                held.add(frame);
+            }
+        });
+
+        try (var xbee = new XBeeReactive(transport)) {
+
+            var limiter = xbee.getDestinationLimiter();
+            limiter.setMaxInFlight(2);
+
+            var sent = new ArrayList<CompletableFuture<Void>>();
+
+            for (var count = 0; count < 3; count++) {
+                sent.add(xbee.sendAsync(new ZNetTxRequest(remote, new int[] {count})).toFuture());
+            }
+
+            await(() -> sent.get(0).isDone() && sent.get(1).isDone());
+
+            assertThat(sent.get(2)).isNotDone();
+            assertThat(limiter.getInFlight(remote)).isEqualTo(2);
+            assertThat(limiter.getQueued(remote)).isEqualTo(1);
+
+            // Status for the first one lets the third one through
+            synchronized (held) {
+                LoopbackDevice.answer(transport, held.remove(0));
+            }
+
+            sent.get(2).get(5, TimeUnit.SECONDS);
+
+            synchronized (held) {
+                held.forEach(frame -> LoopbackDevice.answer(transport, frame));
+            }
+
+            await(() -> limiter.getDestinations().isEmpty());
+            await(() -> xbee.getPendingRequests().size() == 0);
+        }
+    }
+
+    @Test
+    void reconnect() throws Exception {
+
+        var transport = new LoopbackTransport();
+        var policy = new ReconnectPolicy(Duration.ofMillis(10), Duration.ofMillis(50), ReconnectPolicy.FOREVER);
+
+        try (var xbee = new XBeeReactive(transport, policy)) {
+
+            var future = xbee.receive().take(2).collectList().toFuture();
+
+            transport.inject(HV_RESPONSE);
+
+            var inFlight = xbee.sendAT(new AtCommand(HV), Duration.ofSeconds(30)).toFuture();
+
+            await(() -> xbee.getPendingRequests().size() == 1);
+
+            // Unplugged
+            transport.close();
+
+            // Fails fast, doesn't wait for the timeout
+            assertThatThrownBy(() -> inFlight.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(ConnectionLostException.class);
+
+            await(() -> xbee.getConnectionStats().getReconnects() == 1);
+
+            // Same subscriber, new stream
+            transport.inject(HV_RESPONSE);
+
+            assertThat(future.get(5, TimeUnit.SECONDS)).hasSize(2);
+
+            var stats = xbee.getConnectionStats();
+
+            assertThat(stats.isConnected()).isTrue();
+            assertThat(stats.getDisconnects()).isEqualTo(1);
+            assertThat(stats.getDowntime()).isPositive();
+        }
+    }
+
+    @Test
+    void giveUp() throws Exception {
+
+        var opened = new AtomicInteger();
+        var transport = new LoopbackTransport() {
+            @Override
+            public synchronized void open() throws IOException {
+                if (opened.incrementAndGet() > 1) {
+                    throw new IOException("gone for good");
+                }
+                super.open();
+            }
+        };
+        var policy = new ReconnectPolicy(Duration.ofMillis(1), Duration.ofMillis(4), 3);
+
+        try (var xbee = new XBeeReactive(transport, policy)) {
+
+            var future = xbee.receive().then().toFuture();
+
+            transport.close();
+
+            assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(ConnectionLostException.class);
+
+            assertThat(xbee.getConnectionStats().getAttempts()).isEqualTo(3);
+            assertThat(xbee.getConnectionStats().isConnected()).isFalse();
+        }
+    }
+
+    @Test
+    void noReconnect() throws Exception {
+
+        var transport = new LoopbackTransport();
+
+        try (var xbee = new XBeeReactive(transport, ReconnectPolicy.NONE)) {
+
+            var future = xbee.receive().then().toFuture();
+
+            transport.close();
+
+            assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasMessageContaining("Unexpected end of stream");
+
+            assertThat(xbee.getConnectionStats().getDisconnects()).isZero();
+        }
+    }
+
     private static Stream<AtCommand.Command> dXCommandProvider() {
         return Stream.of(
                 D0,
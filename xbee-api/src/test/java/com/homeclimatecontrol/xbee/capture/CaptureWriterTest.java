@@ -0,0 +1,130 @@
+package com.homeclimatecontrol.xbee.capture;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+
+class CaptureWriterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTrip() throws IOException {
+
+        var capture = dir.resolve("capture");
+
+        try (var writer = new CaptureWriter(capture)) {
+            writer.write(new byte[] { 0x7E, 0x00 }, 0, 2, 1_000L);
+            writer.write(new byte[] { 0x00, 0x07, (byte) 0x88, 0x01 }, 1, 3, 1_500L);
+            writer.write(new byte[300], 0, 300, 5_000_000_000L);
+
+            assertThat(writer.getRecordCount()).isEqualTo(3);
+        }
+
+        var reader = CaptureReader.map(capture);
+
+        assertThat(reader.next()).isTrue();
+        assertThat(reader.getOffsetNanos()).isZero();
+        assertThat(toArray(reader.getChunk())).containsExactly(0x7E, 0x00);
+
+        assertThat(reader.next()).isTrue();
+        assertThat(reader.getOffsetNanos()).isEqualTo(500L);
+        assertThat(toArray(reader.getChunk())).containsExactly(0x07, 0x88, 0x01);
+
+        assertThat(reader.next()).isTrue();
+        assertThat(reader.getOffsetNanos()).isEqualTo(5_000_000_000L - 1_000L);
+        assertThat(reader.getChunk().remaining()).isEqualTo(300);
+
+        assertThat(reader.next()).isFalse();
+    }
+
+    @Test
+    void append() throws IOException {
+
+        var capture = dir.resolve("capture");
+
+        try (var writer = new CaptureWriter(capture)) {
+            writer.write(new byte[] { 0x01 }, 0, 1, 1_000L);
+        }
+
+        try (var writer = new CaptureWriter(capture)) {
+            writer.write(new byte[] { 0x02 }, 0, 1, 9_000L);
+            writer.write(new byte[] { 0x03 }, 0, 1, 9_100L);
+        }
+
+        var reader = CaptureReader.map(capture);
+
+        assertThat(reader.next()).isTrue();
+        assertThat(toArray(reader.getChunk())).containsExactly(0x01);
+
+        // The gap between the sessions is not preserved
+        assertThat(reader.next()).isTrue();
+        assertThat(reader.getOffsetNanos()).isZero();
+        assertThat(toArray(reader.getChunk())).containsExactly(0x02);
+
+        assertThat(reader.next()).isTrue();
+        assertThat(reader.getOffsetNanos()).isEqualTo(100L);
+
+        assertThat(reader.next()).isFalse();
+    }
+
+    @Test
+    void truncatedTail() throws IOException {
+
+        var capture = dir.resolve("capture");
+
+        try (var writer = new CaptureWriter(capture)) {
+            writer.write(new byte[] { 0x01 }, 0, 1, 1_000L);
+        }
+
+        // Zero delay, 5 bytes declared, 2 present - what a crash mid-write would leave behind
+        Files.write(capture, new byte[] { 0x00, 0x05, 0x01, 0x02 }, StandardOpenOption.APPEND);
+
+        var truncated = CaptureReader.map(capture);
+
+        assertThat(truncated.next()).isTrue();
+        assertThat(truncated.next()).isFalse();
+
+        try (var writer = new CaptureWriter(capture)) {
+            writer.write(new byte[] { 0x02 }, 0, 1, 1_000L);
+        }
+
+        var reader = CaptureReader.map(capture);
+
+        assertThat(reader.next()).isTrue();
+        assertThat(reader.next()).isTrue();
+        assertThat(toArray(reader.getChunk())).containsExactly(0x02);
+        assertThat(reader.next()).isFalse();
+    }
+
+    @Test
+    void notACapture() throws IOException {
+
+        var capture = dir.resolve("capture");
+
+        Files.write(capture, new byte[] { 'N', 'O', 'P', 'E', 0x01 });
+
+        assertThatIOException().isThrownBy(() -> new CaptureWriter(capture));
+        assertThatIOException().isThrownBy(() -> CaptureReader.map(capture));
+    }
+
+    private static int[] toArray(ByteBuffer chunk) {
+
+        var result = new int[chunk.remaining()];
+
+        for (var offset = 0; offset < result.length; offset++) {
+            result[offset] = chunk.get(chunk.position() + offset) & 0xFF;
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,95 @@
+package com.homeclimatecontrol.xbee.request;
+
+import com.rapplogic.xbee.api.AtCommand;
+import com.rapplogic.xbee.api.AtCommandQueue;
+import com.rapplogic.xbee.api.RemoteAtRequest;
+import com.rapplogic.xbee.api.XBeeAddress16;
+import com.rapplogic.xbee.api.XBeeAddress64;
+import com.rapplogic.xbee.api.XBeeRequest;
+import com.rapplogic.xbee.api.zigbee.ZBForceSampleRequest;
+import com.rapplogic.xbee.api.zigbee.ZNetExplicitTxRequest;
+import com.rapplogic.xbee.api.zigbee.ZNetTxRequest;
+import com.rapplogic.xbee.util.DoubleByte;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.stream.Stream;
+
+import static com.rapplogic.xbee.api.AtCommand.Command.D0;
+import static com.rapplogic.xbee.api.AtCommand.Command.HV;
+import static com.rapplogic.xbee.api.AtCommand.Command.NI;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class FrameEncoderTest {
+
+    private static final XBeeAddress64 ADDRESS = new XBeeAddress64("0013A2004062AC98");
+
+    /**
+     * Frame IDs and values are picked to exercise escaping.
+     */
+    static Stream<XBeeRequest> requestProvider() {
+        return Stream.of(
+                new AtCommand(HV, null, (byte) 0x22),
+                new AtCommand(HV, null, (byte) 0x7E),
+                new AtCommand(D0, new int[] {0x11}, (byte) 0x13),
+                new AtCommand(NI, new int[] {0x7D, 0x7E, 0x41, 0x42}, (byte) 0xFF),
+                new AtCommandQueue(D0, new int[] {0x05}, (byte) 0x33),
+                new RemoteAtRequest((byte) 0x44, ADDRESS, XBeeAddress16.ZNET_BROADCAST, true, D0, new int[] {0x05}),
+                new RemoteAtRequest((byte) 0x7D, ADDRESS, new XBeeAddress16(0x7E, 0x11), false, HV),
+                new ZBForceSampleRequest(ADDRESS),
+                new ZNetTxRequest((byte) 0x55, ADDRESS, new int[] {0x01, 0x7E, 0x02, 0x13}),
+                new ZNetExplicitTxRequest((byte) 0x66, ADDRESS, XBeeAddress16.ZNET_BROADCAST, 0, ZNetTxRequest.Option.UNICAST,
+                        new int[] {0x01, 0x02}, 0xE8, 0xE8, new DoubleByte(0x00, 0x11), ZNetExplicitTxRequest.znetProfileId)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("requestProvider")
+    void sameAsLegacy(XBeeRequest rq) {
+
+        assertThat(rq.getFrameDataLength()).isEqualTo(rq.getFrameData().length);
+
+        var expected = rq.getXBeePacket().getByteArray();
+        var target = ByteBuffer.allocate(FrameEncoder.getMaxEncodedLength(rq.getFrameDataLength()));
+        var length = new FrameEncoder().encode(rq, target);
+
+        assertThat(length).isEqualTo(expected.length);
+
+        for (var offset = 0; offset < expected.length; offset++) {
+            assertThat(target.get(offset) & 0xFF).as("offset %d", offset).isEqualTo(expected[offset] & 0xFF);
+        }
+    }
+
+    @Test
+    void frameIdOverride() {
+
+        var encoder = new FrameEncoder();
+        var target = ByteBuffer.allocate(64);
+
+        encoder.encode(new AtCommand(HV, null, (byte) 0x22), (byte) 0x42, target);
+
+        var expected = new AtCommand(HV, null, (byte) 0x42).getXBeePacket().getByteArray();
+
+        assertThat(target.position()).isEqualTo(expected.length);
+
+        for (var offset = 0; offset < expected.length; offset++) {
+            assertThat(target.get(offset) & 0xFF).isEqualTo(expected[offset] & 0xFF);
+        }
+    }
+
+    @Test
+    void overflow() {
+
+        var target = ByteBuffer.allocate(8);
+        var encoder = new FrameEncoder();
+
+        assertThatExceptionOfType(BufferOverflowException.class)
+                .isThrownBy(() -> encoder.encode(new AtCommand(HV), target));
+
+        assertThat(target.position()).isZero();
+    }
+}
@@ -0,0 +1,244 @@
+package com.homeclimatecontrol.xbee.response;
+
+import com.homeclimatecontrol.xbee.response.frame.IOSampleIndicator;
+import com.homeclimatecontrol.xbee.response.frame.LocalATCommandResponse;
+import com.homeclimatecontrol.xbee.response.frame.RemoteATCommandResponse;
+import com.homeclimatecontrol.xbee.response.frame.XBeeResponseFrame;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.rapplogic.xbee.api.AtCommand.Command.D0;
+import static com.rapplogic.xbee.api.AtCommand.Command.HV;
+import static com.rapplogic.xbee.api.AtCommand.Command.ND;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FrameDecoderTest {
+
+    private static final byte[] HV_RESPONSE = new byte[] {
+            0x7E, // Start delimiter
+            0x00, 0x07, // length
+            (byte) 0x88, // Local AT command response
+            0x01, // Frame ID
+            0x48, 0x56, // HV
+            0x00, // Status
+            0x1A, 0x46, // Raw data
+            0x78 // Checksum
+    };
+
+    /**
+     * Escaped checksum.
+     */
+    private static final byte[] ND_RESPONSE = new byte[] {
+            0x7E, // Start delimiter
+            0x00, 0x22, // Length
+            (byte) 0x88, // Local AT Command Response
+            0x01, // Frame ID
+            0x4E, 0x44, // ND
+            0x00, (byte) 0xAE, // Address 16
+            0x38, 0x00, 0x13, (byte) 0xA2, 0x00, 0x40, 0x2D, 0x03, // Address 64
+            0x0D, 0x48, 0x56, 0x41, 0x43, 0x2D, 0x54, 0x52, 0x41, 0x4E, 0x45, 0x00, // NI
+            (byte) 0xFF, (byte) 0xFE, // Parent address
+            0x01, // Device type
+            0x00, // Status
+            (byte) 0xC1, 0x05, // Profile ID
+            0x10, 0x1E, // Mfg ID
+            0x7D, 0x31 // Checksum = 0x11 ^ 0x20
+    };
+
+    /**
+     * Escaped checksum that is a start delimiter.
+     */
+    private static final byte[] D0_RESPONSE = new byte[] {
+            0x7E, // Start delimiter
+            0x00, 0x0F, // Length
+            (byte) 0x97, // Remote AT Command Response
+            0x01, // Frame ID
+            0x00, 0x13, (byte) 0xA2, 0x00, 0x40, 0x55, 0x73, 0x0D, // Remote Address64
+            (byte) 0xDC, (byte) 0xCF, // Remote Address16
+            0x44, 0x30, // D0
+            0x00, // Status
+            0x7D, 0x5E // Checksum = 0x7E ^ 0x20
+    };
+
+    /**
+     * Escaped address.
+     */
+    private static final byte[] IO_SAMPLE = new byte[] {
+            0x7E, // Start delimiter
+            0x00, 0x18, // Length
+            (byte) 0x92,
+            0x00, 0x7D, 0x33, (byte) 0xA2, 0x00, 0x40, 0x2D, 0x52, (byte) 0xDD, // Source address 64 (escaped)
+            0x46, 0x34, // Source address 16
+            0x01, // Receive options
+            0x01, // Sample count
+            0x18, 0x01, // Digital sample mask
+            0x0E,  // Analog sample mask
+            0x18, 0x01, // Digital samples
+            0x02, 0x0D, // AD1 sample
+            0x02, 0x0C, // AD2 sample
+            0x02, 0x0C, // AD3 sample
+            0x35 // Checksum
+    };
+
+    @Test
+    void singleFrame() {
+
+        var frames = decode(List.of(HV_RESPONSE));
+
+        assertThat(frames).hasSize(1);
+        assertThat(frames.get(0)).isInstanceOf(LocalATCommandResponse.class);
+        assertThat(((LocalATCommandResponse) frames.get(0)).command).isEqualTo(HV);
+    }
+
+    @Test
+    void garbageBeforeStart() {
+
+        var frames = decode(List.of(new byte[] { 0x01, 0x02, 0x03 }, HV_RESPONSE));
+
+        assertThat(frames).hasSize(1);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 2, 3, 5, 7, 64 })
+    void chunked(int chunkSize) {
+
+        var stream = concat(HV_RESPONSE, ND_RESPONSE, D0_RESPONSE, IO_SAMPLE);
+        var chunks = new ArrayList<byte[]>();
+
+        for (var offset = 0; offset < stream.length; offset += chunkSize) {
+            var chunk = new byte[Math.min(chunkSize, stream.length - offset)];
+            System.arraycopy(stream, offset, chunk, 0, chunk.length);
+            chunks.add(chunk);
+        }
+
+        var frames = decode(chunks);
+
+        assertThat(frames).hasSize(4);
+        assertThat(((LocalATCommandResponse) frames.get(0)).command).isEqualTo(HV);
+        assertThat(((LocalATCommandResponse) frames.get(1)).command).isEqualTo(ND);
+        assertThat(((RemoteATCommandResponse) frames.get(2)).command).isEqualTo(D0);
+        assertThat(frames.get(3)).isInstanceOf(IOSampleIndicator.class);
+    }
+
+    @Test
+    void checksumMismatch() {
+
+        var bad = HV_RESPONSE.clone();
+        bad[bad.length - 1] = 0x00;
+
+        var decoder = new FrameDecoder(new ResponseReader());
+        var source = ByteBuffer.wrap(concat(bad, HV_RESPONSE));
+        var frames = new ArrayList<XBeeResponseFrame>();
+
+        decoder.decode(source, frames::add);
+
+        assertThat(source.hasRemaining()).isFalse();
+        assertThat(frames).hasSize(1);
+        assertThat(decoder.getStats().getChecksumErrors()).isEqualTo(1);
+        assertThat(decoder.getStats().getFrames()).isEqualTo(1);
+    }
+
+    @Test
+    void resync() {
+
+        // The frame is cut short, and the next one starts right where the rest of it should have been
+        var truncated = Arrays.copyOf(ND_RESPONSE, 12);
+
+        var decoder = new FrameDecoder(new ResponseReader());
+        var frames = new ArrayList<XBeeResponseFrame>();
+
+        decoder.decode(ByteBuffer.wrap(concat(truncated, HV_RESPONSE, D0_RESPONSE)), frames::add);
+
+        assertThat(frames).hasSize(2);
+        assertThat(((LocalATCommandResponse) frames.get(0)).command).isEqualTo(HV);
+        assertThat(((RemoteATCommandResponse) frames.get(1)).command).isEqualTo(D0);
+        assertThat(decoder.getStats().getResyncs()).isEqualTo(1);
+        assertThat(decoder.getStats().getChecksumErrors()).isZero();
+    }
+
+    @Test
+    void invalidLength() {
+
+        var decoder = new FrameDecoder(new ResponseReader(), false, 16);
+        var frames = new ArrayList<XBeeResponseFrame>();
+
+        decoder.decode(ByteBuffer.wrap(concat(
+                new byte[] { 0x7E, 0x00, 0x00, 0x01, 0x02 }, // Zero length
+                ND_RESPONSE, // Too long for this decoder
+                HV_RESPONSE)), frames::add);
+
+        assertThat(frames).hasSize(1);
+        assertThat(decoder.getStats().getInvalidLengths()).isEqualTo(2);
+        assertThat(decoder.getStats().getSkippedBytes()).isEqualTo(2 + ND_RESPONSE.length - 3);
+    }
+
+    @Test
+    void unknownFrameType() {
+
+        var decoder = new FrameDecoder(new ResponseReader());
+        var frames = new ArrayList<XBeeResponseFrame>();
+
+        decoder.decode(ByteBuffer.wrap(concat(
+                new byte[] { 0x7E, 0x00, 0x02, 0x03, 0x00, (byte) 0xFC }, // Type 0x03, nobody reads it
+                HV_RESPONSE)), frames::add);
+
+        assertThat(frames).hasSize(1);
+        assertThat(decoder.getStats().getUnknownFrameTypes()).isEqualTo(1);
+        assertThat(decoder.getStats().getErrors()).isEqualTo(1);
+    }
+
+    @Test
+    void malformedFrame() {
+
+        var decoder = new FrameDecoder(new ResponseReader());
+        var frames = new ArrayList<XBeeResponseFrame>();
+
+        decoder.decode(ByteBuffer.wrap(concat(
+                new byte[] { 0x7E, 0x00, 0x02, (byte) 0x88, 0x01, 0x76 }, // Local AT response without the command
+                HV_RESPONSE)), frames::add);
+
+        assertThat(frames).hasSize(1);
+        assertThat(decoder.getStats().getMalformedFrames()).isEqualTo(1);
+    }
+
+    @Test
+    void direct() {
+
+        var decoder = new FrameDecoder(new ResponseReader(), true);
+        var frames = new ArrayList<XBeeResponseFrame>();
+
+        decoder.decode(ByteBuffer.wrap(ND_RESPONSE), frames::add);
+
+        assertThat(frames).hasSize(1);
+    }
+
+    private List<XBeeResponseFrame> decode(List<byte[]> chunks) {
+
+        var decoder = new FrameDecoder(new ResponseReader());
+        var result = new ArrayList<XBeeResponseFrame>();
+
+        for (var chunk : chunks) {
+            decoder.decode(ByteBuffer.wrap(chunk), result::add);
+        }
+
+        return result;
+    }
+
+    private static byte[] concat(byte[]... sources) {
+
+        var result = new ByteArrayOutputStream();
+
+        for (var source : sources) {
+            result.write(source, 0, source.length);
+        }
+
+        return result.toByteArray();
+    }
+}
@@ -0,0 +1,122 @@
+package com.homeclimatecontrol.xbee.response;
+
+import com.homeclimatecontrol.xbee.FrameType;
+import com.homeclimatecontrol.xbee.response.command.CommandResponse;
+import com.homeclimatecontrol.xbee.response.command.CommandResponseReader;
+import com.homeclimatecontrol.xbee.response.command.GenericResponse;
+import com.homeclimatecontrol.xbee.response.command.GenericResponseReader;
+import com.homeclimatecontrol.xbee.response.command.HVResponseReader;
+import com.homeclimatecontrol.xbee.response.frame.FrameReader;
+import com.homeclimatecontrol.xbee.response.frame.LocalATCommandResponse;
+import com.homeclimatecontrol.xbee.response.frame.XBeeResponseFrame;
+import com.rapplogic.xbee.api.AtCommand;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static com.rapplogic.xbee.api.AtCommand.Command.HV;
+import static com.rapplogic.xbee.api.AtCommand.Command.NJ;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class ReaderRegistryTest {
+
+    @Test
+    void frameTypes() {
+
+        for (var frameType : FrameType.values()) {
+
+            // 0x10 is listed twice, the first one wins
+            var expected = frameType == FrameType.EXPLICIT_ADDRESSING_COMMAND_REQUEST ? FrameType.TX_REQUEST : frameType;
+
+            assertThat(FrameType.getByType(frameType.type)).isEqualTo(expected);
+        }
+
+        assertThatIllegalArgumentException().isThrownBy(() -> FrameType.getByType((byte) 0x03)).withMessage("Unknown frame type 0x03");
+    }
+
+    @Test
+    void commands() {
+
+        for (var command : AtCommand.Command.values()) {
+
+            // %V included
+            assertThat(ReaderRegistry.getCommand((byte) command.code.charAt(0), (byte) command.code.charAt(1))).isEqualTo(command);
+            assertThat(ReaderRegistry.getCommandReader(command)).isNotNull();
+        }
+
+        assertThat(ReaderRegistry.getCommand((byte) 'Q', (byte) 'Q')).isNull();
+        assertThat(ReaderRegistry.getCommand((byte) 0x00, (byte) 0xFF)).isNull();
+        assertThat(ReaderRegistry.getCommandReader(HV)).isInstanceOf(HVResponseReader.class);
+        assertThat(ReaderRegistry.getCommandReader(NJ)).isInstanceOf(GenericResponseReader.class);
+    }
+
+    @Test
+    void unknownCommand() {
+
+        var frame = ByteBuffer.wrap(new byte[] {
+                (byte) 0x88, // Local AT command response
+                0x01, // Frame ID
+                0x51, 0x51, // QQ
+                0x00 // Status
+        });
+
+        assertThatIllegalArgumentException().isThrownBy(() -> new ResponseReader().read(frame)).withMessage("Unknown AT command 0x51,0x51");
+    }
+
+    @Test
+    void registerFrameReader() {
+
+        var type = (byte) 0x03;
+        var frame = new XBeeResponseFrame() {};
+        var previous = ReaderRegistry.register(type, new FrameReader() {
+            @Override
+            public XBeeResponseFrame read(ByteBuffer frameData) {
+                return frame;
+            }
+        });
+
+        try {
+
+            assertThat(previous).isNull();
+            assertThat(new ResponseReader().read(ByteBuffer.wrap(new byte[] { type, 0x00 }))).isSameAs(frame);
+
+        } finally {
+            ReaderRegistry.register(type, null);
+        }
+
+        assertThat(ReaderRegistry.getFrameReader(type)).isNull();
+    }
+
+    @Test
+    void registerCommandReader() {
+
+        var response = new GenericResponse(HV, new byte[0]) {};
+        var previous = ReaderRegistry.register(HV, new CommandResponseReader() {
+            @Override
+            public CommandResponse read(ByteBuffer commandData) {
+                return response;
+            }
+        });
+
+        try {
+
+            var frame = ByteBuffer.wrap(new byte[] {
+                    (byte) 0x88, // Local AT command response
+                    0x01, // Frame ID
+                    0x48, 0x56, // HV
+                    0x00, // Status
+                    0x1A, 0x46 // Raw data
+            });
+
+            var result = (LocalATCommandResponse) new ResponseReader().read(frame);
+
+            assertThat(result.commandResponse).isSameAs(response);
+
+        } finally {
+            ReaderRegistry.register(HV, previous);
+        }
+
+        assertThat(ReaderRegistry.getCommandReader(HV)).isInstanceOf(HVResponseReader.class);
+    }
+}
@@ -5,15 +5,28 @@ import org.junit.jupiter.api.Test;
 import java.nio.ByteBuffer;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.entry;
 
 class IOSampleIndicatorReaderTest {
 
+    private static final byte[] IO_SAMPLE = new byte[] {
+            0x00, 0x13, (byte) 0xA2, 0x00, 0x40, 0x2D, 0x52, (byte) 0xDD, // Source address 64
+            0x46, 0x34, // Source address 16
+            0x01, // Receive options
+            0x01, // Sample count
+            0x18, 0x01, // Digital sample mask
+            0x0E,  // Analog sample mask 0b1110 - AD1, AD2, AD3
+            0x10, 0x01, // Digital samples
+            0x02, 0x0D, // AD1 sample
+            0x02, 0x0C, // AD2 sample
+            0x03, (byte) 0xFF // AD3 sample
+    };
+
     @Test
     void parseDigitalMask0x01() {
 
-        var payload = new byte[] { 0x00, 0x01 };
-        var buffer = ByteBuffer.wrap(payload);
-        var mask = IOSampleIndicatorReader.parseDigitalMask(buffer);
+        var mask = IOSampleIndicatorView.toBitSet((short) 0x0001);
 
         assertThat(mask.get(0)).isTrue();
 
@@ -25,9 +38,7 @@ class IOSampleIndicatorReaderTest {
     @Test
     void parseDigitalMask0x0100() {
 
-        var payload = new byte[] { 0x01, 0x00 };
-        var buffer = ByteBuffer.wrap(payload);
-        var mask = IOSampleIndicatorReader.parseDigitalMask(buffer);
+        var mask = IOSampleIndicatorView.toBitSet((short) 0x0100);
 
         assertThat(mask.get(8)).isTrue();
 
@@ -43,9 +54,7 @@ class IOSampleIndicatorReaderTest {
     @Test
     void parseDigitalMask0x1801() {
 
-        var payload = new byte[] { 0x18, 0x01 };
-        var buffer = ByteBuffer.wrap(payload);
-        var mask = IOSampleIndicatorReader.parseDigitalMask(buffer);
+        var mask = IOSampleIndicatorView.toBitSet((short) 0x1801);
 
         var i = mask.stream().iterator();
 
@@ -53,4 +62,74 @@ class IOSampleIndicatorReaderTest {
         assertThat(i.next()).isEqualTo(11);
         assertThat(i.next()).isEqualTo(12);
     }
+
+    @Test
+    void primitives() {
+
+        var sample = (IOSampleIndicator) new IOSampleIndicatorReader().read(ByteBuffer.wrap(IO_SAMPLE));
+
+        assertThat(sample.getSourceAddress64().getAddress()).containsExactly(0x00, 0x13, 0xA2, 0x00, 0x40, 0x2D, 0x52, 0xDD);
+        assertThat(sample.getSourceAddress16().getAddress()).containsExactly(0x46, 0x34);
+        assertThat(sample.receiveOptions).isEqualTo((byte) 0x01);
+        assertThat(sample.sampleCount).isEqualTo((byte) 0x01);
+        assertThat(sample.digitalSampleMask).isEqualTo((short) 0x1801);
+
+        assertThat(sample.isDigitalSampled(0)).isTrue();
+        assertThat(sample.isDigitalSampled(1)).isFalse();
+        assertThat(sample.isHigh(0)).isTrue();
+        assertThat(sample.isHigh(11)).isFalse();
+        assertThat(sample.isHigh(12)).isTrue();
+        assertThatIllegalArgumentException().isThrownBy(() -> sample.isHigh(1));
+
+        assertThat(sample.isAnalogSampled(0)).isFalse();
+        assertThat(sample.getAnalog(1)).isEqualTo(0x020D);
+        assertThat(sample.getAnalog(2)).isEqualTo(0x020C);
+        assertThat(sample.getAnalog(3)).isEqualTo(0x03FF);
+        assertThatIllegalArgumentException().isThrownBy(() -> sample.getAnalog(0));
+        assertThatIllegalArgumentException().isThrownBy(() -> sample.getAnalog(8));
+    }
+
+    @Test
+    void noDigital() {
+
+        var frame = new byte[] {
+                0x00, 0x13, (byte) 0xA2, 0x00, 0x40, 0x2D, 0x52, (byte) 0xDD, // Source address 64
+                0x46, 0x34, // Source address 16
+                0x01, // Receive options
+                0x01, // Sample count
+                0x00, 0x00, // Digital sample mask
+                (byte) 0x81,  // Analog sample mask, AD0 and supply voltage
+                0x01, 0x00, // AD0 sample
+                0x0C, (byte) 0xE4 // Supply voltage
+        };
+
+        var sample = (IOSampleIndicator) new IOSampleIndicatorReader().read(ByteBuffer.wrap(frame));
+
+        assertThat(sample.hasDigitalSamples()).isFalse();
+        assertThat(sample.getAnalog(0)).isEqualTo(0x0100);
+        assertThat(sample.getAnalog(7)).isEqualTo(0x0CE4);
+    }
+
+    @Test
+    void tooShort() {
+
+        var frame = ByteBuffer.wrap(IO_SAMPLE, 0, IO_SAMPLE.length - 2);
+        var reader = new IOSampleIndicatorReader();
+
+        assertThatIllegalArgumentException().isThrownBy(() -> reader.read(frame));
+    }
+
+    @Test
+    void view() {
+
+        var view = new IOSampleIndicatorView((IOSampleIndicator) new IOSampleIndicatorReader().read(ByteBuffer.wrap(IO_SAMPLE)));
+
+        assertThat(view.digitalSampleMask.stream()).containsExactly(0, 11, 12);
+        assertThat(view.digitalSamples).isPresent();
+        assertThat(view.digitalSamples.get().stream()).containsExactly(0, 12);
+        assertThat(view.analogSamples).containsExactly(
+                entry(1, 0x020D),
+                entry(2, 0x020C),
+                entry(3, 0x03FF));
+    }
 }
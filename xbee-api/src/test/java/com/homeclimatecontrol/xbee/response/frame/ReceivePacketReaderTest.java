@@ -0,0 +1,168 @@
+package com.homeclimatecontrol.xbee.response.frame;
+
+import com.homeclimatecontrol.xbee.response.ResponseReader;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class ReceivePacketReaderTest {
+
+    @Test
+    void receivePacket() {
+
+        var frame = ByteBuffer.wrap(new byte[] {
+                (byte) 0x90, // Receive packet
+                0x00, 0x13, (byte) 0xA2, 0x00, 0x40, 0x52, 0x2B, (byte) 0xAA, // 64 bit source address
+                0x7D, (byte) 0x84, // 16 bit source address
+                0x01, // Receive options
+                0x52, 0x78, 0x44, 0x61, 0x74, 0x61 // RxData
+        });
+
+        var result = (ReceivePacket) new ResponseReader().read(frame);
+
+        assertThat(result.sourceAddress64.getAddress()).containsExactly(0x00, 0x13, 0xA2, 0x00, 0x40, 0x52, 0x2B, 0xAA);
+        assertThat(result.sourceAddress16.getAddress()).containsExactly(0x7D, 0x84);
+        assertThat(result.receiveOptions).isEqualTo((byte) 0x01);
+        assertThat(result.getDataLength()).isEqualTo(6);
+
+        // The decoder reuses its buffer, the data must survive that
+        frame.clear();
+        frame.put(new byte[frame.capacity()]);
+
+        assertThat(toString(result.getData())).isEqualTo("RxData");
+    }
+
+    @Test
+    void readOnly() {
+
+        var frame = ByteBuffer.wrap(new byte[] {
+                (byte) 0x90, // Receive packet
+                0x00, 0x13, (byte) 0xA2, 0x00, 0x40, 0x52, 0x2B, (byte) 0xAA, // 64 bit source address
+                0x7D, (byte) 0x84, // 16 bit source address
+                0x01, // Receive options
+                0x01, 0x02 // Data
+        });
+
+        var result = (ReceivePacket) new ResponseReader().read(frame);
+        var data = result.getData();
+
+        assertThat(data.isReadOnly()).isTrue();
+        assertThatExceptionOfType(ReadOnlyBufferException.class).isThrownBy(() -> data.put(0, (byte) 0xFF));
+
+        // Consuming one view doesn't affect the next one
+        data.get();
+        data.get();
+
+        assertThat(result.getData().remaining()).isEqualTo(2);
+    }
+
+    @Test
+    void emptyData() {
+
+        var frame = ByteBuffer.wrap(new byte[] {
+                (byte) 0x90, // Receive packet
+                0x00, 0x13, (byte) 0xA2, 0x00, 0x40, 0x52, 0x2B, (byte) 0xAA, // 64 bit source address
+                0x7D, (byte) 0x84, // 16 bit source address
+                0x01 // Receive options
+        });
+
+        var result = (ReceivePacket) new ResponseReader().read(frame);
+
+        assertThat(result.getDataLength()).isZero();
+        assertThat(result.toString()).contains("data=}");
+    }
+
+    @Test
+    void explicitReceiveIndicator() {
+
+        var frame = ByteBuffer.wrap(new byte[] {
+                (byte) 0x91, // Explicit receive indicator
+                0x00, 0x13, (byte) 0xA2, 0x00, 0x40, 0x52, 0x2B, (byte) 0xAA, // 64 bit source address
+                0x7D, (byte) 0x84, // 16 bit source address
+                (byte) 0xE0, // Source endpoint
+                (byte) 0xE0, // Destination endpoint
+                0x00, 0x11, // Cluster ID
+                (byte) 0xC1, 0x05, // Profile ID
+                0x02, // Receive options
+                0x52, 0x78, 0x44, 0x61, 0x74, 0x61 // RxData
+        });
+
+        var result = (ExplicitReceiveIndicator) new ResponseReader().read(frame);
+
+        assertThat(result.sourceAddress16.getAddress()).containsExactly(0x7D, 0x84);
+        assertThat(result.sourceEndpoint).isEqualTo((byte) 0xE0);
+        assertThat(result.destinationEndpoint).isEqualTo((byte) 0xE0);
+        assertThat(result.clusterId).isEqualTo(0x0011);
+        assertThat(result.profileId).isEqualTo(0xC105);
+        assertThat(result.receiveOptions).isEqualTo((byte) 0x02);
+        assertThat(toString(result.getData())).isEqualTo("RxData");
+    }
+
+    @Test
+    void transmitStatus() {
+
+        var frame = ByteBuffer.wrap(new byte[] {
+                (byte) 0x89, // Transmit status
+                0x47, // Frame ID
+                0x01 // Delivery status
+        });
+
+        var result = (TransmitStatus) new ResponseReader().read(frame);
+
+        assertThat(result.frameId).isEqualTo((byte) 0x47);
+        assertThat(result.deliveryStatus).isEqualTo(TransmitStatus.DeliveryStatus.NO_ACK);
+    }
+
+    @Test
+    void extendedTransmitStatus() {
+
+        var frame = ByteBuffer.wrap(new byte[] {
+                (byte) 0x8B, // Extended transmit status
+                0x47, // Frame ID
+                (byte) 0xFF, (byte) 0xFE, // 16 bit destination address
+                0x00, // Retry count
+                0x00, // Delivery status
+                0x02 // Discovery status
+        });
+
+        var result = (ExtendedTransmitStatus) new ResponseReader().read(frame);
+
+        assertThat(result.frameId).isEqualTo((byte) 0x47);
+        assertThat(result.destinationAddress16.getAddress()).containsExactly(0xFF, 0xFE);
+        assertThat(result.retryCount).isZero();
+        assertThat(result.deliveryStatus).isEqualTo(ExtendedTransmitStatus.DeliveryStatus.SUCCESS);
+        assertThat(result.discoveryStatus).isEqualTo((byte) 0x02);
+    }
+
+    @Test
+    void extendedTransmitStatusUnknown() {
+
+        var frame = ByteBuffer.wrap(new byte[] {
+                (byte) 0x8B, // Extended transmit status
+                0x47, // Frame ID
+                0x7D, (byte) 0x84, // 16 bit destination address
+                0x03, // Retry count
+                0x42, // Delivery status, not on the list
+                0x00 // Discovery status
+        });
+
+        var result = (ExtendedTransmitStatus) new ResponseReader().read(frame);
+
+        assertThat(result.retryCount).isEqualTo((byte) 0x03);
+        assertThat(result.deliveryStatus).isEqualTo(ExtendedTransmitStatus.DeliveryStatus.UNKNOWN);
+        assertThat(result.deliveryStatusCode).isEqualTo((byte) 0x42);
+    }
+
+    private static String toString(ByteBuffer data) {
+
+        var result = new byte[data.remaining()];
+
+        data.get(result);
+
+        return new String(result);
+    }
+}
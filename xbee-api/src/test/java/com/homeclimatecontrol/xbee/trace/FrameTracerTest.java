@@ -0,0 +1,67 @@
+package com.homeclimatecontrol.xbee.trace;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class FrameTracerTest {
+
+    @Test
+    void disabled() {
+
+        var tracer = new FrameTracer(16);
+
+        tracer.record(TraceEvent.SYNC, 0, 0, 0);
+
+        assertThat(tracer.snapshot()).isEmpty();
+        assertThatIllegalStateException().isThrownBy(() -> FrameTracer.NONE.setEnabled(true));
+    }
+
+    @Test
+    void capacity() {
+
+        assertThat(new FrameTracer(1).getCapacity()).isEqualTo(1);
+        assertThat(new FrameTracer(16).getCapacity()).isEqualTo(16);
+        assertThat(new FrameTracer(17).getCapacity()).isEqualTo(32);
+    }
+
+    @Test
+    void wrapAround() {
+
+        var tracer = new FrameTracer(4);
+
+        tracer.setEnabled(true);
+
+        for (var value = 0; value < 10; value++) {
+            tracer.record(TraceEvent.HEADER, 0, 0, value);
+        }
+
+        var events = tracer.snapshot();
+
+        assertThat(events).extracting(e -> e.value).containsExactly(6, 7, 8, 9);
+
+        tracer.clear();
+
+        assertThat(tracer.snapshot()).isEmpty();
+    }
+
+    @Test
+    void dump() {
+
+        var tracer = new FrameTracer(4);
+
+        tracer.setEnabled(true);
+        tracer.record(TraceEvent.WRITE, 0x08, 0x01, 9, 42);
+        tracer.record(TraceEvent.DROP, 0x88, 0, FrameTracer.DROP_CHECKSUM);
+
+        var events = tracer.snapshot();
+
+        assertThat(events.get(0).event).isEqualTo(TraceEvent.WRITE);
+        assertThat(events.get(0).frameType).isEqualTo(0x08);
+        assertThat(events.get(0).frameId).isEqualTo(0x01);
+        assertThat(events.get(0).traceId).isEqualTo(42);
+        assertThat(events.get(1).toString()).isEqualTo("DROP type=0x88 reason=checksum");
+        assertThat(tracer.dump()).contains("WRITE type=0x08 frameId=0x01 value=9 traceId=42");
+    }
+}
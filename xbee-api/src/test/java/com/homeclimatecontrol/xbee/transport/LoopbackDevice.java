@@ -0,0 +1,205 @@
+package com.homeclimatecontrol.xbee.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Plays the part of the XBee on the other side of a {@link LoopbackTransport}.
+ *
+ * Requests written by the driver are {@link #frames(byte[]) decoded} into frame data, and
+ * {@link #answer(LoopbackTransport, int[]) answered} the way a healthy XBee would, unless the test
+ * supplies a {@link Responder} of its own.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public class LoopbackDevice {
+
+    // Frame types, as written by the driver
+
+    public static final int LOCAL_AT = 0x08;
+    public static final int QUEUED_AT = 0x09;
+    public static final int TX = 0x10;
+    public static final int REMOTE_AT = 0x17;
+
+    /**
+     * What the device does with the frames the driver writes.
+     */
+    @FunctionalInterface
+    public interface Responder {
+
+        /**
+         * Handle a frame. Called on the writer thread.
+         *
+         * @param transport Transport to {@link LoopbackTransport#inject(byte[]) inject} the response into.
+         * @param frame Unescaped frame data, starting with the frame type, without the checksum.
+         */
+        void accept(LoopbackTransport transport, int[] frame);
+    }
+
+    private LoopbackDevice() {
+    }
+
+    /**
+     * @return Transport with a device answering every request, see {@link #answer(LoopbackTransport, int[])}.
+     */
+    public static LoopbackTransport transport() {
+        return transport(LoopbackDevice::answer);
+    }
+
+    /**
+     * @param responder What the device does with the frames the driver writes.
+     *
+     * @return Transport with the responder playing the part of the device.
+     */
+    public static LoopbackTransport transport(Responder responder) {
+
+        var device = new AtomicReference<LoopbackTransport>();
+        var transport = new LoopbackTransport("loopback", written -> {
+            for (var frame : frames(written)) {
+                responder.accept(device.get(), frame);
+            }
+        });
+
+        device.set(transport);
+
+        return transport;
+    }
+
+    /**
+     * Answer the request with a successful response with the same frame ID.
+     *
+     * Local and queued AT commands get a Local AT Command Response, remote ones a Remote AT Command Response,
+     * transmit requests an Extended Transmit Status. Queries get {@code 0x1A46} for the value, that's HV
+     * of an XBee ZB. Frames with frame ID of 0, and frames of other types, are not answered.
+     *
+     * @param transport Transport to inject the response into.
+     * @param frame Frame data, see {@link #frames(byte[])}.
+     */
+    public static void answer(LoopbackTransport transport, int[] frame) {
+
+        var frameId = frame[1];
+
+        if (frameId == 0) {
+            return;
+        }
+
+        switch (frame[0]) {
+
+            case LOCAL_AT:
+            case QUEUED_AT:
+
+                transport.inject(frame(concat(new int[] {0x88, frameId, frame[2], frame[3], 0x00}, value(frame, 4))));
+                break;
+
+            case REMOTE_AT:
+
+                // Frame type, frame ID, 64 bit address, 16 bit address, options, command
+                var response = new int[] {0x97, frameId, 0, 0, 0, 0, 0, 0, 0, 0, 0xFF, 0xFE, frame[13], frame[14], 0x00};
+
+                System.arraycopy(frame, 2, response, 2, 8);
+                transport.inject(frame(concat(response, value(frame, 15))));
+                break;
+
+            case TX:
+
+                transport.inject(frame(0x8B, frameId, 0xFF, 0xFE, 0x00, 0x00, 0x00));
+                break;
+
+            default:
+                // Not our business
+        }
+    }
+
+    private static int[] value(int[] frame, int offset) {
+        return frame.length > offset ? new int[0] : new int[] {0x1A, 0x46};
+    }
+
+    private static int[] concat(int[] head, int[] tail) {
+
+        var result = new int[head.length + tail.length];
+
+        System.arraycopy(head, 0, result, 0, head.length);
+        System.arraycopy(tail, 0, result, head.length, tail.length);
+
+        return result;
+    }
+
+    /**
+     * Decode the frames.
+     *
+     * @param data Raw data, starting with a start delimiter and containing only whole frames.
+     *
+     * @return Unescaped frame data of every frame, starting with the frame type, without the checksum.
+     */
+    public static List<int[]> frames(byte[] data) {
+
+        var unescaped = new ArrayList<Integer>(data.length);
+        var frameStarts = new ArrayList<Integer>();
+
+        for (var offset = 0; offset < data.length; offset++) {
+
+            var b = data[offset] & 0xFF;
+
+            if (b == 0x7E) {
+                frameStarts.add(unescaped.size());
+                continue;
+            }
+
+            unescaped.add(b == 0x7D ? (data[++offset] & 0xFF) ^ 0x20 : b);
+        }
+
+        var result = new ArrayList<int[]>(frameStarts.size());
+
+        for (var start : frameStarts) {
+
+            var length = (unescaped.get(start) << 8) | unescaped.get(start + 1);
+            var frame = new int[length];
+
+            for (var offset = 0; offset < length; offset++) {
+                frame[offset] = unescaped.get(start + 2 + offset);
+            }
+
+            result.add(frame);
+        }
+
+        return result;
+    }
+
+    /**
+     * Build an escaped frame.
+     *
+     * @param data Frame data, starting with the frame type.
+     *
+     * @return Raw frame, with the start delimiter, length and checksum.
+     */
+    public static byte[] frame(int... data) {
+
+        var result = new ByteArrayOutputStream();
+        var sum = 0;
+
+        result.write(0x7E);
+        escape(result, data.length >> 8);
+        escape(result, data.length & 0xFF);
+
+        for (var b : data) {
+            escape(result, b);
+            sum += b;
+        }
+
+        escape(result, 0xFF - (sum & 0xFF));
+
+        return result.toByteArray();
+    }
+
+    private static void escape(ByteArrayOutputStream out, int b) {
+
+        if (b == 0x7E || b == 0x7D || b == 0x11 || b == 0x13) {
+            out.write(0x7D);
+            out.write(b ^ 0x20);
+        } else {
+            out.write(b);
+        }
+    }
+}
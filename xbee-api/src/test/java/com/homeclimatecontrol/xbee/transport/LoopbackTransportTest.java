@@ -0,0 +1,209 @@
+package com.homeclimatecontrol.xbee.transport;
+
+import com.homeclimatecontrol.xbee.XBeeReactive;
+import com.homeclimatecontrol.xbee.response.frame.LocalATCommandResponse;
+import com.homeclimatecontrol.xbee.trace.FrameTracer;
+import com.homeclimatecontrol.xbee.trace.TraceEvent;
+import com.rapplogic.xbee.api.AtCommand;
+import com.rapplogic.xbee.api.XBeeRequest;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.rapplogic.xbee.api.AtCommand.Command.HV;
+import static com.rapplogic.xbee.api.AtCommand.Command.NT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoopbackTransportTest {
+
+    /**
+     * Local AT Command Response to HV, see {@link com.homeclimatecontrol.xbee.response.ResponseReaderTest}.
+     */
+    static final byte[] HV_RESPONSE = new byte[] {
+            0x7E, // Start delimiter
+            0x00, 0x07, // length
+            (byte) 0x88, // Local AT command response
+            0x01, // Frame ID
+            0x48, 0x56, // HV
+            0x00, // Status
+            0x1A, 0x46, // Raw data
+            0x78 // Checksum
+    };
+
+    @Test
+    void write() throws Exception {
+
+        var transport = new LoopbackTransport();
+
+        try (var xbee = new XBeeReactive(transport)) {
+
+            // Sent as is, other frame IDs are replaced with those allocated by XBeeReactive
+            var rq = new AtCommand(HV, null, XBeeRequest.NO_RESPONSE_FRAME_ID);
+            xbee.sendAsync(rq).block(Duration.ofSeconds(5));
+
+            var expected = rq.getXBeePacket().getByteArray();
+            var actual = transport.getWritten();
+
+            assertThat(actual).hasSize(expected.length);
+
+            for (var offset = 0; offset < expected.length; offset++) {
+                assertThat(actual[offset] & 0xFF).isEqualTo(expected[offset]);
+            }
+        }
+    }
+
+    @Test
+    void receive() throws Exception {
+
+        var transport = new LoopbackTransport();
+
+        try (var xbee = new XBeeReactive(transport)) {
+
+            // receive() is hot, subscribe before the data arrives
+            var future = xbee.receive().next().toFuture();
+
+            transport.inject(HV_RESPONSE);
+
+            var received = future.get(5, TimeUnit.SECONDS);
+
+            assertThat(received).isInstanceOf(LocalATCommandResponse.class);
+            assertThat(((LocalATCommandResponse) received).command).isEqualTo(HV);
+            assertThat(xbee.getReceiveLatency().getCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void send() throws Exception {
+
+        var transport = LoopbackDevice.transport();
+
+        try (var xbee = new XBeeReactive(transport)) {
+
+            var response = xbee
+                    .sendAT(new AtCommand(HV), Duration.ofSeconds(5))
+                    .block();
+
+            assertThat(response).isInstanceOf(LocalATCommandResponse.class);
+            assertThat(response.command).isEqualTo(HV);
+            assertThat(xbee.getPendingRequests().size()).isZero();
+        }
+    }
+
+    @Test
+    void traced() throws Exception {
+
+        var transport = LoopbackDevice.transport();
+
+        try (var xbee = new XBeeReactive(transport)) {
+
+            xbee.getTracer().setEnabled(true);
+
+            // The context must survive the thread hops between the caller, the writer and the reader
+            var response = xbee
+                    .sendAT(new AtCommand(HV), Duration.ofSeconds(5))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .contextWrite(FrameTracer.withTraceId(42))
+                    .block();
+
+            assertThat(response).isNotNull();
+
+            var events = xbee.getTracer().snapshot();
+
+            assertThat(events).extracting(e -> e.event).contains(TraceEvent.SEND, TraceEvent.WRITE, TraceEvent.SYNC, TraceEvent.HEADER, TraceEvent.DECODE);
+            assertThat(events)
+                    .filteredOn(e -> e.event == TraceEvent.SEND || e.event == TraceEvent.WRITE)
+                    .allSatisfy(e -> {
+                        assertThat(e.traceId).isEqualTo(42);
+                        assertThat(e.frameId).isEqualTo(response.frameId & 0xFF);
+                    });
+        }
+    }
+
+    @Test
+    void sendTimeout() throws Exception {
+
+        var transport = new LoopbackTransport();
+
+        try (var xbee = new XBeeReactive(transport)) {
+
+            var response = xbee
+                    .sendAT(new AtCommand(HV), Duration.ofMillis(200))
+                    .block();
+
+            assertThat(response).isNull();
+            assertThat(xbee.getPendingRequests().size()).isZero();
+        }
+    }
+
+    @Test
+    void concurrentSend() throws Exception {
+
+        var transport = LoopbackDevice.transport();
+
+        try (var xbee = new XBeeReactive(transport)) {
+
+            // More requests than there are frame IDs
+            var responses = Flux
+                    .range(0, 0x200)
+                    .flatMap(ignored -> xbee
+                            .sendAT(new AtCommand(HV), Duration.ofSeconds(5))
+                            .subscribeOn(Schedulers.parallel()), 0x200)
+                    .collectList()
+                    .block(Duration.ofSeconds(10));
+
+            assertThat(responses).hasSize(0x200).doesNotContainNull();
+            assertThat(xbee.getPendingRequests().size()).isZero();
+        }
+    }
+
+    @Test
+    void coalesce() throws Exception {
+
+        var flushes = new AtomicInteger();
+        var entered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        var transport = new LoopbackTransport("loopback", written -> {
+
+            if (flushes.getAndIncrement() == 0) {
+
+                // Hold the writer on the first flush so that the rest pile up
+                entered.countDown();
+
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        try (var xbee = new XBeeReactive(transport)) {
+
+            var first = xbee.sendAsync(new AtCommand(HV));
+
+            assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+            var rest = new ArrayList<Mono<Void>>();
+
+            for (var count = 0; count < 10; count++) {
+                rest.add(xbee.sendAsync(new AtCommand(NT)));
+            }
+
+            release.countDown();
+
+            first.block(Duration.ofSeconds(5));
+            Mono.when(rest).block(Duration.ofSeconds(5));
+
+            assertThat(flushes.get()).isEqualTo(2);
+            assertThat(LoopbackDevice.frames(transport.getWritten())).hasSize(11);
+        }
+    }
+}
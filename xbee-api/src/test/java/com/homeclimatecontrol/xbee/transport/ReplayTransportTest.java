@@ -0,0 +1,88 @@
+package com.homeclimatecontrol.xbee.transport;
+
+import com.homeclimatecontrol.xbee.XBeeReactive;
+import com.homeclimatecontrol.xbee.capture.CaptureWriter;
+import com.homeclimatecontrol.xbee.response.frame.LocalATCommandResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static com.homeclimatecontrol.xbee.transport.LoopbackTransportTest.HV_RESPONSE;
+import static com.rapplogic.xbee.api.AtCommand.Command.HV;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplayTransportTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recordAndReplay() throws Exception {
+
+        var capture = dir.resolve("capture");
+        var loopback = new LoopbackTransport();
+
+        try (var xbee = new XBeeReactive(new RecordingTransport(loopback, capture))) {
+
+            var future = xbee.receive().take(3).collectList().toFuture();
+
+            loopback.inject(HV_RESPONSE);
+            // Split frame, it must come out the same way
+            loopback.inject(Arrays.copyOfRange(HV_RESPONSE, 0, 4));
+            Thread.sleep(50);
+            loopback.inject(Arrays.copyOfRange(HV_RESPONSE, 4, HV_RESPONSE.length));
+            loopback.inject(HV_RESPONSE);
+
+            assertThat(future.get(5, TimeUnit.SECONDS)).hasSize(3);
+        }
+
+        var replay = new ReplayTransport(capture, ReplayTransport.AS_FAST_AS_POSSIBLE);
+
+        try (var xbee = new XBeeReactive(replay)) {
+
+            var future = xbee.receive().take(3).collectList().toFuture();
+
+            replay.start();
+
+            var received = future.get(5, TimeUnit.SECONDS);
+
+            assertThat(received).hasSize(3);
+            assertThat(received).allSatisfy(frame -> {
+                assertThat(frame).isInstanceOf(LocalATCommandResponse.class);
+                assertThat(((LocalATCommandResponse) frame).command).isEqualTo(HV);
+            });
+
+            replay.getFinished().get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void pace() throws Exception {
+
+        var capture = dir.resolve("capture");
+
+        try (var writer = new CaptureWriter(capture)) {
+            writer.write(HV_RESPONSE, 0, HV_RESPONSE.length, 0);
+            writer.write(HV_RESPONSE, 0, HV_RESPONSE.length, Duration.ofMillis(600).toNanos());
+        }
+
+        var replay = new ReplayTransport(capture, 2);
+
+        try (var xbee = new XBeeReactive(replay)) {
+
+            var start = System.nanoTime();
+
+            replay.start();
+            replay.getFinished().get(5, TimeUnit.SECONDS);
+
+            var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+            // 600ms at double speed
+            assertThat(elapsed).isBetween(Duration.ofMillis(250), Duration.ofMillis(2000));
+        }
+    }
+}
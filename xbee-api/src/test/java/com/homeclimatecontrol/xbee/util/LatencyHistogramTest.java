@@ -0,0 +1,65 @@
+package com.homeclimatecontrol.xbee.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class LatencyHistogramTest {
+
+    @Test
+    void bucketBounds() {
+
+        for (var value = 0L; value < 100_000; value++) {
+            var index = LatencyHistogram.index(value);
+            assertThat(LatencyHistogram.upperBound(index)).isGreaterThanOrEqualTo(value);
+            assertThat(index == 0 || LatencyHistogram.upperBound(index - 1) < value).isTrue();
+        }
+
+        assertThat(LatencyHistogram.index(Long.MAX_VALUE)).isLessThan(64 * 8);
+    }
+
+    @Test
+    void percentiles() {
+
+        var h = new LatencyHistogram();
+
+        for (var value = 1; value <= 100; value++) {
+            h.record(Duration.ofMillis(value).toNanos());
+        }
+
+        assertThat(h.getCount()).isEqualTo(100);
+        assertThat(h.getMax()).isEqualTo(Duration.ofMillis(100));
+        assertThat(h.getMean()).isEqualTo(Duration.ofNanos(50_500_000));
+
+        // Relative error is bounded by the sub-bucket width
+        assertThat(h.getPercentile(50).toNanos()).isBetween(50_000_000L, 57_000_000L);
+        assertThat(h.getPercentile(100)).isEqualTo(Duration.ofMillis(100));
+    }
+
+    @Test
+    void empty() {
+
+        var h = new LatencyHistogram();
+
+        assertThat(h.getPercentile(99)).isEqualTo(Duration.ZERO);
+        assertThat(h.getMean()).isEqualTo(Duration.ZERO);
+        assertThatIllegalArgumentException().isThrownBy(() -> h.getPercentile(0));
+    }
+
+    @Test
+    void reset() {
+
+        var h = new LatencyHistogram();
+
+        h.record(-1);
+        h.record(42);
+        assertThat(h.getMax()).isEqualTo(Duration.ofNanos(42));
+
+        h.reset();
+        assertThat(h.getCount()).isZero();
+        assertThat(h.getMax()).isEqualTo(Duration.ZERO);
+    }
+}
@@ -0,0 +1,60 @@
+package com.homeclimatecontrol.xbee.benchmark;
+
+import com.homeclimatecontrol.xbee.util.XbeeChecksum;
+import com.rapplogic.xbee.api.Checksum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link XbeeChecksum} against the legacy {@link Checksum}, over the frame data of short and long frames.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+@State(Scope.Thread)
+public class ChecksumBenchmark {
+
+    @Param({"hv", "nd", "io_sample"})
+    public String frame;
+
+    private ByteBuffer frameData;
+    private int[] legacyFrameData;
+
+    @Setup
+    public void setUp() {
+
+        var source = Corpus.getFrameData(frame);
+
+        frameData = ByteBuffer.wrap(source);
+        legacyFrameData = Corpus.toInt(source);
+    }
+
+    @Benchmark
+    public byte xbeeChecksum() {
+
+        var checksum = new XbeeChecksum();
+
+        frameData.rewind();
+        checksum.update(frameData);
+
+        return checksum.getValue();
+    }
+
+    @Benchmark
+    public int legacy() {
+
+        var checksum = new Checksum();
+
+        for (var b : legacyFrameData) {
+            checksum.addByte(b);
+        }
+
+        checksum.compute();
+
+        return checksum.getChecksum();
+    }
+}
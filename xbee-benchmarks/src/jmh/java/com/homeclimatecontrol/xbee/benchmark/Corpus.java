@@ -0,0 +1,153 @@
+package com.homeclimatecontrol.xbee.benchmark;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Captured frame corpus, see {@code corpus/frames.txt}.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+public class Corpus {
+
+    private static final String RESOURCE = "/corpus/frames.txt";
+
+    private static final byte ESCAPE = 0x7D;
+
+    private static final Map<String, byte[]> frames = load();
+
+    private Corpus() {
+    }
+
+    private static Map<String, byte[]> load() {
+
+        var result = new LinkedHashMap<String, byte[]>();
+
+        try (var in = Corpus.class.getResourceAsStream(RESOURCE)) {
+
+            if (in == null) {
+                throw new IllegalStateException(RESOURCE + ": not found");
+            }
+
+            var reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII));
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+
+                line = line.trim();
+
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                var tokens = line.split("\\s+");
+                var frame = new byte[tokens.length - 1];
+
+                for (var offset = 0; offset < frame.length; offset++) {
+                    frame[offset] = (byte) Integer.parseInt(tokens[offset + 1], 16);
+                }
+
+                result.put(tokens[0], frame);
+            }
+
+        } catch (IOException ex) {
+            throw new UncheckedIOException(RESOURCE + ": can't read", ex);
+        }
+
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * @return All frames in the corpus, in the order they are listed, as they came over the wire.
+     */
+    public static Map<String, byte[]> getFrames() {
+        return frames;
+    }
+
+    /**
+     * Get the frame as it came over the wire.
+     *
+     * @param name Frame name.
+     *
+     * @return Escaped frame, starting with the start delimiter and ending with the checksum.
+     */
+    public static byte[] getWire(String name) {
+
+        var frame = frames.get(name);
+
+        if (frame == null) {
+            throw new IllegalArgumentException(name + ": not in the corpus, known frames are " + frames.keySet());
+        }
+
+        return frame.clone();
+    }
+
+    /**
+     * Get the frame data.
+     *
+     * @param name Frame name.
+     *
+     * @return Unescaped frame data, starting with the frame type and not including the checksum.
+     */
+    public static byte[] getFrameData(String name) {
+
+        var unescaped = unescape(getWire(name));
+
+        // Skip the start delimiter and the length, drop the checksum
+        var frameData = new byte[unescaped.length - 4];
+        System.arraycopy(unescaped, 3, frameData, 0, frameData.length);
+
+        return frameData;
+    }
+
+    /**
+     * @return All frames in the corpus concatenated, like they would come over the wire.
+     */
+    public static byte[] getStream() {
+
+        var result = new ByteArrayOutputStream();
+
+        for (var frame : frames.values()) {
+            result.writeBytes(frame);
+        }
+
+        return result.toByteArray();
+    }
+
+    private static byte[] unescape(byte[] wire) {
+
+        var result = new ByteArrayOutputStream();
+
+        for (var offset = 0; offset < wire.length; offset++) {
+
+            if (wire[offset] == ESCAPE) {
+                result.write(wire[++offset] ^ 0x20);
+            } else {
+                result.write(wire[offset]);
+            }
+        }
+
+        return result.toByteArray();
+    }
+
+    /**
+     * Convert to the representation legacy code uses.
+     */
+    public static int[] toInt(byte[] source) {
+
+        var result = new int[source.length];
+
+        for (var offset = 0; offset < source.length; offset++) {
+            result[offset] = source[offset] & 0xFF;
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,62 @@
+package com.homeclimatecontrol.xbee.benchmark;
+
+import com.homeclimatecontrol.xbee.response.FrameDecoder;
+import com.homeclimatecontrol.xbee.response.ResponseReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link FrameDecoder} over the whole corpus, the way the reader thread sees it.
+ *
+ * Results are per frame.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+@State(Scope.Thread)
+public class FrameDecoderBenchmark {
+
+    /**
+     * Number of frames in the corpus.
+     */
+    private static final int FRAMES = 9;
+
+    /**
+     * How many bytes the transport hands over at once. 1 is the worst case of a slow serial line.
+     */
+    @Param({"1", "64", "4096"})
+    public int chunkSize;
+
+    private FrameDecoder decoder;
+    private ByteBuffer chunk;
+
+    @Setup
+    public void setUp() {
+
+        if (Corpus.getFrames().size() != FRAMES) {
+            throw new IllegalStateException("Corpus has " + Corpus.getFrames().size() + " frames, update FRAMES");
+        }
+
+        decoder = new FrameDecoder(new ResponseReader());
+        chunk = ByteBuffer.wrap(Corpus.getStream());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public void decode(Blackhole blackhole) {
+
+        var end = chunk.capacity();
+
+        for (var position = 0; position < end; position += chunkSize) {
+
+            chunk.limit(Math.min(position + chunkSize, end)).position(position);
+            decoder.decode(chunk, blackhole::consume);
+        }
+    }
+}
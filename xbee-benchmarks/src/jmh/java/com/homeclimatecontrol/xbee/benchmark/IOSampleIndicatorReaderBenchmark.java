@@ -0,0 +1,64 @@
+package com.homeclimatecontrol.xbee.benchmark;
+
+import com.homeclimatecontrol.xbee.response.frame.IOSampleIndicator;
+import com.homeclimatecontrol.xbee.response.frame.IOSampleIndicatorReader;
+import com.homeclimatecontrol.xbee.response.frame.IOSampleIndicatorView;
+import com.homeclimatecontrol.xbee.response.frame.XBeeResponseFrame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link IOSampleIndicatorReader}, the most frequent frame on a sensor network.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+@State(Scope.Thread)
+public class IOSampleIndicatorReaderBenchmark {
+
+    private final IOSampleIndicatorReader reader = new IOSampleIndicatorReader();
+
+    private ByteBuffer frameData;
+
+    @Setup
+    public void setUp() {
+
+        // The reader gets the frame data past the frame type
+        frameData = ByteBuffer.wrap(Corpus.getFrameData("io_sample")).position(1).slice();
+    }
+
+    @Benchmark
+    public XBeeResponseFrame read() {
+        frameData.rewind();
+        return reader.read(frameData);
+    }
+
+    /**
+     * What a consumer looking at every analog channel pays.
+     */
+    @Benchmark
+    public int readAnalog() {
+
+        frameData.rewind();
+
+        var sample = (IOSampleIndicator) reader.read(frameData);
+        var sum = 0;
+
+        for (var channel = 0; channel < 8; channel++) {
+            if (sample.isAnalogSampled(channel)) {
+                sum += sample.getAnalog(channel);
+            }
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    public IOSampleIndicatorView readView() {
+        frameData.rewind();
+        return new IOSampleIndicatorView((IOSampleIndicator) reader.read(frameData));
+    }
+}
@@ -0,0 +1,39 @@
+package com.homeclimatecontrol.xbee.benchmark;
+
+import com.homeclimatecontrol.xbee.response.command.CommandResponse;
+import com.homeclimatecontrol.xbee.response.command.NDResponseReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link NDResponseReader}, one response per node during discovery.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+@State(Scope.Thread)
+public class NDResponseReaderBenchmark {
+
+    /**
+     * Command data offset in the frame data: frame type, frame ID, command, status.
+     */
+    private static final int COMMAND_DATA_OFFSET = 5;
+
+    private final NDResponseReader reader = new NDResponseReader();
+
+    private ByteBuffer commandData;
+
+    @Setup
+    public void setUp() {
+        commandData = ByteBuffer.wrap(Corpus.getFrameData("nd")).position(COMMAND_DATA_OFFSET).slice();
+    }
+
+    @Benchmark
+    public CommandResponse read() {
+        commandData.rewind();
+        return reader.read(commandData);
+    }
+}
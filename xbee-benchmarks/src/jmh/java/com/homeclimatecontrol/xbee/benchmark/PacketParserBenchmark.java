@@ -0,0 +1,40 @@
+package com.homeclimatecontrol.xbee.benchmark;
+
+import com.rapplogic.xbee.api.PacketParser;
+import com.rapplogic.xbee.api.XBeeResponse;
+import com.rapplogic.xbee.util.IntArrayInputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+
+/**
+ * Legacy {@link PacketParser#parsePacket()}, for comparison with {@link ResponseReaderBenchmark}.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+@State(Scope.Thread)
+public class PacketParserBenchmark {
+
+    @Param({"hv", "ai", "my", "ni", "vr", "nd", "d0", "io_sample"})
+    public String frame;
+
+    private int[] packet;
+
+    @Setup
+    public void setUp() {
+
+        var wire = Corpus.toInt(Corpus.getWire(frame));
+
+        // The parser expects the start delimiter to be consumed already
+        packet = Arrays.copyOfRange(wire, 1, wire.length);
+    }
+
+    @Benchmark
+    public XBeeResponse parsePacket() {
+        return new PacketParser(new IntArrayInputStream(packet)).parsePacket();
+    }
+}
@@ -0,0 +1,56 @@
+package com.homeclimatecontrol.xbee.benchmark;
+
+import com.homeclimatecontrol.xbee.response.ResponseReader;
+import com.homeclimatecontrol.xbee.response.frame.XBeeResponseFrame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link ResponseReader} over every frame type it has a reader for.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+@State(Scope.Thread)
+public class ResponseReaderBenchmark {
+
+    @Param({"hv", "ai", "my", "ni", "vr", "nd", "d0", "io_sample", "rx"})
+    public String frame;
+
+    private final ResponseReader reader = new ResponseReader();
+
+    private ByteBuffer frameData;
+    private ByteArrayInputStream wire;
+
+    @Setup
+    public void setUp() {
+
+        frameData = ByteBuffer.wrap(Corpus.getFrameData(frame));
+
+        var bytes = Corpus.getWire(frame);
+
+        // read(InputStream) expects the start delimiter to be consumed already
+        wire = new ByteArrayInputStream(bytes, 1, bytes.length - 1);
+    }
+
+    /**
+     * The path {@link com.homeclimatecontrol.xbee.response.FrameDecoder} takes.
+     */
+    @Benchmark
+    public XBeeResponseFrame frameData() {
+        frameData.rewind();
+        return reader.read(frameData);
+    }
+
+    @Benchmark
+    public XBeeResponseFrame stream() throws IOException {
+        wire.reset();
+        return reader.read(wire);
+    }
+}
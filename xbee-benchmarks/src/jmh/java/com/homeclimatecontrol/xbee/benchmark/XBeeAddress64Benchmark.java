@@ -0,0 +1,55 @@
+package com.homeclimatecontrol.xbee.benchmark;
+
+import com.homeclimatecontrol.xbee.AddressParser;
+import com.rapplogic.xbee.api.XBeeAddress64;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link XBeeAddress64} as a map key, the way per-node state is looked up.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+@State(Scope.Thread)
+public class XBeeAddress64Benchmark {
+
+    private static final int NODES = 64;
+
+    private final Map<XBeeAddress64, Integer> nodes = new HashMap<>();
+    private final ByteBuffer wire = ByteBuffer.allocate(8);
+
+    @Setup
+    public void setUp() {
+
+        for (var node = 0; node < NODES; node++) {
+            nodes.put(XBeeAddress64.valueOf(0x0013A20040000000L + node), node);
+        }
+
+        wire.putLong(0x0013A20040000000L + NODES / 2).flip();
+    }
+
+    @Benchmark
+    public XBeeAddress64 parse() {
+        return AddressParser.parse("0013A200.405D8027");
+    }
+
+    @Benchmark
+    public String render() {
+        return nodes.keySet().iterator().next().toString();
+    }
+
+    /**
+     * Read off the wire and find the node, what every received frame costs.
+     */
+    @Benchmark
+    public Integer readAndLookup() {
+        wire.rewind();
+        return nodes.get(XBeeAddress64.valueOf(wire));
+    }
+}
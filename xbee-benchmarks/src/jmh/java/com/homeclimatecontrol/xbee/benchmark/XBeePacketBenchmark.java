@@ -0,0 +1,87 @@
+package com.homeclimatecontrol.xbee.benchmark;
+
+import com.homeclimatecontrol.xbee.request.FrameEncoder;
+import com.rapplogic.xbee.api.AtCommand;
+import com.rapplogic.xbee.api.RemoteAtRequest;
+import com.rapplogic.xbee.api.XBeeAddress16;
+import com.rapplogic.xbee.api.XBeeAddress64;
+import com.rapplogic.xbee.api.XBeePacket;
+import com.rapplogic.xbee.api.XBeeRequest;
+import com.rapplogic.xbee.api.zigbee.ZNetTxRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+
+import static com.rapplogic.xbee.api.AtCommand.Command.D0;
+import static com.rapplogic.xbee.api.AtCommand.Command.IS;
+
+/**
+ * Request escaping and framing: legacy {@link XBeePacket} against {@link FrameEncoder}.
+ *
+ * @author Copyright &copy; <a href="mailto:vt@homeclimatecontrol.com">Vadim Tkachenko</a> 2021
+ */
+@State(Scope.Thread)
+public class XBeePacketBenchmark {
+
+    /**
+     * Address of a real device, it needs escaping.
+     */
+    private static final XBeeAddress64 ADDRESS = new XBeeAddress64("0013A200402D52DD");
+
+    @Param({"at", "remote_at", "tx"})
+    public String request;
+
+    private XBeeRequest rq;
+    private int[] frameData;
+
+    private final FrameEncoder encoder = new FrameEncoder();
+    private ByteBuffer target;
+
+    @Setup
+    public void setUp() {
+
+        switch (request) {
+            case "at":
+                rq = new AtCommand(IS, null, (byte) 0x11);
+                break;
+            case "remote_at":
+                rq = new RemoteAtRequest((byte) 0x22, ADDRESS, new XBeeAddress16(0x46, 0x34), true, D0, new int[] {0x05});
+                break;
+            case "tx":
+                rq = new ZNetTxRequest((byte) 0x33, ADDRESS, Corpus.toInt(Corpus.getFrameData("nd")));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown request: " + request);
+        }
+
+        frameData = rq.getFrameData();
+        target = ByteBuffer.allocate(FrameEncoder.getMaxEncodedLength(rq.getFrameDataLength()));
+    }
+
+    /**
+     * Escaping only, the frame data is already there.
+     */
+    @Benchmark
+    public int[] escape() {
+        return new XBeePacket(frameData).getByteArray();
+    }
+
+    /**
+     * What the legacy writer did: frame data, then escaping.
+     */
+    @Benchmark
+    public int[] legacy() {
+        return rq.getXBeePacket().getByteArray();
+    }
+
+    @Benchmark
+    public ByteBuffer encoder() {
+        target.clear();
+        encoder.encode(rq, target);
+        return target;
+    }
+}